@@ -46,6 +46,7 @@ import com.microsoft.azure.toolkit.eclipse.common.task.EclipseAzureTaskManager;
 import com.microsoft.azure.toolkit.ide.common.store.AzureConfigInitializer;
 import com.microsoft.azure.toolkit.ide.common.store.AzureStoreManager;
 import com.microsoft.azure.toolkit.ide.common.store.DefaultMachineStore;
+import com.microsoft.azure.toolkit.ide.common.store.IMachineStore;
 import com.microsoft.azure.toolkit.lib.Azure;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
@@ -242,6 +243,10 @@ public class Activator extends AbstractUIPlugin implements PluginComponent {
      */
     @Override
     public void stop(BundleContext context) throws Exception {
+        final IMachineStore machineStore = AzureStoreManager.getInstance().getMachineStore();
+        if (machineStore != null) {
+            machineStore.flush();
+        }
         plugin = null;
         super.stop(context);
     }
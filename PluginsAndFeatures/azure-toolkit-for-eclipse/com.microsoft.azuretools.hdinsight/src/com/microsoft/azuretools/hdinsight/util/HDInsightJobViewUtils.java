@@ -15,6 +15,7 @@ import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.FileUtils;
 
+import com.microsoft.azure.hdinsight.sdk.common.HttpConnectionPool;
 import com.microsoft.azure.hdinsight.spark.jobs.JobViewHttpServer;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.azuretools.core.utils.PluginUtil;
@@ -28,6 +29,7 @@ public class HDInsightJobViewUtils {
 
     public static void closeJobViewHttpServer() {
         JobViewHttpServer.close();
+        HttpConnectionPool.getInstance().shutdown();
     }
 
     public static void checkInitlize() {
@@ -9,6 +9,7 @@ import com.intellij.codeInsight.AnnotationUtil;
 import com.intellij.codeInsight.MetaAnnotationUtil;
 import com.intellij.lang.jvm.JvmAnnotation;
 import com.intellij.lang.jvm.JvmParameter;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
@@ -21,6 +22,7 @@ import com.intellij.openapi.roots.OrderEnumerator;
 import com.intellij.openapi.roots.OrderRootType;
 import com.intellij.openapi.roots.libraries.Library;
 import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.JavaPsiFacade;
 import com.intellij.psi.PsiAnnotation;
@@ -66,6 +68,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -78,7 +81,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -93,6 +98,9 @@ public class FunctionUtils {
     private static final String AZURE_FUNCTION_ANNOTATION_CLASS =
             "com.microsoft.azure.functions.annotation.FunctionName";
     private static final String FUNCTION_JSON = "function.json";
+    private static final String HOST_JSON = "host.json";
+    // incremental staging folders being used by runs or deployments
+    private static final Set<Path> STAGING_FOLDERS_IN_USE = ConcurrentHashMap.newKeySet();
     private static final String HTTP_OUTPUT_DEFAULT_NAME = "$return";
     private static final String DEFAULT_HOST_JSON = "{\"version\":\"2.0\",\"extensionBundle\":" +
             "{\"id\":\"Microsoft.Azure.Functions.ExtensionBundle\",\"version\":\"[4.*, 5.0.0)\"}}\n";
@@ -143,11 +151,37 @@ public class FunctionUtils {
         }
     }
 
+    /**
+     * get the staging folder of the module kept across runs, so that the unchanged files staged last time are reused
+     * by {@link #prepareStagingFolder}. a temp staging folder is returned if it's being used, e.g. by another run.
+     *
+     * @param purpose e.g. "run" or "deploy", a folder is deployed as is, so it's not shared with local run
+     */
+    public static File getIncrementalStagingFolder(@Nonnull final Module module, @Nonnull final String purpose) {
+        final Path folder = Paths.get(PathManager.getSystemPath(), AZURE_FUNCTIONS, module.getProject().getLocationHash(),
+                FileUtil.sanitizeFileName(module.getName()), purpose).toAbsolutePath().normalize();
+        if (!STAGING_FOLDERS_IN_USE.add(folder)) {
+            return getTempStagingFolder();
+        }
+        try {
+            Files.createDirectories(folder);
+            return folder.toFile();
+        } catch (final IOException e) {
+            STAGING_FOLDERS_IN_USE.remove(folder);
+            log.warn("failed to create staging folder {}, use temp folder instead", folder, e);
+            return getTempStagingFolder();
+        }
+    }
+
+    /**
+     * delete the temp staging folder, or release the incremental staging folder for the next run.
+     */
     @AzureOperation(name = "boundary/function.clean_staging_folder.folder", params = {"stagingFolder.getName()"})
     public static void cleanUpStagingFolder(File stagingFolder) {
         try {
-            if (stagingFolder != null) {
+            if (stagingFolder != null && !STAGING_FOLDERS_IN_USE.remove(stagingFolder.toPath().toAbsolutePath().normalize())) {
                 FileUtils.deleteDirectory(stagingFolder);
+                Files.deleteIfExists(StagingManifest.getManifestFile(stagingFolder.toPath()));
             }
         } catch (final IOException e) {
             // swallow exceptions while clean up
@@ -245,9 +279,8 @@ public class FunctionUtils {
                                                                           @Nonnull final Project project, @Nonnull final Module module, PsiMethod[] methods)
             throws AzureExecutionException, IOException {
         final Map<String, FunctionConfiguration> configMap = ReadAction.compute(() -> generateConfigurations(methods));
-        if (stagingFolder.toFile().isDirectory()) {
-            FileUtils.cleanDirectory(stagingFolder.toFile());
-        }
+        // only the changed files are staged, and the files staged last time but not this time are removed at last
+        final StagingManifest manifest = StagingManifest.load(stagingFolder);
 
         final Path jarFile;
         // test if it is gradle project
@@ -259,23 +292,24 @@ public class FunctionUtils {
                 final String error = String.format("Failed generate jar file for project(%s)", gradleProject.getName());
                 throw new AzureToolkitRuntimeException(error);
             }
-            FileUtils.copyFileToDirectory(gradleProject.getArtifactFile(), stagingFolder.toFile());
+            manifest.stageFile(jarFile, jarFile.getFileName().toString());
         } else {
             jarFile = JarUtils.buildJarFileToStagingPath(stagingFolder.toString(), module);
+            manifest.addFile(jarFile.getFileName().toString());
         }
 
         final String scriptFilePath = "../" + jarFile.getFileName().toString();
         configMap.values().forEach(config -> config.setScriptFile(scriptFilePath));
         for (final Map.Entry<String, FunctionConfiguration> config : configMap.entrySet()) {
             if (StringUtils.isNotBlank(config.getKey())) {
-                final File functionJsonFile = Paths.get(stagingFolder.toString(), config.getKey(), FUNCTION_JSON)
-                                                   .toFile();
-                writeFunctionJsonFile(functionJsonFile, config.getValue());
+                final String functionJson = JsonUtils.toJson(getFunctionJson(config.getValue()));
+                manifest.writeFile(config.getKey() + "/" + FUNCTION_JSON, functionJson.getBytes(StandardCharsets.UTF_8));
             }
         }
 
-        final File hostJsonFile = new File(stagingFolder.toFile(), "host.json");
-        copyFilesWithDefaultContent(hostJson, hostJsonFile, DEFAULT_HOST_JSON);
+        final File hostJsonSource = Optional.ofNullable(hostJson).map(Path::toFile).filter(File::exists).orElse(null);
+        manifest.writeFile(HOST_JSON, Objects.nonNull(hostJsonSource) ? Files.readAllBytes(hostJsonSource.toPath()) :
+                DEFAULT_HOST_JSON.getBytes(Charset.defaultCharset()));
 
         final List<File> dependencies = new ArrayList<>();
         if (gradleProject.isValid()) {
@@ -297,15 +331,21 @@ public class FunctionUtils {
                 .filter(name -> StringUtils.equalsAnyIgnoreCase(name, AZURE_FUNCTIONS_JAVA_CORE_LIBRARY))
                 .findFirst().orElse(AZURE_FUNCTIONS_JAVA_LIBRARY);
 
-        final File libFolder = new File(stagingFolder.toFile(), "lib");
+        // the later one wins if there are dependencies with the same file name
+        final Map<String, File> libFiles = new LinkedHashMap<>();
         for (final File file : dependencies) {
             if (!StringUtils.equalsIgnoreCase(getArtifactIdFromFile(file), libraryToExclude)) {
                 if (!file.exists()) {
                     throw new AzureToolkitRuntimeException(String.format("Dependency artifact (%s) not found, please correct the dependency and try again", file.getAbsolutePath()));
                 }
-                FileUtils.copyFileToDirectory(file, libFolder);
+                libFiles.remove(file.getName());
+                libFiles.put(file.getName(), file);
             }
         }
+        for (final File file : libFiles.values()) {
+            manifest.stageFile(file.toPath(), "lib/" + file.getName());
+        }
+        manifest.commit();
         return configMap;
     }
 
@@ -380,7 +420,7 @@ public class FunctionUtils {
                         .collect(Collectors.toList());
     }
 
-    private static void writeFunctionJsonFile(File file, FunctionConfiguration config) throws IOException {
+    private static Map<String, Object> getFunctionJson(FunctionConfiguration config) {
         final Map<String, Object> json = new LinkedHashMap<>();
         json.put("scriptFile", config.getScriptFile());
         json.put("entryPoint", config.getEntryPoint());
@@ -403,8 +443,7 @@ public class FunctionUtils {
             }
             json.put("bindings", lists.toArray());
         }
-        file.getParentFile().mkdirs();
-        JsonUtils.writeToJsonFile(file, json);
+        return json;
     }
 
     private static String stripExtraCharacters(String fileName) {
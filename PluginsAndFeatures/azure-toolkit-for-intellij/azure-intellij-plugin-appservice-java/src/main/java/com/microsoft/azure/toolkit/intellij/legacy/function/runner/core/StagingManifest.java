@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.legacy.function.runner.core;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Manifest of the files staged into a function staging folder, with the size, last modified time and hash of each
+ * file and its source. It's kept beside the staging folder (not in it, since the folder is deployed as is), so that a
+ * following staging only copies the changed dependencies and rewrites the changed files, and removes all the other
+ * files in the folder, e.g. the ones staged last time, {@code local.settings.json} or the output of {@code func extensions}.
+ */
+@Slf4j
+public class StagingManifest {
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String SEPARATOR = "\t";
+
+    private final Path stagingFolder;
+    private final Path manifestFile;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new HashMap<>();
+    @Getter
+    private int reusedFiles;
+    @Getter
+    private int stagedFiles;
+
+    private StagingManifest(@Nonnull Path stagingFolder, @Nonnull Map<String, Entry> previous) {
+        this.stagingFolder = stagingFolder;
+        this.manifestFile = getManifestFile(stagingFolder);
+        this.previous = previous;
+    }
+
+    @Nonnull
+    public static Path getManifestFile(@Nonnull Path stagingFolder) {
+        return stagingFolder.resolveSibling(stagingFolder.getFileName() + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * load the manifest of the last staging, an empty manifest if there is none or it's broken.
+     */
+    @Nonnull
+    public static StagingManifest load(@Nonnull Path stagingFolder) {
+        final Map<String, Entry> entries = new HashMap<>();
+        final Path file = getManifestFile(stagingFolder);
+        if (Files.isRegularFile(file)) {
+            try {
+                for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    final Entry entry = Entry.parse(line);
+                    if (Objects.nonNull(entry)) {
+                        entries.put(entry.path, entry);
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                log.warn("failed to read staging manifest {}, stage all files", file, e);
+                entries.clear();
+            }
+        }
+        return new StagingManifest(stagingFolder, entries);
+    }
+
+    /**
+     * stage the source file to the relative path, unless it's unchanged since the last staging. the file is copied but
+     * not hard linked, since the sources, e.g. the build output or jars in the local repository, may be rewritten in
+     * place, which would change the staged file and the deployed folder as well.
+     */
+    public void stageFile(@Nonnull Path source, @Nonnull String relativePath) throws IOException {
+        final Path target = this.stagingFolder.resolve(relativePath);
+        final long size = Files.size(source);
+        final long lastModified = Files.getLastModifiedTime(source).toMillis();
+        final String sourcePath = source.toAbsolutePath().toString();
+        final Entry last = this.previous.get(relativePath);
+        final boolean staged = Objects.nonNull(last) && Files.isRegularFile(target) && Files.size(target) == size
+            && StringUtils.equals(last.source, sourcePath);
+        if (staged && last.lastModified == lastModified && last.size == size) {
+            this.keep(last);
+            return;
+        }
+        final String hash = hash(source);
+        if (staged && StringUtils.equals(last.hash, hash)) {
+            // touched but not changed
+            this.keep(new Entry(relativePath, size, lastModified, hash, sourcePath));
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        // remove the target first in case it's hard linked to the source by an earlier staging
+        Files.deleteIfExists(target);
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        this.stage(new Entry(relativePath, size, lastModified, hash, sourcePath));
+    }
+
+    /**
+     * write the content to the relative path, unless the file has the same content already.
+     */
+    public void writeFile(@Nonnull String relativePath, @Nonnull byte[] content) throws IOException {
+        final Path target = this.stagingFolder.resolve(relativePath);
+        final String hash = DigestUtils.sha256Hex(content);
+        final Entry last = this.previous.get(relativePath);
+        if (Objects.nonNull(last) && StringUtils.equals(last.hash, hash) && Files.isRegularFile(target) && Files.size(target) == content.length) {
+            this.keep(last);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Files.write(target, content);
+        this.stage(new Entry(relativePath, content.length, Files.getLastModifiedTime(target).toMillis(), hash, StringUtils.EMPTY));
+    }
+
+    /**
+     * record the file generated into the staging folder by others, so that it's not removed as stale.
+     */
+    public void addFile(@Nonnull String relativePath) throws IOException {
+        final Path target = this.stagingFolder.resolve(relativePath);
+        this.stage(new Entry(relativePath, Files.size(target), Files.getLastModifiedTime(target).toMillis(), StringUtils.EMPTY, StringUtils.EMPTY));
+    }
+
+    public boolean contains(@Nonnull String relativePath) {
+        return this.current.containsKey(relativePath);
+    }
+
+    /**
+     * remove the files not staged this time, including the ones not tracked by the manifest, and save the manifest.
+     */
+    public void commit() throws IOException {
+        final List<Path> stale;
+        try (final Stream<Path> files = Files.walk(this.stagingFolder)) {
+            stale = files.filter(f -> !Files.isDirectory(f, LinkOption.NOFOLLOW_LINKS))
+                .filter(f -> !this.current.containsKey(getRelativePath(f)))
+                .toList();
+        }
+        for (final Path file : stale) {
+            Files.deleteIfExists(file);
+            deleteEmptyParents(file.getParent());
+        }
+        final List<String> lines = new ArrayList<>(this.current.size());
+        this.current.values().forEach(entry -> lines.add(entry.format()));
+        final Path temp = this.manifestFile.resolveSibling(this.manifestFile.getFileName() + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, this.manifestFile, StandardCopyOption.REPLACE_EXISTING);
+        log.info("staged {} file(s) and reused {} file(s) in {}", this.stagedFiles, this.reusedFiles, this.stagingFolder);
+    }
+
+    private void keep(@Nonnull Entry entry) {
+        this.current.put(entry.path, entry);
+        this.reusedFiles++;
+    }
+
+    private void stage(@Nonnull Entry entry) {
+        this.current.put(entry.path, entry);
+        this.stagedFiles++;
+    }
+
+    private void deleteEmptyParents(@Nullable Path folder) throws IOException {
+        Path current = folder;
+        while (Objects.nonNull(current) && current.startsWith(this.stagingFolder) && !current.equals(this.stagingFolder)) {
+            try (final var children = Files.list(current)) {
+                if (children.findAny().isPresent()) {
+                    return;
+                }
+            }
+            Files.delete(current);
+            current = current.getParent();
+        }
+    }
+
+    @Nonnull
+    private String getRelativePath(@Nonnull Path file) {
+        return this.stagingFolder.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    @Nonnull
+    private static String hash(@Nonnull Path file) throws IOException {
+        try (final InputStream input = Files.newInputStream(file)) {
+            return DigestUtils.sha256Hex(input);
+        }
+    }
+
+    private record Entry(String path, long size, long lastModified, String hash, String source) {
+        @Nullable
+        static Entry parse(@Nonnull String line) {
+            final String[] parts = line.split(SEPARATOR, -1);
+            if (parts.length != 5) {
+                return null;
+            }
+            return new Entry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3], parts[4]);
+        }
+
+        @Nonnull
+        String format() {
+            return String.join(SEPARATOR, this.path, String.valueOf(this.size), String.valueOf(this.lastModified), this.hash, this.source);
+        }
+    }
+}
@@ -85,7 +85,9 @@ public class FunctionDeploymentState extends AzureRunProfileState<FunctionAppBas
             draft.reset();
         }
         functionDeployConfiguration.setAppSettings(target.getAppSettings()); // save app settings
-        stagingFolder = FunctionUtils.getTempStagingFolder();
+        stagingFolder = Optional.ofNullable(functionDeployConfiguration.getModule())
+                .map(m -> FunctionUtils.getIncrementalStagingFolder(m, "deploy"))
+                .orElseGet(FunctionUtils::getTempStagingFolder);
         prepareStagingFolder(stagingFolder, operation);
         // deploy function to Azure
         deployFunctionApp(target, stagingFolder, messenger);
@@ -144,7 +144,9 @@ public class FunctionRunState extends AzureRunProfileState<Boolean> {
         // Prepare staging Folder
         OperationContext.current().setMessager(getProcessHandlerMessenger());
         validateFunctionRuntime();
-        stagingFolder = FunctionUtils.getTempStagingFolder();
+        stagingFolder = Optional.ofNullable(functionRunConfiguration.getModule())
+                .map(m -> FunctionUtils.getIncrementalStagingFolder(m, "run"))
+                .orElseGet(FunctionUtils::getTempStagingFolder);
         addProcessTerminatedListener(processHandler);
         prepareStagingFolder(stagingFolder, processHandler, operation);
         // Run Function Host
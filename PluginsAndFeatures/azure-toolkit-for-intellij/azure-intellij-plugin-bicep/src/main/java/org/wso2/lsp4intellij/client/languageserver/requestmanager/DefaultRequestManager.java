@@ -88,9 +88,12 @@ import org.eclipse.lsp4j.services.WorkspaceService;
 import org.wso2.lsp4intellij.client.DefaultLanguageClient;
 import org.wso2.lsp4intellij.client.languageserver.ServerStatus;
 import org.wso2.lsp4intellij.client.languageserver.wrapper.LanguageServerWrapper;
+import org.wso2.lsp4intellij.editor.EditorEventManagerBase;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -107,6 +110,7 @@ public class DefaultRequestManager implements RequestManager {
     private final TextDocumentSyncOptions textDocumentOptions;
     private final WorkspaceService workspaceService;
     private final TextDocumentService textDocumentService;
+    private final RequestScheduler scheduler;
 
     public DefaultRequestManager(LanguageServerWrapper wrapper, LanguageServer server, LanguageClient client,
                                  ServerCapabilities serverCapabilities) {
@@ -121,6 +125,7 @@ public class DefaultRequestManager implements RequestManager {
                 .map(either -> either.getRight()).orElse(null);
         workspaceService = server.getWorkspaceService();
         textDocumentService = server.getTextDocumentService();
+        scheduler = new RequestScheduler(DefaultRequestManager::getDocumentVersion);
     }
 
     public LanguageServerWrapper getWrapper() {
@@ -292,7 +297,8 @@ public class DefaultRequestManager implements RequestManager {
             try {
                 return Optional.ofNullable(serverCapabilities.getWorkspaceSymbolProvider())
                         .map(e -> BooleanUtils.isTrue(e.getLeft() )|| e.getRight() != null).orElse(false) ?
-                        workspaceService.symbol(params) : null;
+                        scheduler.schedule("workspace/symbol", "", params.getQuery(), false,
+                                () -> workspaceService.symbol(params)) : null;
             } catch (Exception e) {
                 crashed(e);
                 return null;
@@ -384,6 +390,7 @@ public class DefaultRequestManager implements RequestManager {
     public void didClose(DidCloseTextDocumentParams params) {
         if (checkStatus()) {
             try {
+                scheduler.forget(params.getTextDocument().getUri());
                 if (Optional.ofNullable(textDocumentOptions).map(x -> x.getOpenClose()).orElse(false)) {
                     textDocumentService.didClose(params);
                 }
@@ -397,7 +404,10 @@ public class DefaultRequestManager implements RequestManager {
     public CompletableFuture<Either<List<CompletionItem>, CompletionList>> completion(CompletionParams params) {
         if (checkStatus()) {
             try {
-                return (serverCapabilities.getCompletionProvider() != null) ? textDocumentService.completion(params) : null;
+                return (serverCapabilities.getCompletionProvider() != null) ?
+                        scheduler.schedule("textDocument/completion", params.getTextDocument().getUri(),
+                                Arrays.asList(params.getPosition(), params.getContext()), true,
+                                () -> textDocumentService.completion(params)) : null;
             } catch (Exception e) {
                 crashed(e);
                 return null;
@@ -433,7 +443,8 @@ public class DefaultRequestManager implements RequestManager {
                 return
                     Optional.ofNullable(serverCapabilities.getHoverProvider())
                             .map(e -> BooleanUtils.isTrue(e.getLeft() )|| e.getRight() != null).orElse(false) ?
-                        textDocumentService.hover(params) : null;
+                        scheduler.schedule("textDocument/hover", params.getTextDocument().getUri(), params.getPosition(), true,
+                                () -> textDocumentService.hover(params)) : null;
                
             } catch (Exception e) {
                 crashed(e);
@@ -452,7 +463,10 @@ public class DefaultRequestManager implements RequestManager {
     public CompletableFuture<SignatureHelp> signatureHelp(SignatureHelpParams params) {
         if (checkStatus()) {
             try {
-                return (serverCapabilities.getSignatureHelpProvider() != null) ? textDocumentService.signatureHelp(params) : null;
+                return (serverCapabilities.getSignatureHelpProvider() != null) ?
+                        scheduler.schedule("textDocument/signatureHelp", params.getTextDocument().getUri(),
+                                Arrays.asList(params.getPosition(), params.getContext()), false,
+                                () -> textDocumentService.signatureHelp(params)) : null;
             } catch (Exception e) {
                 crashed(e);
                 return null;
@@ -467,7 +481,9 @@ public class DefaultRequestManager implements RequestManager {
             try {
                 return Optional.ofNullable(serverCapabilities.getReferencesProvider())
                         .map(e -> BooleanUtils.isTrue(e.getLeft() )|| e.getRight() != null).orElse(false) ?
-                        textDocumentService.references(params) : null;
+                        scheduler.schedule("textDocument/references", params.getTextDocument().getUri(),
+                                Arrays.asList(params.getPosition(), params.getContext()), false,
+                                () -> textDocumentService.references(params)) : null;
             } catch (Exception e) {
                 crashed(e);
                 return null;
@@ -565,7 +581,8 @@ public class DefaultRequestManager implements RequestManager {
             try {
                 return Optional.ofNullable(serverCapabilities.getDefinitionProvider())
                         .map(e -> BooleanUtils.isTrue(e.getLeft() )|| e.getRight() != null).orElse(false) ?
-                        textDocumentService.definition(params) : null;
+                        scheduler.schedule("textDocument/definition", params.getTextDocument().getUri(), params.getPosition(), false,
+                                () -> textDocumentService.definition(params)) : null;
             } catch (Exception e) {
                 crashed(e);
                 return null;
@@ -689,6 +706,11 @@ public class DefaultRequestManager implements RequestManager {
         return wrapper.getStatus() == ServerStatus.INITIALIZED;
     }
 
+    private static int getDocumentVersion(String uri) {
+        return Optional.ofNullable(EditorEventManagerBase.managersForUri(uri)).stream().flatMap(Set::stream).findFirst()
+                .map(manager -> manager.documentEventManager.getDocumentVersion()).orElse(-1);
+    }
+
     private void crashed(Exception e) {
         LOG.warn(e);
         wrapper.crashed(e);
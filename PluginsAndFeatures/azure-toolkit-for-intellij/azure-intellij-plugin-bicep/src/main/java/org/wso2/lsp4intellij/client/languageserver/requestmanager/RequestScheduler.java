@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package org.wso2.lsp4intellij.client.languageserver.requestmanager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Schedules the requests to the language server which only the latest one of a method and document is interesting,
+ * e.g. completion and hover while typing or moving the mouse:
+ * <ul>
+ *     <li>a request supersedes the pending one of the same method and document, which is cancelled, and lsp4j notifies
+ *     the server by {@code $/cancelRequest}</li>
+ *     <li>a request identical to the pending one, i.e. same key and document version, shares its result</li>
+ *     <li>results of the cacheable methods are kept until the document changes</li>
+ * </ul>
+ * Callers get their own future of the result, cancelling it only cancels the request if no other caller shares it.
+ */
+public class RequestScheduler {
+    private static final int MAX_CACHED_RESULTS = 32;
+
+    private final ToIntFunction<String> versionOf;
+    // pending requests keyed by the method and the document uri
+    private final Map<String, PendingRequest<?>> pendingRequests = new HashMap<>();
+    // results of the latest version of the documents keyed by the uri
+    private final Map<String, VersionedResults> results = new HashMap<>();
+
+    /**
+     * @param versionOf The current version of the document of a uri, -1 if unknown
+     */
+    public RequestScheduler(ToIntFunction<String> versionOf) {
+        this.versionOf = versionOf;
+    }
+
+    /**
+     * Sends the request unless it's pending or cached.
+     *
+     * @param method    The LSP method
+     * @param uri       The uri of the document, or empty for workspace requests
+     * @param key       The parameters identifying the request besides the document, e.g. the position
+     * @param cacheable Whether the result can be reused until the document changes
+     * @param sender    Sends the request
+     * @return The future of the result, or null if the request is not sent
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> CompletableFuture<T> schedule(String method, String uri, Object key, boolean cacheable,
+                                                          Supplier<CompletableFuture<T>> sender) {
+        final int version = versionOf.applyAsInt(uri);
+        final String slot = method + "|" + uri;
+        final PendingRequest<?> pending = pendingRequests.get(slot);
+        if (pending != null && !pending.source.isDone()) {
+            if (pending.version == version && Objects.equals(pending.key, key)) {
+                return ((PendingRequest<T>) pending).share();
+            }
+            pending.source.cancel(true);
+        }
+        final List<Object> resultKey = List.of(method, key);
+        final VersionedResults cached = results.get(uri);
+        if (cacheable && cached != null && cached.version == version && cached.results.containsKey(resultKey)) {
+            return CompletableFuture.completedFuture((T) cached.results.get(resultKey));
+        }
+        final CompletableFuture<T> source = sender.get();
+        if (source == null) {
+            return null;
+        }
+        final PendingRequest<T> request = new PendingRequest<>(key, version, source);
+        pendingRequests.put(slot, request);
+        final CompletableFuture<T> result = request.share();
+        source.whenComplete((value, error) -> completed(slot, uri, resultKey, request, cacheable && error == null, value));
+        return result;
+    }
+
+    /**
+     * Drops the cached results of the document, e.g. when it's closed.
+     */
+    public synchronized void forget(String uri) {
+        results.remove(uri);
+    }
+
+    private synchronized void completed(String slot, String uri, List<Object> resultKey, PendingRequest<?> request,
+                                        boolean cache, Object value) {
+        pendingRequests.remove(slot, request);
+        if (!cache || request.version != versionOf.applyAsInt(uri)) {
+            return;
+        }
+        VersionedResults cached = results.get(uri);
+        if (cached == null || cached.version != request.version) {
+            cached = new VersionedResults(request.version);
+            results.put(uri, cached);
+        }
+        cached.results.put(resultKey, value);
+    }
+
+    private static class PendingRequest<T> {
+        private final Object key;
+        private final int version;
+        private final CompletableFuture<T> source;
+        private final AtomicInteger consumers = new AtomicInteger();
+
+        PendingRequest(Object key, int version, CompletableFuture<T> source) {
+            this.key = key;
+            this.version = version;
+            this.source = source;
+        }
+
+        CompletableFuture<T> share() {
+            consumers.incrementAndGet();
+            final CompletableFuture<T> result = source.thenApply(Function.identity());
+            result.whenComplete((value, error) -> {
+                // cancelled or timed out by the caller before the server responded
+                if (!source.isDone() && consumers.decrementAndGet() == 0) {
+                    source.cancel(true);
+                }
+            });
+            return result;
+        }
+    }
+
+    private static class VersionedResults {
+        private final int version;
+        private final Map<Object, Object> results = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > MAX_CACHED_RESULTS;
+            }
+        };
+
+        VersionedResults(int version) {
+            this.version = version;
+        }
+    }
+}
@@ -80,6 +80,7 @@ import org.wso2.lsp4intellij.client.languageserver.requestmanager.DefaultRequest
 import org.wso2.lsp4intellij.client.languageserver.requestmanager.RequestManager;
 import org.wso2.lsp4intellij.client.languageserver.serverdefinition.LanguageServerDefinition;
 import org.wso2.lsp4intellij.editor.DocumentEventManager;
+import org.wso2.lsp4intellij.editor.DocumentSyncMetrics;
 import org.wso2.lsp4intellij.editor.EditorEventManager;
 import org.wso2.lsp4intellij.editor.EditorEventManagerBase;
 import org.wso2.lsp4intellij.extensions.LSPExtensionManager;
@@ -153,6 +154,7 @@ public class LanguageServerWrapper {
     private volatile boolean alreadyShownTimeout = false;
     private volatile boolean alreadyShownCrash = false;
     private volatile ServerStatus status = STOPPED;
+    private final DocumentSyncMetrics documentSyncMetrics = new DocumentSyncMetrics();
     private static final Map<Pair<String, String>, LanguageServerWrapper> uriToLanguageServerWrapper = new ConcurrentHashMap<>();
     private static final Map<Project, LanguageServerWrapper> projectToLanguageServerWrapper = new ConcurrentHashMap<>();
     private static final Logger LOG = Logger.getInstance(LanguageServerWrapper.class);
@@ -259,6 +261,13 @@ public class LanguageServerWrapper {
         getWidget().notifyResult(timeouts, success);
     }
 
+    /**
+     * @return The counters of the document changes sent to the server
+     */
+    public DocumentSyncMetrics getDocumentSyncMetrics() {
+        return documentSyncMetrics;
+    }
+
     public void notifySuccess(Timeouts timeouts) {
         notifyResult(timeouts, true);
     }
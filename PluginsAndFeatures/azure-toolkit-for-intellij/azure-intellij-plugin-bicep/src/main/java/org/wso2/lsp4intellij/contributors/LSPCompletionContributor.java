@@ -21,11 +21,9 @@ import com.intellij.codeInsight.completion.CompletionParameters;
 import com.intellij.codeInsight.completion.CompletionProvider;
 import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.codeInsight.completion.PlainPrefixMatcher;
-import com.intellij.openapi.application.ex.ApplicationUtil;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.progress.ProcessCanceledException;
-import com.intellij.openapi.progress.ProgressIndicatorProvider;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.util.PsiEditorUtil;
 import com.intellij.util.ProcessingContext;
@@ -63,17 +61,15 @@ class LSPCompletionContributor extends CompletionContributor {
             @Override
             protected void addCompletions(@NotNull CompletionParameters parameters, @NotNull ProcessingContext context, @NotNull CompletionResultSet result) {
                 try {
-                    ApplicationUtil.runWithCheckCanceled(() -> {
-                        Editor editor = parameters.getEditor();
-                        int offset = parameters.getOffset();
-                        Position serverPos = DocumentUtils.offsetToLSPPos(editor, offset);
+                    Editor editor = parameters.getEditor();
+                    int offset = parameters.getOffset();
+                    Position serverPos = DocumentUtils.offsetToLSPPos(editor, offset);
 
-                        EditorEventManager manager = EditorEventManagerBase.forEditor(editor);
-                        if (manager != null) {
-                            result.addAllElements(manager.completion(serverPos));
-                        }
-                        return null;
-                    }, ProgressIndicatorProvider.getGlobalProgressIndicator());
+                    EditorEventManager manager = EditorEventManagerBase.forEditor(editor);
+                    if (manager != null) {
+                        // the suggestions are shown as they are created, waiting is cancelled by typing
+                        manager.completion(serverPos, result::addElement);
+                    }
                 } catch (ProcessCanceledException ignored) {
                     // ProcessCanceledException can be ignored.
                 } catch (Exception e) {
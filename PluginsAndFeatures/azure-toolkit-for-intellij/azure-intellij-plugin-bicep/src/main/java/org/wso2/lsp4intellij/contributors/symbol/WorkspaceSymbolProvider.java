@@ -1,5 +1,6 @@
 /*
  * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ * Modifications copyright (c) Microsoft Corporation.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,9 +22,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -39,6 +40,7 @@ import org.wso2.lsp4intellij.client.languageserver.wrapper.LanguageServerWrapper
 import org.wso2.lsp4intellij.contributors.icon.LSPIconProvider;
 import org.wso2.lsp4intellij.contributors.label.LSPLabelProvider;
 import org.wso2.lsp4intellij.requests.Timeouts;
+import org.wso2.lsp4intellij.utils.ApplicationUtils;
 import org.wso2.lsp4intellij.utils.FileUtils;
 import org.wso2.lsp4intellij.utils.GUIUtils;
 
@@ -50,6 +52,7 @@ import org.wso2.lsp4intellij.utils.GUIUtils;
 public class WorkspaceSymbolProvider {
 
   private static final Logger LOG = Logger.getInstance(WorkspaceSymbolProvider.class);
+  private static final long SYMBOLS_TIMEOUT_MILLIS = 20000;
 
   public List<LSPNavigationItem> workspaceSymbols(String name, Project project) {
     final Set<LanguageServerWrapper> serverWrappers = IntellijLanguageClient
@@ -111,14 +114,17 @@ public class WorkspaceSymbolProvider {
     }
 
     try {
-      Either<List<? extends SymbolInformation>, List<? extends WorkspaceSymbol>> symbolInformations = request
-          .get(20000, TimeUnit.MILLISECONDS);
+      // cancelled with the popup or by the next query typed
+      Either<List<? extends SymbolInformation>, List<? extends WorkspaceSymbol>> symbolInformations =
+          ApplicationUtils.waitFor(request, SYMBOLS_TIMEOUT_MILLIS);
       wrapper.notifySuccess(Timeouts.SYMBOLS);
       if(symbolInformations.isLeft()) {
         return symbolInformations.getLeft().stream().map(si -> new LSPSymbolResult(si, wrapper.getServerDefinition()));
       } else if (symbolInformations.isRight()) {
         return symbolInformations.getRight().stream().map(si -> new LSPSymbolResult(si, wrapper.getServerDefinition()));
       }
+    } catch (CancellationException e) {
+      // superseded by a newer query
     } catch (TimeoutException e) {
       LOG.warn(e);
       wrapper.notifyFailure(Timeouts.SYMBOLS);
@@ -1,5 +1,6 @@
 /*
  * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ * Modifications copyright (c) Microsoft Corporation.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +23,7 @@ import com.intellij.openapi.editor.event.DocumentEvent;
 import com.intellij.openapi.editor.event.DocumentListener;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidCloseTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
@@ -32,17 +34,19 @@ import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TextDocumentItem;
 import org.eclipse.lsp4j.TextDocumentSyncKind;
 import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
-import org.wso2.lsp4intellij.client.languageserver.requestmanager.RequestManager;
 import org.wso2.lsp4intellij.client.languageserver.wrapper.LanguageServerWrapper;
 import org.wso2.lsp4intellij.utils.ApplicationUtils;
 import org.wso2.lsp4intellij.utils.DocumentUtils;
 import org.wso2.lsp4intellij.utils.FileUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class DocumentEventManager {
     private final Document document;
@@ -50,7 +54,18 @@ public class DocumentEventManager {
     private final TextDocumentSyncKind syncKind;
     private final LanguageServerWrapper wrapper;
     private final TextDocumentIdentifier identifier;
+    private static final long SYNC_WINDOW_MILLIS = 50;
+    // guards the version and the queued changes, which are updated by the document listener in write actions
+    private final Object pendingLock = new Object();
+    // keeps the queued changes sent in order, only one thread sends the changes of the document at a time
+    private final Object sendLock = new Object();
+    private final List<TextDocumentContentChangeEvent> pendingChanges = new ArrayList<>();
+    private boolean pendingFull = false;
+    private CharSequence pendingText;
+    private int pendingEvents = 0;
+    private long pendingSince;
     private int version = -1;
+    private volatile boolean opened = false;
     protected Logger LOG = Logger.getInstance(EditorEventManager.class);
     private static final Map<String, DocumentEventManager> uriToDocumentEventManager = new HashMap<>();
 
@@ -89,62 +104,169 @@ public class DocumentEventManager {
     }
 
     public int getDocumentVersion() {
-        return this.version;
+        synchronized (pendingLock) {
+            return this.version;
+        }
     }
 
+    /**
+     * Queues the change of the document, the changes queued within {@link #SYNC_WINDOW_MILLIS} are sent in one
+     * didChange notification in the order of their versions. Adjacent incremental edits, e.g. typing, are merged into
+     * one content change, and the full text is only read once for the whole window.
+     */
     public void documentChanged(DocumentEvent event) {
-
-        DidChangeTextDocumentParams changesParams = new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(),
-                Collections.singletonList(new TextDocumentContentChangeEvent()));
-        changesParams.getTextDocument().setUri(identifier.getUri());
-
-
-        changesParams.getTextDocument().setVersion(++version);
-
+        TextDocumentContentChangeEvent change = null;
         if (syncKind == TextDocumentSyncKind.Incremental) {
-            TextDocumentContentChangeEvent changeEvent = changesParams.getContentChanges().get(0);
-            CharSequence newText = event.getNewFragment();
-            int offset = event.getOffset();
-            int newTextLength = event.getNewLength();
-            Set<EditorEventManager> managersForUri = EditorEventManagerBase.managersForUri(FileUtils.documentToUri(document));
-            if (managersForUri == null || managersForUri.isEmpty()) {
-                LOG.warn("no manager associated with uri");
-                return;
+            change = toContentChange(event);
+        } else if (syncKind != TextDocumentSyncKind.Full) {
+            return;
+        }
+        final boolean schedule;
+        synchronized (pendingLock) {
+            ++version;
+            schedule = pendingEvents == 0;
+            if (schedule) {
+                pendingSince = System.currentTimeMillis();
             }
-            EditorEventManager editorEventManager = EditorEventManagerBase.managersForUri(FileUtils.documentToUri(document)).iterator().next();
-            if (editorEventManager == null) {
-                LOG.warn("no editor associated with document");
-                return;
+            pendingEvents++;
+            if (change == null || pendingFull) {
+                // full sync, or the incremental change can't be computed, send the text of the document instead.
+                // once the window falls back to the full text, it's refreshed by every following change as well.
+                // the immutable text is a snapshot of this version without copying it
+                pendingFull = true;
+                pendingText = document.getImmutableCharSequence();
+                pendingChanges.clear();
+            } else if (!merge(pendingChanges, change)) {
+                pendingChanges.add(change);
             }
-            Editor editor = editorEventManager.editor;
-            Position lspPosition = DocumentUtils.offsetToLSPPos(editor, offset);
-            if (lspPosition == null) {
+        }
+        wrapper.getDocumentSyncMetrics().queued();
+        if (schedule) {
+            AppExecutorUtil.getAppScheduledExecutorService()
+                    .schedule(() -> ApplicationUtils.pool(this::flush), SYNC_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the queued changes of the document now, e.g. before requests depending on the latest content of the
+     * document. Changes are taken and sent under the same lock, so that they reach the server in version order
+     * whichever thread flushes them.
+     */
+    public void flush() {
+        synchronized (sendLock) {
+            if (!opened) {
+                // the changes are sent with the text of the document on opening
                 return;
             }
-            int startLine = lspPosition.getLine();
-            int startColumn = lspPosition.getCharacter();
-            CharSequence oldText = event.getOldFragment();
-
-            //if text was deleted/replaced, calculate the end position of inserted/deleted text
-            int endLine, endColumn;
-            if (oldText.length() > 0) {
-                endLine = startLine + StringUtil.countNewLines(oldText);
-                String content = oldText.toString();
-                String[] oldLines = content.split("\n");
-                int oldTextLength = oldLines.length == 0 ? 0 : oldLines[oldLines.length - 1].length();
-                endColumn = content.endsWith("\n") ? 0 : oldLines.length == 1 ? startColumn + oldTextLength : oldTextLength;
-            } else { //if insert or no text change, the end position is the same
-                endLine = startLine;
-                endColumn = startColumn;
+            final Batch batch;
+            synchronized (pendingLock) {
+                if (pendingEvents == 0) {
+                    return;
+                }
+                batch = takeBatch();
             }
-            Range range = new Range(new Position(startLine, startColumn), new Position(endLine, endColumn));
-            changeEvent.setRange(range);
-            changeEvent.setRangeLength(newTextLength);
-            changeEvent.setText(newText.toString());
-        } else if (syncKind == TextDocumentSyncKind.Full) {
-            changesParams.getContentChanges().get(0).setText(document.getText());
+            final DocumentSyncMetrics metrics = wrapper.getDocumentSyncMetrics();
+            metrics.dequeued(batch.events());
+            final TextDocumentContentChangeEvent first = batch.params().getContentChanges().get(0);
+            if (first.getRange() == null) {
+                // the text is copied once for the whole window
+                first.setText(batch.text().toString());
+            }
+            wrapper.getRequestManager().didChange(batch.params());
+            metrics.sent(batch.params().getContentChanges().size(), System.currentTimeMillis() - batch.since());
+        }
+    }
+
+    private Batch takeBatch() {
+        final List<TextDocumentContentChangeEvent> changes = pendingFull ?
+                Collections.singletonList(new TextDocumentContentChangeEvent()) : new ArrayList<>(pendingChanges);
+        final Batch batch = new Batch(new DidChangeTextDocumentParams(new VersionedTextDocumentIdentifier(identifier.getUri(), version), changes),
+                pendingText, pendingEvents, pendingSince);
+        clearPending();
+        return batch;
+    }
+
+    private void clearPending() {
+        pendingChanges.clear();
+        pendingFull = false;
+        pendingText = null;
+        pendingEvents = 0;
+    }
+
+    private TextDocumentContentChangeEvent toContentChange(DocumentEvent event) {
+        Set<EditorEventManager> managersForUri = EditorEventManagerBase.managersForUri(FileUtils.documentToUri(document));
+        if (managersForUri == null || managersForUri.isEmpty()) {
+            LOG.warn("no manager associated with uri");
+            return null;
+        }
+        EditorEventManager editorEventManager = managersForUri.iterator().next();
+        if (editorEventManager == null) {
+            LOG.warn("no editor associated with document");
+            return null;
+        }
+        Editor editor = editorEventManager.editor;
+        Position lspPosition = DocumentUtils.offsetToLSPPos(editor, event.getOffset());
+        if (lspPosition == null) {
+            return null;
+        }
+        int startLine = lspPosition.getLine();
+        int startColumn = lspPosition.getCharacter();
+        CharSequence oldText = event.getOldFragment();
+
+        //if text was deleted/replaced, calculate the end position of inserted/deleted text
+        int endLine, endColumn;
+        if (oldText.length() > 0) {
+            endLine = startLine + StringUtil.countNewLines(oldText);
+            String content = oldText.toString();
+            String[] oldLines = content.split("\n");
+            int oldTextLength = oldLines.length == 0 ? 0 : oldLines[oldLines.length - 1].length();
+            endColumn = content.endsWith("\n") ? 0 : oldLines.length == 1 ? startColumn + oldTextLength : oldTextLength;
+        } else { //if insert or no text change, the end position is the same
+            endLine = startLine;
+            endColumn = startColumn;
+        }
+        TextDocumentContentChangeEvent changeEvent = new TextDocumentContentChangeEvent();
+        changeEvent.setRange(new Range(new Position(startLine, startColumn), new Position(endLine, endColumn)));
+        changeEvent.setRangeLength(oldText.length());
+        changeEvent.setText(event.getNewFragment().toString());
+        return changeEvent;
+    }
+
+    /**
+     * Merges the change into the last queued one if it continues it: an insertion right after the text of the last
+     * change (typing), or a deletion of the tail of the text of the last change on the same line (backspace).
+     *
+     * @return True if the change is merged
+     */
+    private static boolean merge(List<TextDocumentContentChangeEvent> changes, TextDocumentContentChangeEvent change) {
+        if (changes.isEmpty()) {
+            return false;
         }
-        ApplicationUtils.pool(() -> wrapper.getRequestManager().didChange(changesParams));
+        final TextDocumentContentChangeEvent last = changes.get(changes.size() - 1);
+        final Position lastStart = last.getRange().getStart();
+        final String lastText = last.getText();
+        final Position lastTextEnd = endOf(lastStart, lastText);
+        final Position start = change.getRange().getStart();
+        final Position end = change.getRange().getEnd();
+        if (start.equals(end) && start.equals(lastTextEnd)) {
+            last.setText(lastText + change.getText());
+            return true;
+        }
+        if (change.getText().isEmpty() && end.equals(lastTextEnd) && start.getLine() == lastStart.getLine()
+                && end.getLine() == lastStart.getLine() && lastText.indexOf('\n') < 0
+                && start.getCharacter() >= lastStart.getCharacter()) {
+            last.setText(lastText.substring(0, start.getCharacter() - lastStart.getCharacter()));
+            return true;
+        }
+        return false;
+    }
+
+    private static Position endOf(Position start, String text) {
+        final int newLines = StringUtil.countNewLines(text);
+        if (newLines == 0) {
+            return new Position(start.getLine(), start.getCharacter() + text.length());
+        }
+        return new Position(start.getLine() + newLines, text.length() - text.lastIndexOf('\n') - 1);
     }
 
     public void documentOpened() {
@@ -153,10 +275,19 @@ public class DocumentEventManager {
         } else {
             openDocuments.add(document);
             final String extension = FileDocumentManager.getInstance().getFile(document).getExtension();
-            wrapper.getRequestManager().didOpen(new DidOpenTextDocumentParams(new TextDocumentItem(identifier.getUri(),
-                    wrapper.serverDefinition.languageIdFor(extension),
-                    ++version,
-                    document.getText())));
+            // the opened text contains the queued changes, the changes after it are sent once it's opened
+            final TextDocumentItem item = ApplicationUtils.computableReadAction(() -> {
+                synchronized (pendingLock) {
+                    wrapper.getDocumentSyncMetrics().dequeued(pendingEvents);
+                    clearPending();
+                    return new TextDocumentItem(identifier.getUri(), wrapper.serverDefinition.languageIdFor(extension),
+                            ++version, document.getText());
+                }
+            });
+            synchronized (sendLock) {
+                wrapper.getRequestManager().didOpen(new DidOpenTextDocumentParams(item));
+                opened = true;
+            }
         }
     }
 
@@ -167,7 +298,14 @@ public class DocumentEventManager {
             LOG.warn("trying to close document which is still open in another editor!");
         } else {
             openDocuments.remove(document);
-            wrapper.getRequestManager().didClose(new DidCloseTextDocumentParams(identifier));
+            synchronized (sendLock) {
+                flush();
+                opened = false;
+                wrapper.getRequestManager().didClose(new DidCloseTextDocumentParams(identifier));
+            }
         }
     }
+
+    private record Batch(DidChangeTextDocumentParams params, CharSequence text, int events, long since) {
+    }
 }
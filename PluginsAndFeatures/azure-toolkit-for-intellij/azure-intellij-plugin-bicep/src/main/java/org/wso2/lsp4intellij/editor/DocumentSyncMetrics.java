@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+package org.wso2.lsp4intellij.editor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the didChange notifications sent by the {@link DocumentEventManager}s of a language server, shown by the
+ * status bar widget.
+ */
+public class DocumentSyncMetrics {
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    void queued() {
+        events.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), Math::max);
+    }
+
+    void dequeued(int count) {
+        queueDepth.addAndGet(-count);
+    }
+
+    void sent(int changeCount, long latencyMillis) {
+        notifications.incrementAndGet();
+        changes.addAndGet(changeCount);
+        totalLatencyMillis.addAndGet(latencyMillis);
+        maxLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+    }
+
+    /**
+     * @return The number of document events waiting to be sent
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @return The number of document events received from the editors
+     */
+    public long getEvents() {
+        return events.get();
+    }
+
+    /**
+     * @return The number of didChange notifications sent to the server
+     */
+    public long getNotifications() {
+        return notifications.get();
+    }
+
+    /**
+     * @return The number of content changes sent to the server, less than the events if they are merged
+     */
+    public long getChanges() {
+        return changes.get();
+    }
+
+    /**
+     * @return The average time in milliseconds from the first event of a notification to it being sent
+     */
+    public long getAverageLatencyMillis() {
+        final long count = notifications.get();
+        return count == 0 ? 0 : totalLatencyMillis.get() / count;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+}
@@ -48,6 +48,7 @@ import com.intellij.openapi.editor.markup.HighlighterTargetArea;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
@@ -121,10 +122,13 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -144,6 +148,7 @@ import static org.wso2.lsp4intellij.utils.ApplicationUtils.computableReadAction;
 import static org.wso2.lsp4intellij.utils.ApplicationUtils.computableWriteAction;
 import static org.wso2.lsp4intellij.utils.ApplicationUtils.invokeLater;
 import static org.wso2.lsp4intellij.utils.ApplicationUtils.pool;
+import static org.wso2.lsp4intellij.utils.ApplicationUtils.waitFor;
 import static org.wso2.lsp4intellij.utils.ApplicationUtils.writeAction;
 import static org.wso2.lsp4intellij.utils.DocumentUtils.toEither;
 import static org.wso2.lsp4intellij.utils.GUIUtils.createAndShowEditorHint;
@@ -369,6 +374,7 @@ public class EditorEventManager {
      */
     private Location requestDefinition(Position position) {
         DefinitionParams params = new DefinitionParams(identifier, position);
+        documentEventManager.flush();
         CompletableFuture<Either<List<? extends Location>, List<? extends LocationLink>>> request =
                 wrapper.getRequestManager().definition(params);
 
@@ -379,7 +385,7 @@ public class EditorEventManager {
             // for now we only get Location, so we only check the left, but in future we might need to support
             // right as well which will return LocationLink
             Either<List<? extends Location>, List<? extends LocationLink>> definition =
-                    request.get(getTimeout(DEFINITION), TimeUnit.MILLISECONDS);
+                    waitFor(request, getTimeout(DEFINITION));
             wrapper.notifySuccess(Timeouts.DEFINITION);
             if (definition.isLeft() && !definition.getLeft().isEmpty()) {
                 return definition.getLeft().get(0);
@@ -387,6 +393,9 @@ public class EditorEventManager {
                 final LocationLink locationLink = definition.getRight().get(0);
                 return new Location(locationLink.getTargetUri(), locationLink.getTargetRange());
             }
+        } catch (CancellationException e) {
+            // superseded by a newer request
+            return null;
         } catch (TimeoutException e) {
             LOG.warn(e);
             wrapper.notifyFailure(Timeouts.DEFINITION);
@@ -416,10 +425,11 @@ public class EditorEventManager {
         ReferenceParams params = new ReferenceParams(textDocumentIdentifier, lspPos, new ReferenceContext(getOriginalElement));
         params.setPosition(lspPos);
         params.setTextDocument(identifier);
+        documentEventManager.flush();
         CompletableFuture<List<? extends Location>> request = wrapper.getRequestManager().references(params);
         if (request != null) {
             try {
-                List<? extends Location> res = request.get(getTimeout(REFERENCES), TimeUnit.MILLISECONDS);
+                List<? extends Location> res = waitFor(request, getTimeout(REFERENCES));
                 wrapper.notifySuccess(Timeouts.REFERENCES);
                 if (res != null && res.size() > 0) {
                     List<VirtualFile> openedEditors = new ArrayList<>();
@@ -455,6 +465,9 @@ public class EditorEventManager {
                 } else {
                     return new Pair<>(null, null);
                 }
+            } catch (CancellationException e) {
+                // superseded by a newer request
+                return new Pair<>(null, null);
             } catch (TimeoutException e) {
                 LOG.warn(e);
                 wrapper.notifyFailure(Timeouts.REFERENCES);
@@ -508,58 +521,62 @@ public class EditorEventManager {
         Point point = editor.logicalPositionToXY(lPos);
         SignatureHelpParams params = new SignatureHelpParams(identifier, DocumentUtils.logicalToLSPPos(lPos, editor));
         pool(() -> {
+            documentEventManager.flush();
             CompletableFuture<SignatureHelp> future = wrapper.getRequestManager().signatureHelp(params);
             if (future == null) {
                 return;
             }
-            try {
-                SignatureHelp signatureResp = future.get(getTimeout(SIGNATURE), TimeUnit.MILLISECONDS);
-                wrapper.notifySuccess(Timeouts.SIGNATURE);
-                if (signatureResp == null) {
+            // wait for the response without blocking the pool, which keeps the document changes in order
+            future.orTimeout(getTimeout(SIGNATURE), TimeUnit.MILLISECONDS).whenComplete((signatureResp, error) -> {
+                if (error != null) {
+                    onRequestFailure(Timeouts.SIGNATURE, error);
                     return;
                 }
-                List<SignatureInformation> signatures = signatureResp.getSignatures();
-                if (signatures == null || signatures.isEmpty()) {
-                    return;
-                }
-                int activeSignatureIndex = signatureResp.getActiveSignature();
-                int activeParameterIndex = signatureResp.getActiveParameter();
-
-                String activeParameter = signatures.get(activeSignatureIndex).getParameters().size() > activeParameterIndex ?
-                        extractLabel(signatures.get(activeSignatureIndex), signatures.get(activeSignatureIndex).getParameters().get(activeParameterIndex).getLabel()) : "";
-                Either<String, MarkupContent> signatureDescription = signatures.get(activeSignatureIndex).getDocumentation();
-
-                StringBuilder builder = new StringBuilder();
-                builder.append("<html>");
-                if (signatureDescription == null) {
-                    builder.append("<b>").append(signatures.get(activeSignatureIndex).getLabel().
-                            replace(" " + activeParameter, String.format("<font color=\"orange\"> %s</font>",
-                                    activeParameter))).append("</b>");
-                } else if (signatureDescription.isLeft()) {
-                    // Todo - Add parameter Documentation
-                    String descriptionLeft = signatureDescription.getLeft().replace(System.lineSeparator(), "<br />");
-                    builder.append("<b>").append(signatures.get(activeSignatureIndex).getLabel()
-                            .replace(" " + activeParameter, String.format("<font color=\"orange\"> %s</font>",
-                                    activeParameter))).append("</b>");
-                    builder.append("<div>").append(descriptionLeft).append("</div>");
-                } else if (signatureDescription.isRight()) {
-                    // Todo - Add marked content parsing
-                    builder.append("<b>").append(signatures.get(activeSignatureIndex).getLabel()).append("</b>");
+                wrapper.notifySuccess(Timeouts.SIGNATURE);
+                try {
+                    showSignatureHelp(signatureResp, point);
+                } catch (Exception e) {
+                    LOG.warn("Internal error occurred when processing signature help");
                 }
+            });
+        });
+    }
 
-                builder.append("</html>");
-                invokeLater(() -> currentHint = createAndShowEditorHint(editor, builder.toString(), point, HintManager.UNDER, HintManager.HIDE_BY_OTHER_HINT));
+    private void showSignatureHelp(SignatureHelp signatureResp, Point point) {
+        if (signatureResp == null) {
+            return;
+        }
+        List<SignatureInformation> signatures = signatureResp.getSignatures();
+        if (signatures == null || signatures.isEmpty()) {
+            return;
+        }
+        int activeSignatureIndex = signatureResp.getActiveSignature();
+        int activeParameterIndex = signatureResp.getActiveParameter();
+
+        String activeParameter = signatures.get(activeSignatureIndex).getParameters().size() > activeParameterIndex ?
+                extractLabel(signatures.get(activeSignatureIndex), signatures.get(activeSignatureIndex).getParameters().get(activeParameterIndex).getLabel()) : "";
+        Either<String, MarkupContent> signatureDescription = signatures.get(activeSignatureIndex).getDocumentation();
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("<html>");
+        if (signatureDescription == null) {
+            builder.append("<b>").append(signatures.get(activeSignatureIndex).getLabel().
+                    replace(" " + activeParameter, String.format("<font color=\"orange\"> %s</font>",
+                            activeParameter))).append("</b>");
+        } else if (signatureDescription.isLeft()) {
+            // Todo - Add parameter Documentation
+            String descriptionLeft = signatureDescription.getLeft().replace(System.lineSeparator(), "<br />");
+            builder.append("<b>").append(signatures.get(activeSignatureIndex).getLabel()
+                    .replace(" " + activeParameter, String.format("<font color=\"orange\"> %s</font>",
+                            activeParameter))).append("</b>");
+            builder.append("<div>").append(descriptionLeft).append("</div>");
+        } else if (signatureDescription.isRight()) {
+            // Todo - Add marked content parsing
+            builder.append("<b>").append(signatures.get(activeSignatureIndex).getLabel()).append("</b>");
+        }
 
-            } catch (TimeoutException e) {
-                LOG.warn(e);
-                wrapper.notifyFailure(Timeouts.SIGNATURE);
-            } catch (JsonRpcException | ExecutionException | InterruptedException e) {
-                LOG.warn(e);
-                wrapper.crashed(e);
-            } catch (Exception e) {
-                LOG.warn("Internal error occurred when processing signature help");
-            }
-        });
+        builder.append("</html>");
+        invokeLater(() -> currentHint = createAndShowEditorHint(editor, builder.toString(), point, HintManager.UNDER, HintManager.HIDE_BY_OTHER_HINT));
     }
 
     private String extractLabel(SignatureInformation signatureInformation, Either<String, Tuple.Two<Integer, Integer>> label) {
@@ -587,6 +604,7 @@ public class EditorEventManager {
             options.setInsertSpaces(DocumentUtils.shouldUseSpaces(editor));
             params.setOptions(options);
 
+            documentEventManager.flush();
             CompletableFuture<List<? extends TextEdit>> request = wrapper.getRequestManager().formatting(params);
             if (request == null) {
                 return;
@@ -621,6 +639,7 @@ public class EditorEventManager {
             options.setInsertSpaces(DocumentUtils.shouldUseSpaces(editor));
             params.setOptions(options);
 
+            documentEventManager.flush();
             CompletableFuture<List<? extends TextEdit>> request = wrapper.getRequestManager().rangeFormatting(params);
             if (request == null) {
                 return;
@@ -654,6 +673,7 @@ public class EditorEventManager {
             }
             Position servPos = DocumentUtils.offsetToLSPPos(editor, offset);
             RenameParams params = new RenameParams(identifier, servPos, renameTo);
+            documentEventManager.flush();
             CompletableFuture<WorkspaceEdit> request = wrapper.getRequestManager().rename(params);
             if (request != null) {
                 request.thenAccept(res -> {
@@ -690,12 +710,17 @@ public class EditorEventManager {
      */
     private void requestAndShowDoc(LogicalPosition editorPos, Point point) {
         Position serverPos = computableReadAction(() -> DocumentUtils.logicalToLSPPos(editorPos, editor));
+        documentEventManager.flush();
         CompletableFuture<Hover> request = wrapper.getRequestManager().hover(new HoverParams(identifier, serverPos));
         if (request == null) {
             return;
         }
-        try {
-            Hover hover = request.get(getTimeout(HOVER), TimeUnit.MILLISECONDS);
+        // wait for the response without blocking the pool, which keeps the document changes in order
+        request.orTimeout(getTimeout(HOVER), TimeUnit.MILLISECONDS).whenComplete((hover, error) -> {
+            if (error != null) {
+                onRequestFailure(Timeouts.HOVER, error);
+                return;
+            }
             wrapper.notifySuccess(Timeouts.HOVER);
 
             if (hover == null) {
@@ -724,12 +749,22 @@ public class EditorEventManager {
                     }
                 });
             }
-        } catch (TimeoutException e) {
-            LOG.warn(e);
-            wrapper.notifyFailure(Timeouts.HOVER);
-        } catch (InterruptedException | JsonRpcException | ExecutionException e) {
-            LOG.warn(e);
-            wrapper.crashed(e);
+        });
+    }
+
+    /**
+     * Handles the failure of a request waited asynchronously, the requests superseded by newer ones are ignored.
+     */
+    private void onRequestFailure(Timeouts timeout, Throwable error) {
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return;
+        }
+        LOG.warn(cause);
+        if (cause instanceof TimeoutException) {
+            wrapper.notifyFailure(timeout);
+        } else {
+            wrapper.crashed(cause instanceof Exception ? (Exception) cause : new ExecutionException(cause));
         }
     }
 
@@ -740,43 +775,53 @@ public class EditorEventManager {
      * @return The suggestions
      */
     public Iterable<? extends LookupElement> completion(Position pos) {
-
         List<LookupElement> lookupItems = new ArrayList<>();
+        completion(pos, lookupItems::add);
+        return lookupItems;
+    }
+
+    /**
+     * Feeds the completion suggestions given a position to the consumer as they are created. Waiting for the server
+     * is cancelled with the current progress, e.g. by typing, which cancels the request on the server too.
+     *
+     * @param pos      The LSP position
+     * @param consumer The consumer of the suggestions
+     */
+    public void completion(Position pos, Consumer<? super LookupElement> consumer) {
+        documentEventManager.flush();
         CompletableFuture<Either<List<CompletionItem>, CompletionList>> request = wrapper.getRequestManager()
                 .completion(new CompletionParams(identifier, pos));
         if (request == null) {
-            return lookupItems;
+            return;
         }
 
         try {
-            Either<List<CompletionItem>, CompletionList> res = request.get(getTimeout(COMPLETION), TimeUnit.MILLISECONDS);
+            Either<List<CompletionItem>, CompletionList> res = waitFor(request, getTimeout(COMPLETION));
             wrapper.notifySuccess(Timeouts.COMPLETION);
             if (res == null) {
-                return lookupItems;
+                return;
             }
+            List<CompletionItem> items = Collections.emptyList();
             if (res.getLeft() != null) {
-                for (CompletionItem item : res.getLeft()) {
-                    LookupElement lookupElement = createLookupItem(item);
-                    if (lookupElement != null) {
-                        lookupItems.add(lookupElement);
-                    }
-                }
+                items = res.getLeft();
             } else if (res.getRight() != null) {
-                for (CompletionItem item : res.getRight().getItems()) {
-                    LookupElement lookupElement = createLookupItem(item);
-                    if (lookupElement != null) {
-                        lookupItems.add(lookupElement);
-                    }
+                items = res.getRight().getItems();
+            }
+            for (CompletionItem item : items) {
+                ProgressManager.checkCanceled();
+                LookupElement lookupElement = createLookupItem(item);
+                if (lookupElement != null) {
+                    consumer.accept(lookupElement);
                 }
             }
+        } catch (CancellationException e) {
+            // superseded by a newer completion
         } catch (TimeoutException | InterruptedException e) {
             LOG.warn(e);
             wrapper.notifyFailure(Timeouts.COMPLETION);
         } catch (JsonRpcException | ExecutionException e) {
             LOG.warn(e);
             wrapper.crashed(e);
-        } finally {
-            return lookupItems;
         }
     }
 
@@ -1235,6 +1280,7 @@ public class EditorEventManager {
         pool(() -> {
             if (!editor.isDisposed()) {
                 DidSaveTextDocumentParams params = new DidSaveTextDocumentParams(identifier, editor.getDocument().getText());
+                documentEventManager.flush();
                 wrapper.getRequestManager().didSave(params);
             }
         });
@@ -38,6 +38,7 @@ import org.jetbrains.annotations.Nullable;
 import org.wso2.lsp4intellij.client.languageserver.ServerStatus;
 import org.wso2.lsp4intellij.client.languageserver.wrapper.LanguageServerWrapper;
 import org.wso2.lsp4intellij.contributors.icon.LSPDefaultIconProvider;
+import org.wso2.lsp4intellij.editor.DocumentSyncMetrics;
 import org.wso2.lsp4intellij.requests.Timeouts;
 import org.wso2.lsp4intellij.utils.ApplicationUtils;
 import org.wso2.lsp4intellij.utils.GUIUtils;
@@ -153,6 +154,9 @@ public class LSPServerStatusWidget implements StatusBarWidget {
                     actions.add(new ShowConnectedFiles());
                 }
                 actions.add(new ShowTimeouts());
+                if (Objects.nonNull(wrapper)) {
+                    actions.add(new ShowDocumentSync());
+                }
                 String title = "Server Actions";
                 DataContext context = DataManager.getInstance().getDataContext(component);
                 DefaultActionGroup group = new DefaultActionGroup(actions);
@@ -221,6 +225,33 @@ public class LSPServerStatusWidget implements StatusBarWidget {
             }
         }
 
+        class ShowDocumentSync extends AnAction implements DumbAware {
+            ShowDocumentSync() {
+                super("Show &Document Sync", "Show the queue and latency of the document changes sent to the server", null);
+            }
+
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                final LanguageServerWrapper wrapper = LanguageServerWrapper.forProject(e.getProject());
+                if (wrapper == null) {
+                    return;
+                }
+                final DocumentSyncMetrics metrics = wrapper.getDocumentSyncMetrics();
+                final String message = "<html>" +
+                        "Queued changes => " + metrics.getQueueDepth() + " (max " + metrics.getMaxQueueDepth() + ")<br>" +
+                        "Document events => " + metrics.getEvents() + "<br>" +
+                        "Sent notifications => " + metrics.getNotifications() + " (" + metrics.getChanges() + " changes)<br>" +
+                        "Latency => " + metrics.getAverageLatencyMillis() + " ms average, " + metrics.getMaxLatencyMillis() + " ms max<br>" +
+                        "</html>";
+                Messages.showInfoMessage(message, "Document Sync");
+            }
+
+            @Override
+            public @NotNull ActionUpdateThread getActionUpdateThread() {
+                return ActionUpdateThread.BGT;
+            }
+        }
+
         class Restart extends AnAction implements DumbAware {
 
             Restart() {
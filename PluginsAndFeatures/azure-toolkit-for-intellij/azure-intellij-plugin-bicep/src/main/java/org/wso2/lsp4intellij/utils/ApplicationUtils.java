@@ -17,19 +17,25 @@
 package org.wso2.lsp4intellij.utils;
 
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.NoAccessDuringPsiEvents;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Condition;
 import org.wso2.lsp4intellij.IntellijLanguageClient;
 import org.wso2.lsp4intellij.requests.Timeouts;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class ApplicationUtils {
 
     private static ExecutorService EXECUTOR_SERVICE;
+    private static final long WAIT_INTERVAL_MILLIS = 50;
 
     static {
         // Single threaded executor is used to simulate a behavior of async sequencial execution.
@@ -77,6 +83,29 @@ public class ApplicationUtils {
         return ApplicationManager.getApplication().runWriteAction(computable);
     }
 
+    /**
+     * Waits for the result of a request, checking the cancellation of the current progress meanwhile, e.g. completion
+     * is cancelled by typing. The request is cancelled if the progress is cancelled or the timeout elapses.
+     */
+    static public <T> T waitFor(CompletableFuture<T> request, long timeoutMillis) throws TimeoutException, ExecutionException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            try {
+                ProgressManager.checkCanceled();
+                final long remaining = deadline - System.currentTimeMillis();
+                return request.get(Math.max(1, Math.min(WAIT_INTERVAL_MILLIS, remaining)), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    request.cancel(true);
+                    throw e;
+                }
+            } catch (ProcessCanceledException e) {
+                request.cancel(true);
+                throw e;
+            }
+        }
+    }
+
     static public void invokeAfterPsiEvents(Runnable runnable) {
         Runnable wrapper = () -> {
             if (NoAccessDuringPsiEvents.isInsideEventProcessing()) {
@@ -16,7 +16,6 @@ import com.microsoft.azure.toolkit.lib.containerapps.containerapp.ContainerApp;
 import com.microsoft.azure.toolkit.lib.containerapps.containerapp.ContainerAppDraft;
 import com.microsoft.azure.toolkit.lib.containerregistry.ContainerRegistry;
 import com.microsoft.azure.toolkit.lib.containerregistry.Repository;
-import com.microsoft.azure.toolkit.lib.containerregistry.Tag;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -49,8 +48,8 @@ public class ACRImageSourceForm implements AzureFormJPanel<ContainerAppDraft.Ima
     public ContainerAppDraft.ImageConfig getValue() {
         final ContainerRegistry registry = Objects.requireNonNull(this.selectorRegistry.getValue(), "'registry' is required.");
         final Repository repository = Objects.requireNonNull(this.selectorRepository.getValue(), "'repository' is required.");
-        final Tag tag = Objects.requireNonNull(this.selectorTag.getValue(), "'tag' is required.");
-        final String fullImageName = tag.getFullName();
+        final String tag = Objects.requireNonNull(this.selectorTag.getValue(), "'tag' is required.");
+        final String fullImageName = repository.getFullName() + ":" + tag;
         final ContainerAppDraft.ImageConfig config = new ContainerAppDraft.ImageConfig(fullImageName);
         config.setContainerRegistry(registry);
         return config;
@@ -63,7 +62,7 @@ public class ACRImageSourceForm implements AzureFormJPanel<ContainerAppDraft.Ima
         final String repositoryName = f.substring(f.indexOf("/") + 1, f.lastIndexOf(":"));
         this.selectorRegistry.setValue(registry);
         this.selectorRepository.setValue(r -> r.getName().equalsIgnoreCase(repositoryName));
-        this.selectorTag.setValue(t -> t.getName().equalsIgnoreCase(config.getTag()));
+        this.selectorTag.setValue(t -> t.equalsIgnoreCase(config.getTag()));
     }
 
     @Override
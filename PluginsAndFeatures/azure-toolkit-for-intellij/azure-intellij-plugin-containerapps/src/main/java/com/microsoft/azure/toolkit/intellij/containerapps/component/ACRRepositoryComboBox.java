@@ -55,16 +55,23 @@ public class ACRRepositoryComboBox extends AzureComboBox<Repository> {
     @Nonnull
     @Override
     protected List<? extends Repository> loadItems() {
-        if (Objects.nonNull(this.registry)) {
-            return this.registry.getRepositoryModule().list().stream()
+        final ContainerRegistry registry = this.registry;
+        if (Objects.nonNull(registry)) {
+            final List<Repository> repositories = registry.getRepositoryModule().list().stream()
                 .sorted(Comparator.comparing(Repository::getName)).toList();
+            // tags of the deleted repositories are not needed any more, see ACRRepositoryTagComboBox
+            ACRTagCache.getInstance().retain(registry, repositories);
+            return repositories;
         }
         return Collections.emptyList();
     }
 
     @Override
     protected void refreshItems() {
-        Optional.ofNullable(this.registry).ifPresent(s -> this.registry.getRepositoryModule().refresh());
+        Optional.ofNullable(this.registry).ifPresent(s -> {
+            s.getRepositoryModule().refresh();
+            ACRTagCache.getInstance().invalidate(s);
+        });
         super.refreshItems();
     }
 }
@@ -6,17 +6,52 @@
 package com.microsoft.azure.toolkit.intellij.containerapps.component;
 
 import com.microsoft.azure.toolkit.intellij.common.AzureComboBox;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import com.microsoft.azure.toolkit.lib.containerregistry.Repository;
-import com.microsoft.azure.toolkit.lib.containerregistry.Tag;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.swing.*;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import javax.swing.plaf.basic.ComboPopup;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class ACRRepositoryTagComboBox extends AzureComboBox<Tag> {
+/**
+ * Tags of a repository, the latest page is listed first and the following pages are loaded when the popup is scrolled
+ * to the bottom, see {@link ACRTagCache}.
+ */
+public class ACRRepositoryTagComboBox extends AzureComboBox<String> {
     private Repository repository;
+    private final AtomicBoolean loadingMore = new AtomicBoolean(false);
+    private final AdjustmentListener scrollListener = this::onPopupScrolled;
+
+    public ACRRepositoryTagComboBox() {
+        super();
+        this.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                Optional.ofNullable(getPopupScrollBar()).ifPresent(bar -> {
+                    bar.removeAdjustmentListener(scrollListener);
+                    bar.addAdjustmentListener(scrollListener);
+                });
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
+    }
 
     @Override
     public String getLabel() {
@@ -28,7 +63,7 @@ public class ACRRepositoryTagComboBox extends AzureComboBox<Tag> {
         if (Objects.isNull(item)) {
             return EMPTY_ITEM;
         }
-        return ((Tag) item).getName();
+        return (String) item;
     }
 
     public void setRepository(Repository repository) {
@@ -43,13 +78,63 @@ public class ACRRepositoryTagComboBox extends AzureComboBox<Tag> {
         this.reloadItems();
     }
 
+    @Nullable
+    @Override
+    protected String doGetDefaultValue() {
+        // select the first item, i.e. the latest tag
+        return null;
+    }
+
     @Nonnull
     @Override
-    protected List<Tag> loadItems() {
-        if (Objects.nonNull(this.repository)) {
-            return this.repository.getArtifactModule().list().stream()
-                .flatMap(i -> i.getTagModule().list().stream()).collect(Collectors.toList());
+    protected List<String> loadItems() {
+        final Repository repository = this.repository;
+        if (Objects.isNull(repository)) {
+            return Collections.emptyList();
+        }
+        final ACRTagCache cache = ACRTagCache.getInstance();
+        List<String> tags = cache.getTags(repository);
+        // keep loading if the tag to select is not in the latest pages, e.g. an old tag of an existing app
+        while (this.value instanceof ItemReference<?> reference && tags.stream().noneMatch(reference::is) && cache.hasMore(repository)) {
+            tags = cache.loadMore(repository);
+        }
+        return tags;
+    }
+
+    @Override
+    protected void refreshItems() {
+        Optional.ofNullable(this.repository).ifPresent(r -> ACRTagCache.getInstance().invalidate(r));
+        super.refreshItems();
+    }
+
+    private void onPopupScrolled(AdjustmentEvent e) {
+        final BoundedRangeModel model = e.getAdjustable() instanceof JScrollBar bar ? bar.getModel() : null;
+        final Repository repository = this.repository;
+        if (Objects.isNull(model) || Objects.isNull(repository) || model.getValue() + model.getExtent() < model.getMaximum()
+            || !ACRTagCache.getInstance().hasMore(repository) || !this.loadingMore.compareAndSet(false, true)) {
+            return;
+        }
+        AzureTaskManager.getInstance().runOnPooledThread(() -> {
+            try {
+                final List<String> tags = ACRTagCache.getInstance().loadMore(repository);
+                if (Objects.equals(repository, this.repository)) {
+                    this.setItems(tags);
+                }
+            } catch (final Throwable t) {
+                this.handleLoadingError(t);
+            } finally {
+                this.loadingMore.set(false);
+            }
+        });
+    }
+
+    @Nullable
+    private JScrollBar getPopupScrollBar() {
+        final Object popup = this.getUI().getAccessibleChild(this, 0);
+        if (popup instanceof ComboPopup comboPopup) {
+            final JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, comboPopup.getList());
+            return Objects.isNull(scrollPane) ? null : scrollPane.getVerticalScrollBar();
         }
-        return Collections.emptyList();
+        return null;
     }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.containerapps.component;
+
+import com.azure.containers.containerregistry.ContainerRepository;
+import com.azure.containers.containerregistry.models.ArtifactManifestOrder;
+import com.azure.containers.containerregistry.models.ArtifactManifestProperties;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.policy.AddHeadersFromContextPolicy;
+import com.azure.core.http.rest.PagedIterable;
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.core.util.Context;
+import com.microsoft.azure.toolkit.lib.common.event.AzureEventBus;
+import com.microsoft.azure.toolkit.lib.containerregistry.ContainerRegistry;
+import com.microsoft.azure.toolkit.lib.containerregistry.Repository;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tags of ACR repositories, listed page by page from the manifests of a repository in the order of last updated time
+ * descending, so that the latest tags come first and the rest are loaded on demand. The tags of all manifests in a page
+ * are returned by one request instead of one request per manifest. Loaded pages are cached per repository, and
+ * revalidated by the ETag of the first page once they are older than {@link #REVALIDATE_AFTER_MILLIS}.
+ */
+public class ACRTagCache {
+    public static final int PAGE_SIZE = 100;
+    private static final long REVALIDATE_AFTER_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int NOT_MODIFIED = 304;
+    private static final ACRTagCache INSTANCE = new ACRTagCache();
+
+    // keyed by the lower-cased repository id
+    private final Map<String, RepositoryTags> cache = new ConcurrentHashMap<>();
+
+    private ACRTagCache() {
+        AzureEventBus.on("resource.refreshed.resource", new AzureEventBus.EventListener(e -> {
+            if (e.getSource() instanceof ContainerRegistry registry) {
+                this.invalidate(registry);
+            } else if (e.getSource() instanceof Repository repository) {
+                this.invalidate(repository);
+            }
+        }));
+        AzureEventBus.on("account.logged_out.account", new AzureEventBus.EventListener(e -> this.cache.clear()));
+    }
+
+    public static ACRTagCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the tags loaded so far, at least the first page, which is revalidated if it's stale.
+     */
+    @Nonnull
+    public List<String> getTags(@Nonnull Repository repository) {
+        final ContainerRepository remote = repository.getRemote();
+        if (Objects.isNull(remote)) {
+            return Collections.emptyList();
+        }
+        return this.cache.computeIfAbsent(getKey(repository), k -> new RepositoryTags()).list(remote);
+    }
+
+    /**
+     * load the next page of tags if there is any.
+     *
+     * @return all the tags loaded so far.
+     */
+    @Nonnull
+    public List<String> loadMore(@Nonnull Repository repository) {
+        final ContainerRepository remote = repository.getRemote();
+        if (Objects.isNull(remote)) {
+            return Collections.emptyList();
+        }
+        return this.cache.computeIfAbsent(getKey(repository), k -> new RepositoryTags()).loadMore(remote);
+    }
+
+    public boolean hasMore(@Nonnull Repository repository) {
+        final RepositoryTags tags = this.cache.get(getKey(repository));
+        return Objects.nonNull(tags) && tags.hasMore();
+    }
+
+    public void invalidate(@Nonnull Repository repository) {
+        this.cache.remove(getKey(repository));
+    }
+
+    public void invalidate(@Nonnull ContainerRegistry registry) {
+        final String prefix = registry.getId().toLowerCase() + "/";
+        this.cache.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+
+    /**
+     * drop the cached tags of the repositories of the registry which no longer exist.
+     */
+    public void retain(@Nonnull ContainerRegistry registry, @Nonnull Collection<? extends Repository> repositories) {
+        final String prefix = registry.getId().toLowerCase() + "/";
+        final Set<String> existing = repositories.stream().map(ACRTagCache::getKey).collect(Collectors.toSet());
+        this.cache.keySet().removeIf(k -> k.startsWith(prefix) && !existing.contains(k));
+    }
+
+    @Nonnull
+    private static String getKey(@Nonnull Repository repository) {
+        return repository.getId().toLowerCase();
+    }
+
+    private static class RepositoryTags {
+        private List<String> tags = Collections.emptyList();
+        @Nullable
+        private String etag;
+        @Nullable
+        private List<String> firstPageDigests;
+        @Nullable
+        private String continuationToken;
+        private long validatedAt;
+
+        synchronized List<String> list(@Nonnull ContainerRepository remote) {
+            if (Objects.isNull(this.firstPageDigests)) {
+                this.reload(remote, null);
+            } else if (System.currentTimeMillis() - this.validatedAt > REVALIDATE_AFTER_MILLIS) {
+                this.reload(remote, this.etag);
+            }
+            return this.tags;
+        }
+
+        synchronized List<String> loadMore(@Nonnull ContainerRepository remote) {
+            if (Objects.isNull(this.firstPageDigests)) {
+                return this.list(remote);
+            }
+            if (Objects.isNull(this.continuationToken)) {
+                return this.tags;
+            }
+            final PagedResponse<ArtifactManifestProperties> page = fetchPage(remote, this.continuationToken, null);
+            if (Objects.nonNull(page)) {
+                final List<String> result = new ArrayList<>(this.tags);
+                result.addAll(getTags(page));
+                this.tags = Collections.unmodifiableList(result);
+                this.continuationToken = page.getContinuationToken();
+            } else {
+                this.continuationToken = null;
+            }
+            return this.tags;
+        }
+
+        synchronized boolean hasMore() {
+            return Objects.nonNull(this.continuationToken);
+        }
+
+        private void reload(@Nonnull ContainerRepository remote, @Nullable String ifNoneMatch) {
+            final PagedResponse<ArtifactManifestProperties> page;
+            try {
+                page = fetchPage(remote, null, ifNoneMatch);
+            } catch (final HttpResponseException e) {
+                if (Objects.nonNull(e.getResponse()) && e.getResponse().getStatusCode() == NOT_MODIFIED) {
+                    this.validatedAt = System.currentTimeMillis();
+                    return;
+                }
+                throw e;
+            }
+            this.validatedAt = System.currentTimeMillis();
+            if (Objects.isNull(page)) {
+                this.tags = Collections.emptyList();
+                this.firstPageDigests = Collections.emptyList();
+                this.continuationToken = null;
+                this.etag = null;
+                return;
+            }
+            final List<String> digests = page.getValue().stream().map(m -> m.getDigest() + "@" + m.getLastUpdatedOn()).toList();
+            this.etag = page.getHeaders().getValue(HttpHeaderName.ETAG);
+            if (Objects.equals(digests, this.firstPageDigests)) {
+                // the registry doesn't support conditional requests, but nothing changed, keep the pages loaded.
+                return;
+            }
+            this.firstPageDigests = digests;
+            this.tags = getTags(page);
+            this.continuationToken = page.getContinuationToken();
+        }
+
+        @Nullable
+        private static PagedResponse<ArtifactManifestProperties> fetchPage(@Nonnull ContainerRepository remote, @Nullable String continuationToken, @Nullable String ifNoneMatch) {
+            Context context = Context.NONE;
+            if (StringUtils.isNotBlank(ifNoneMatch)) {
+                final HttpHeaders headers = new HttpHeaders().set(HttpHeaderName.IF_NONE_MATCH, ifNoneMatch);
+                context = context.addData(AddHeadersFromContextPolicy.AZURE_REQUEST_HTTP_HEADERS_KEY, headers);
+            }
+            final PagedIterable<ArtifactManifestProperties> manifests = remote.listManifestProperties(ArtifactManifestOrder.LAST_UPDATED_ON_DESCENDING, context);
+            final Iterator<PagedResponse<ArtifactManifestProperties>> pages = StringUtils.isBlank(continuationToken) ?
+                manifests.iterableByPage(PAGE_SIZE).iterator() : manifests.iterableByPage(continuationToken, PAGE_SIZE).iterator();
+            return pages.hasNext() ? pages.next() : null;
+        }
+
+        @Nonnull
+        private static List<String> getTags(@Nonnull PagedResponse<ArtifactManifestProperties> page) {
+            return page.getValue().stream()
+                .map(ArtifactManifestProperties::getTags)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .toList();
+        }
+    }
+}
@@ -106,6 +106,11 @@ public class SqlDatabaseResource<T extends IDatabase> extends AzureServiceResour
         this.database.setUsername(username);
     }
 
+    @Override
+    public String getEnvironmentCacheKey() {
+        return String.join("|", StringUtils.defaultString(this.getUsername()), String.valueOf(this.getJdbcUrl()));
+    }
+
     @Override
     public boolean canConnectSilently() {
         return false;
@@ -259,6 +259,7 @@ public class SparkBatchJobDeployFactory implements ILogger {
         }
 
         //TODO:use httpobservable to replace sparkbathsubmission and deprecate the old constructor.
-        return jobDeploy;
+        // Reuse the artifact uploaded before if it's not changed
+        return jobDeploy == null ? null : new DedupArtifactDeploy(jobDeploy);
     }
 }
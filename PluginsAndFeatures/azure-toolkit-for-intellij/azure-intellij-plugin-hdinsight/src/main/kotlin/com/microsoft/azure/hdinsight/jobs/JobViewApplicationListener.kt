@@ -23,6 +23,7 @@
 package com.microsoft.azure.hdinsight.jobs
 
 import com.intellij.ide.AppLifecycleListener
+import com.microsoft.azure.hdinsight.sdk.common.HttpConnectionPool
 import com.microsoft.azure.hdinsight.spark.jobs.JobViewHttpServer
 
 class JobViewApplicationListener: AppLifecycleListener {
@@ -32,5 +33,6 @@ class JobViewApplicationListener: AppLifecycleListener {
 
     override fun appWillBeClosed(isRestart: Boolean) {
         JobViewHttpServer.close()
+        HttpConnectionPool.getInstance().shutdown()
     }
 }
\ No newline at end of file
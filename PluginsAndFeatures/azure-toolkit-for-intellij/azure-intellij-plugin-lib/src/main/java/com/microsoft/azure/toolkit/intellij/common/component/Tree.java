@@ -168,6 +168,58 @@ public class Tree extends SimpleTree implements DataProvider {
             });
         }
 
+        /**
+         * update the rendered children in place by the changes, the retained children keep their tree nodes (and so
+         * the expansion and selection), only the added and removed ones are inserted/removed through the tree model.
+         */
+        @Override
+        public void updateChildren(@Nonnull Node.ChildrenDiff diff) {
+            AzureTaskManager.getInstance().runLater(() -> {
+                final DefaultTreeModel model = (DefaultTreeModel) this.tree.getModel();
+                final List<Node<?>> children = this.inner.getChildren();
+                if (!BooleanUtils.isTrue(this.loaded) || Objects.isNull(model) || !this.isRenderedOrderKept(children)) {
+                    this.updateChildren(true);
+                    return;
+                }
+                if (Objects.isNull(this.getParent()) && !Objects.equals(model.getRoot(), this)) {
+                    return; // removed from the tree
+                }
+                final Set<Node<?>> childrenNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+                childrenNodes.addAll(children);
+                final Set<Node<?>> rendered = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (int i = this.getChildCount() - 1; i >= 0; i--) {
+                    final javax.swing.tree.TreeNode child = this.getChildAt(i);
+                    if (!(child instanceof TreeNode<?> treeNode) || !childrenNodes.contains(treeNode.inner) || !rendered.add(treeNode.inner)) {
+                        model.removeNodeFromParent((MutableTreeNode) child); // removed, loading and load more nodes
+                    }
+                }
+                for (int i = 0; i < children.size(); i++) {
+                    final Node<?> node = children.get(i);
+                    if (rendered.add(node)) {
+                        model.insertNodeInto(new TreeNode<>(node, this.tree), this, Math.min(i, this.getChildCount()));
+                    }
+                }
+                if (this.inner.hasMoreChildren()) {
+                    model.insertNodeInto(new LoadMoreNode(), this, this.getChildCount());
+                }
+            });
+        }
+
+        /**
+         * @return true if the rendered children that are still children keep the same order as the new children.
+         */
+        private boolean isRenderedOrderKept(@Nonnull List<Node<?>> children) {
+            final Set<Node<?>> childrenNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            childrenNodes.addAll(children);
+            final List<Node<?>> rendered = Collections.list(this.children()).stream()
+                .filter(c -> c instanceof TreeNode<?>).map(c -> (Node<?>) ((TreeNode<?>) c).inner)
+                .filter(childrenNodes::contains).collect(Collectors.toList());
+            final Set<Node<?>> renderedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            renderedNodes.addAll(rendered);
+            final List<Node<?>> retained = children.stream().filter(renderedNodes::contains).collect(Collectors.toList());
+            return retained.size() == rendered.size() && IntStream.range(0, rendered.size()).allMatch(i -> retained.get(i) == rendered.get(i));
+        }
+
         protected void loadChildren(boolean... incremental) {
             if (loaded != null) {
                 return; // return if loading/loaded
@@ -207,9 +259,9 @@ public class Tree extends SimpleTree implements DataProvider {
                     final Node<?> node = children.get(i);
                     if (!oldChildrenNodes.contains(node)) {
                         this.insert(new TreeNode<>(node, this.tree), i);
-                    } else { // discarded nodes should be disposed manually to unregister listeners.
+                    } else if (oldChildren.get(node).inner != node) { // discarded nodes should be disposed manually to unregister listeners.
                         node.dispose();
-                    }
+                    } // reused nodes are kept as is.
                 }
 
                 this.removeLoadingNode();
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.common.streaminglog;
+
+import org.jetbrains.annotations.NotNull;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Subscriber of the streaming log, which batches the log lines into chunks bounded by time and size before printing,
+ * so that the console is updated a few times per second rather than once per line.
+ * <p>
+ * The lines are requested from upstream only while there is room in the bounded buffer of recent lines. If upstream
+ * can't be slowed down, the oldest lines are dropped and the dropped count is reported with the next chunk.
+ */
+public class StreamingLogSink extends BaseSubscriber<String> {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int MAX_BATCH_LINES = 1_000;
+    public static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private static final String SEPARATOR = System.getProperty("line.separator");
+
+    private final int capacity;
+    private final Consumer<String> printer;
+    private final LongConsumer droppedReporter;
+    private final Scheduler.Worker worker = Schedulers.single().createWorker();
+    private final Deque<String> lines = new ArrayDeque<>();
+    // held while printing a chunk, so that the chunks are printed in order by the worker and the final flush
+    private final Object flushLock = new Object();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong totalDropped = new AtomicLong();
+    private boolean flushScheduled = false;
+
+    public StreamingLogSink(@NotNull Consumer<String> printer, @NotNull LongConsumer droppedReporter) {
+        this(DEFAULT_CAPACITY, printer, droppedReporter);
+    }
+
+    public StreamingLogSink(int capacity, @NotNull Consumer<String> printer, @NotNull LongConsumer droppedReporter) {
+        this.capacity = Math.max(MAX_BATCH_LINES, capacity);
+        this.printer = printer;
+        this.droppedReporter = droppedReporter;
+    }
+
+    /**
+     * count the lines dropped upstream, e.g. by the overflow of a bounded backpressure buffer.
+     */
+    public void onDropped() {
+        countDropped();
+    }
+
+    public long getTotalDropped() {
+        return totalDropped.get();
+    }
+
+    @Override
+    protected void hookOnSubscribe(@NotNull Subscription subscription) {
+        subscription.request(capacity);
+    }
+
+    @Override
+    protected void hookOnNext(@NotNull String line) {
+        final boolean full;
+        synchronized (lines) {
+            if (lines.size() >= capacity) {
+                lines.pollFirst();
+                countDropped();
+            }
+            lines.addLast(line);
+            // flush at once each time another full chunk is buffered
+            full = lines.size() % MAX_BATCH_LINES == 0;
+        }
+        scheduleFlush(full ? 0 : FLUSH_INTERVAL_MILLIS);
+    }
+
+    @Override
+    protected void hookFinally(@NotNull SignalType type) {
+        // no more scheduled flushes, the running one (if any) is waited by the flush lock
+        worker.dispose();
+        // print all the rest lines before the terminal hint
+        while (flush() > 0) {
+            // keep flushing
+        }
+    }
+
+    private void countDropped() {
+        dropped.incrementAndGet();
+        totalDropped.incrementAndGet();
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        synchronized (lines) {
+            if (flushScheduled && delayMillis > 0) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        worker.schedule(() -> {
+            synchronized (lines) {
+                flushScheduled = false;
+            }
+            if (flush() >= MAX_BATCH_LINES) {
+                scheduleFlush(0);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * print one chunk of the buffered lines.
+     *
+     * @return the count of lines printed
+     */
+    private int flush() {
+        synchronized (flushLock) {
+            final StringBuilder chunk = new StringBuilder();
+            int count = 0;
+            synchronized (lines) {
+                String line;
+                while (count < MAX_BATCH_LINES && (line = lines.pollFirst()) != null) {
+                    chunk.append(line).append(SEPARATOR);
+                    count++;
+                }
+            }
+            final long droppedLines = dropped.getAndSet(0);
+            if (droppedLines > 0) {
+                droppedReporter.accept(droppedLines);
+            }
+            if (count > 0) {
+                printer.accept(chunk.toString());
+                if (!isDisposed()) {
+                    // ask for as many lines as printed, so that the buffered lines never exceed the capacity
+                    request(count);
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
@@ -26,9 +27,15 @@ public class StreamingLogsConsoleView extends ConsoleViewImpl {
     public void startStreamingLog(Flux<String> logStreaming) {
         if (!isActive()) {
             printlnToConsole(message("app.logStreaming.hint.connect"), SYSTEM_OUTPUT);
-            subscription = logStreaming.subscribeOn(Schedulers.boundedElastic())
+            final StreamingLogSink sink = new StreamingLogSink(
+                    chunk -> this.print(chunk, NORMAL_OUTPUT),
+                    dropped -> printlnToConsole(message("appService.logStreaming.hint.dropped", dropped), SYSTEM_OUTPUT));
+            subscription = logStreaming
+                    // bounded buffer for the sources which don't respect backpressure, drop the oldest lines on overflow
+                    .onBackpressureBuffer(StreamingLogSink.DEFAULT_CAPACITY, line -> sink.onDropped(), BufferOverflowStrategy.DROP_OLDEST)
+                    .subscribeOn(Schedulers.boundedElastic())
                     .doAfterTerminate(() -> printlnToConsole(message("appService.logStreaming.hint.disconnected"), SYSTEM_OUTPUT))
-                    .subscribe((log) -> printlnToConsole(log, NORMAL_OUTPUT));
+                    .subscribeWith(sink);
         }
     }
 
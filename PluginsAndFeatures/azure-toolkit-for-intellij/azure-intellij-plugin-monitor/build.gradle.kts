@@ -6,4 +6,5 @@ dependencies {
     implementation("com.azure:azure-monitor-query:1.0.10")
     implementation("org.apache.commons:commons-csv:1.9.0")
     implementation("com.michaelbaranov:microba:0.4.4.3")
+    testImplementation("junit:junit:4.13.2")
 }
@@ -97,8 +97,11 @@ public class AzureMonitorView extends JPanel implements Disposable {
         AzureTaskManager.getInstance().runInBackground(AzureString.fromString("Loading logs"), () -> this.monitorTreePanel.refresh());
     }
 
+    /**
+     * @return the saved query, which is paged into the table rather than limited to a number of rows.
+     */
     public String getQueryString(String queryName) {
-        return String.format("%s | take %s", this.getMonitorTreePanel().getQueryString(queryName), Azure.az().config().getMonitorQueryRowNumber());
+        return this.getMonitorTreePanel().getQueryString(queryName);
     }
 
     public void setSelectedWorkspace(@Nullable LogAnalyticsWorkspace workspace) {
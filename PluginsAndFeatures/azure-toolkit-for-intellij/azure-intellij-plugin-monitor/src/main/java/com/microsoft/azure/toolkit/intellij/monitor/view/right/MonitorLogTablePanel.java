@@ -5,9 +5,12 @@
 
 package com.microsoft.azure.toolkit.intellij.monitor.view.right;
 
+import com.azure.monitor.query.models.LogsColumnType;
 import com.azure.monitor.query.models.LogsTable;
 import com.azure.monitor.query.models.LogsTableCell;
 import com.azure.monitor.query.models.LogsTableRow;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.ActionUpdateThread;
@@ -54,8 +57,13 @@ import javax.swing.*;
 import javax.swing.event.ListSelectionListener;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static com.microsoft.azure.toolkit.intellij.common.AzureBundle.message;
 
@@ -78,9 +86,27 @@ public class MonitorLogTablePanel implements Disposable {
     private AzureActionButton<Void> saveFiltersButton;
     private final static String[] RESOURCE_COMBOBOX_COLUMN_NAMES = {"_ResourceId", "ResourceId"};
     private final static String[] LEVEL_COMBOBOX_COLUMN = {"Level"};
+    // display logs with latest time
+    private final static String SORT_BY_LATEST = "sort by TimeGenerated desc";
     private final static String RESULT_CSV_FILE = "result.csv";
+    private final static String[] EXPORT_EXTENSIONS = {"csv", "ndjson", "jsonl"};
+    // rows below the visible area to start loading the next page
+    private final static int PREFETCH_ROWS = 200;
+    // column names and distinct values of the tables, shared by all the tabs
+    private final static long METADATA_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private final static int MAX_METADATA_ENTRIES = 200;
+    // the least recently used entries are evicted, the expired ones are reloaded on access
+    private final static Map<String, CachedMetadata> METADATA_CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedMetadata> eldest) {
+            return this.size() > MAX_METADATA_ENTRIES;
+        }
+    });
     @Setter
     private String initResourceId;
+    @Nullable
+    private MonitorQueryPager pager;
+    private boolean loadingPage;
 
     public MonitorLogTablePanel() {
         $$$setupUI$$$(); // tell IntelliJ to call createUIComponents() here.
@@ -97,6 +123,14 @@ public class MonitorLogTablePanel implements Disposable {
     }
 
     public String getQueryStringFromFilters(String tableName) {
+        final String rowNumberLimitation = String.format("take %s", Azure.az().config().getMonitorQueryRowNumber());
+        return StringUtils.join(List.of(getSourceQueryStringFromFilters(tableName), SORT_BY_LATEST, rowNumberLimitation), " | ");
+    }
+
+    /**
+     * @return the table and the filters of the query, without the sorting and the limitation of rows.
+     */
+    private String getSourceQueryStringFromFilters(String tableName) {
         final List<String> queryParams = new ArrayList<>(Arrays.asList(tableName, timeRangeFilterComboBox.getKustoString()));
         if (Objects.nonNull(initResourceId)) {
             queryParams.add(String.format("where _ResourceId == \"%s\"", initResourceId));
@@ -106,14 +140,22 @@ public class MonitorLogTablePanel implements Disposable {
         if (logLevelLabel.isEnabled() && StringUtils.isNotBlank(levelComboBox.getKustoString())) {
             queryParams.add(levelComboBox.getKustoString());
         }
-        // display logs with latest time
-        queryParams.add("sort by TimeGenerated desc");
-        final String rowNumberLimitation = String.format("take %s", Azure.az().config().getMonitorQueryRowNumber());
-        queryParams.add(rowNumberLimitation);
         return StringUtils.join(queryParams.stream().filter(StringUtils::isNotBlank).toList(), " | ");
     }
 
+    /**
+     * load the logs of the table filtered by the filters, page by page with the latest ones first and not limited to
+     * the number of rows.
+     */
+    public void loadTableModelFromFilters(@Nullable LogAnalyticsWorkspace selectedWorkspace, String tableName) {
+        this.loadTableModel(selectedWorkspace, getSourceQueryStringFromFilters(tableName), SORT_BY_LATEST);
+    }
+
     public void loadTableModel(@Nullable LogAnalyticsWorkspace selectedWorkspace, String queryString) {
+        this.loadTableModel(selectedWorkspace, queryString, null);
+    }
+
+    private void loadTableModel(@Nullable LogAnalyticsWorkspace selectedWorkspace, String queryString, @Nullable String tail) {
         runButton.setEnabled(false);
         exportAction.setEnabled(false);
         saveFiltersButton.setEnabled(false);
@@ -123,22 +165,29 @@ public class MonitorLogTablePanel implements Disposable {
         }
         logTable.clearModel();
         logTable.setLoading(true);
+        final MonitorQueryPager current = new MonitorQueryPager(selectedWorkspace, queryString, tail);
+        this.pager = current;
+        this.loadingPage = true;
         AzureTaskManager.getInstance().runInBackground("load Azure Monitor data", () -> {
             try {
-                final LogsTable result = selectedWorkspace.executeQuery(queryString);
+                final List<LogsTableRow> rows = current.nextPage();
+                // build the table model in background, the cells are copied and formatted once
+                final LogTableModel model = rows.isEmpty() ? null : new LogTableModel(rows);
                 AzureTaskManager.getInstance().runLater(() -> {
-                    if (Objects.isNull(result)) {
+                    if (Objects.isNull(model) || current != this.pager) {
                         return;
                     }
-                    if (result.getAllTableCells().size() > 0) {
-                        this.exportAction.setEnabled(true);
-                        this.logTable.setModel(result.getRows());
-                    }
+                    this.exportAction.setEnabled(true);
+                    this.logTable.setModel(model);
                 }, AzureTask.Modality.ANY);
             } catch (final Exception e) {
                 throw new AzureToolkitRuntimeException(e);
             } finally {
                 AzureTaskManager.getInstance().runLater(() -> {
+                    if (current == this.pager) {
+                        this.loadingPage = false;
+                        this.loadNextPageIfScrolledToEnd();
+                    }
                     logTable.setLoading(false);
                     runButton.setEnabled(true);
                     saveFiltersButton.setEnabled(true);
@@ -147,6 +196,43 @@ public class MonitorLogTablePanel implements Disposable {
         });
     }
 
+    /**
+     * load the next page of the current query and append it to the table, if the table is scrolled near to the end.
+     */
+    private void loadNextPageIfScrolledToEnd() {
+        final MonitorQueryPager current = this.pager;
+        final JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this.logTable);
+        if (Objects.isNull(current) || !current.isHasMore() || this.loadingPage || Objects.isNull(scrollPane)) {
+            return;
+        }
+        final JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
+        final int remaining = scrollBar.getMaximum() - scrollBar.getValue() - scrollBar.getVisibleAmount();
+        if (remaining > PREFETCH_ROWS * this.logTable.getRowHeight()) {
+            return;
+        }
+        this.loadingPage = true;
+        AzureTaskManager.getInstance().runInBackground("load more Azure Monitor data", () -> {
+            try {
+                final List<LogsTableRow> rows = current.nextPage();
+                final LogTableModel page = rows.isEmpty() ? null : new LogTableModel(rows);
+                AzureTaskManager.getInstance().runLater(() -> {
+                    if (Objects.nonNull(page) && current == this.pager) {
+                        this.logTable.appendRows(page);
+                    }
+                }, AzureTask.Modality.ANY);
+            } catch (final Exception e) {
+                throw new AzureToolkitRuntimeException(e);
+            } finally {
+                AzureTaskManager.getInstance().runLater(() -> {
+                    if (current == this.pager) {
+                        this.loadingPage = false;
+                        this.loadNextPageIfScrolledToEnd();
+                    }
+                }, AzureTask.Modality.ANY);
+            }
+        });
+    }
+
     public void loadFilters(@Nullable LogAnalyticsWorkspace selectedWorkspace, String tableName) {
         if (Objects.isNull(selectedWorkspace)) {
             return;
@@ -201,6 +287,8 @@ public class MonitorLogTablePanel implements Disposable {
         this.logTable.setFont(JBUI.Fonts.create("JetBrains Mono", 12));
         this.logTable.getTableHeader().setFont(JBUI.Fonts.create("JetBrains Mono", 12));
         searchField.addDocumentListener((TextDocumentListenerAdapter) () -> logTable.filter(searchField.getText()));
+        Optional.ofNullable((JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this.logTable))
+                .ifPresent(pane -> pane.getVerticalScrollBar().addAdjustmentListener(e -> loadNextPageIfScrolledToEnd()));
     }
 
     private void updateCombobox(Map<String, List<String>> map) {
@@ -242,9 +330,10 @@ public class MonitorLogTablePanel implements Disposable {
     }
 
     private List<String> queryColumnNameList(LogAnalyticsWorkspace selectedWorkspace, String tableName) {
-        return Optional.ofNullable(selectedWorkspace.executeQuery(String.format("%s | take 1", tableName)))
+        final String cacheKey = String.format("%s|%s|columns", selectedWorkspace.getId(), tableName);
+        return getCachedMetadata(cacheKey, () -> Optional.ofNullable(selectedWorkspace.executeQuery(String.format("%s | take 1", tableName)))
                 .map(LogsTable::getAllTableCells).orElse(new ArrayList<>())
-                .stream().map(LogsTableCell::getColumnName).toList();
+                .stream().map(LogsTableCell::getColumnName).toList());
     }
 
     private Map<String, List<String>> queryCellValueList(LogAnalyticsWorkspace selectedWorkspace, String tableName,
@@ -255,17 +344,38 @@ public class MonitorLogTablePanel implements Disposable {
         if (StringUtils.isBlank(kustoColumnNames)) {
             return result;
         }
-        final String queryString = String.format("%s | distinct %s | project %s", tableName, kustoColumnNames, kustoColumnNames);
-        Optional.ofNullable(selectedWorkspace.executeQuery(queryString))
-                .map(LogsTable::getAllTableCells).orElse(new ArrayList<>()).forEach(logsTableCell -> {
-                    if (!result.containsKey(logsTableCell.getColumnName())) {
-                        result.put(logsTableCell.getColumnName(), new ArrayList<>());
-                    }
-                    result.get(logsTableCell.getColumnName()).add(logsTableCell.getValueAsString());
-                });
+        final String cacheKey = String.format("%s|%s|values|%s", selectedWorkspace.getId(), tableName, kustoColumnNames);
+        final Map<String, List<String>> cached = getCachedMetadata(cacheKey, () -> {
+            final Map<String, List<String>> values = new HashMap<>();
+            final String queryString = String.format("%s | distinct %s | project %s", tableName, kustoColumnNames, kustoColumnNames);
+            Optional.ofNullable(selectedWorkspace.executeQuery(queryString))
+                    .map(LogsTable::getAllTableCells).orElse(new ArrayList<>()).forEach(logsTableCell -> {
+                        if (!values.containsKey(logsTableCell.getColumnName())) {
+                            values.put(logsTableCell.getColumnName(), new ArrayList<>());
+                        }
+                        values.get(logsTableCell.getColumnName()).add(logsTableCell.getValueAsString());
+                    });
+            return values;
+        });
+        // the lists are modified by the combo boxes
+        cached.forEach((column, values) -> result.put(column, new ArrayList<>(values)));
         return result;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> T getCachedMetadata(String key, Supplier<T> loader) {
+        final CachedMetadata cached = METADATA_CACHE.get(key);
+        if (Objects.nonNull(cached) && cached.expireAt() > System.currentTimeMillis()) {
+            return (T) cached.value();
+        }
+        final T value = loader.get();
+        METADATA_CACHE.put(key, new CachedMetadata(value, System.currentTimeMillis() + METADATA_TTL_MILLIS));
+        return value;
+    }
+
+    private record CachedMetadata(Object value, long expireAt) {
+    }
+
     private void hideFilters() {
         this.timeRangePanel.setVisible(false);
         this.resourcePanel.setVisible(false);
@@ -275,15 +385,22 @@ public class MonitorLogTablePanel implements Disposable {
 
     @AzureOperation(name = "user/monitor.export_query_result")
     private void exportQueryResult() {
-        final FileSaverDescriptor fileDescriptor = new FileSaverDescriptor(message("azure.monitor.export.description"), "");
+        final MonitorQueryPager current = this.pager;
+        if (Objects.isNull(current)) {
+            return;
+        }
+        final FileSaverDescriptor fileDescriptor = new FileSaverDescriptor(message("azure.monitor.export.description"), "", EXPORT_EXTENSIONS);
         final FileSaverDialog dialog = FileChooserFactory.getInstance().createSaveFileDialog(fileDescriptor, (Project) null);
         final VirtualFile userHome = LocalFileSystem.getInstance().findFileByPath(System.getProperty("user.home"));
         final VirtualFileWrapper fileWrapper = dialog.save(userHome, RESULT_CSV_FILE);
+        // export by a new pager of the same query pinned to the same time, the rows are written page by page rather
+        // than from the table
         Optional.ofNullable(fileWrapper).map(VirtualFileWrapper::getFile).ifPresent(it ->
-                AzureTaskManager.getInstance().runInBackground("Export query data", () -> exportTableData(it, logTable.getLogTableModel())));
+                AzureTaskManager.getInstance().runInBackground("Export query data",
+                        () -> exportQueryData(it, current.restart())));
     }
 
-    private void exportTableData(File target, LogTableModel tableModel) {
+    private void exportQueryData(File target, MonitorQueryPager pager) {
         try {
             if (target == null) {
                 return;
@@ -292,15 +409,13 @@ public class MonitorLogTablePanel implements Disposable {
             if (!parentFolder.exists()) {
                 parentFolder.mkdirs();
             }
-            if (!target.exists()) {
-                target.createNewFile();
-            }
-            final CSVPrinter csvPrinter = new CSVPrinter(new FileWriter(target),
-                    CSVFormat.Builder.create().setHeader(tableModel.getColumnNames().toArray(new String[0])).build());
-            for (final LogsTableRow row : tableModel.getLogsTableRows()) {
-                csvPrinter.printRecord(row.getRow().stream().map(LogsTableCell::getValueAsString).toList());
+            try (final Writer writer = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8)) {
+                if (StringUtils.endsWithAny(target.getName().toLowerCase(), ".ndjson", ".jsonl")) {
+                    exportAsNdjson(writer, pager);
+                } else {
+                    exportAsCsv(writer, pager);
+                }
             }
-            csvPrinter.close();
             AzureMessager.getMessager().success(message("azure.monitor.export.succeed.message", target.getAbsolutePath()),
                    null, newShowInExplorerAction(target));
         } catch (final Exception e) {
@@ -308,6 +423,61 @@ public class MonitorLogTablePanel implements Disposable {
         }
     }
 
+    private static void exportAsCsv(Writer writer, MonitorQueryPager pager) throws IOException {
+        CSVPrinter csvPrinter = null;
+        for (List<LogsTableRow> rows = pager.nextPage(); !rows.isEmpty(); rows = pager.nextPage()) {
+            if (Objects.isNull(csvPrinter)) {
+                final String[] header = rows.get(0).getRow().stream().map(LogsTableCell::getColumnName).toArray(String[]::new);
+                csvPrinter = new CSVPrinter(writer, CSVFormat.Builder.create().setHeader(header).build());
+            }
+            for (final LogsTableRow row : rows) {
+                csvPrinter.printRecord(row.getRow().stream().map(LogsTableCell::getValueAsString).toList());
+            }
+        }
+        if (Objects.nonNull(csvPrinter)) {
+            csvPrinter.flush();
+        }
+    }
+
+    private static void exportAsNdjson(Writer writer, MonitorQueryPager pager) throws IOException {
+        final JsonGenerator generator = new JsonFactory().createGenerator(writer);
+        generator.setRootValueSeparator(null);
+        for (List<LogsTableRow> rows = pager.nextPage(); !rows.isEmpty(); rows = pager.nextPage()) {
+            for (final LogsTableRow row : rows) {
+                generator.writeStartObject();
+                for (final LogsTableCell cell : row.getRow()) {
+                    generator.writeFieldName(cell.getColumnName());
+                    writeCellValue(generator, cell);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+        generator.flush();
+    }
+
+    private static void writeCellValue(JsonGenerator generator, LogsTableCell cell) throws IOException {
+        final String text = cell.getValueAsString();
+        final LogsColumnType type = cell.getColumnType();
+        if (Objects.isNull(text)) {
+            generator.writeNull();
+        } else if (LogsColumnType.BOOL.equals(type)) {
+            generator.writeBoolean(Boolean.TRUE.equals(cell.getValueAsBoolean()));
+        } else if (LogsColumnType.INT.equals(type)) {
+            generator.writeNumber(cell.getValueAsInteger());
+        } else if (LogsColumnType.LONG.equals(type)) {
+            generator.writeNumber(cell.getValueAsLong());
+        } else if (LogsColumnType.DECIMAL.equals(type)) {
+            generator.writeNumber(cell.getValueAsBigDecimal());
+        } else if (LogsColumnType.REAL.equals(type) && Double.isFinite(cell.getValueAsDouble())) {
+            generator.writeNumber(cell.getValueAsDouble());
+        } else if (LogsColumnType.DYNAMIC.equals(type) && StringUtils.startsWithAny(text, "{", "[")) {
+            generator.writeRawValue(text);
+        } else {
+            generator.writeString(text);
+        }
+    }
+
     private static Action<File> newShowInExplorerAction(@Nonnull final File dest) {
         return AzureActionManager.getInstance().getAction(ResourceCommonActionsContributor.REVEAL_FILE).bind(dest);
     }
@@ -343,6 +513,7 @@ public class MonitorLogTablePanel implements Disposable {
 
     @Override
     public void dispose() {
+        this.pager = null;
         AzureEventBus.off("azure.monitor.change_workspace", onWorkspaceChanged);
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.monitor.view.right;
+
+import com.azure.monitor.query.models.LogsTable;
+import com.azure.monitor.query.models.LogsTableRow;
+import com.microsoft.azure.toolkit.lib.monitor.LogAnalyticsWorkspace;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Reads the result of a kusto query page by page. Each page is a query of the serialized rows numbered in
+ * {@code (offset, offset + pageSize]}, so that only one page of rows is transferred and kept in memory at a time.
+ * Queries which can't be paged, e.g. ending with a {@code render} operator, are read as one single page.
+ * <p>
+ * The rows are pinned to the time of the first page by an upper bound of {@code ingestion_time()}, so that the rows
+ * ingested meanwhile, including the late-arriving ones, don't shift the row numbers of the following pages, e.g. of a
+ * query sorted by the latest time. The bound is applied to the source of the query, before the operators of the tail
+ * like {@code sort}, or at the end of the query if it has no separate tail. Results which can't be pinned, e.g. of
+ * a query ending with {@code summarize}, are paged as is.
+ */
+@Slf4j
+public class MonitorQueryPager {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final String ROW_NUMBER_COLUMN = "__azureToolkitRowNumber";
+    private static final DateTimeFormatter PIN_TIME_FORMATTER = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    @Getter
+    private final LogAnalyticsWorkspace workspace;
+    @Getter
+    private final String query;
+    // the table and filters of the query, the rows of which are pinned
+    private final String source;
+    // the operators following the pinned source, e.g. sort, empty if none
+    private final String tail;
+    private final int pageSize;
+    @Getter
+    private int offset;
+    @Getter
+    private volatile boolean hasMore = true;
+    private boolean pagingSupported = true;
+    // the filter pinning the rows to the time of the first page, null if not pinned
+    @Nullable
+    private String pinFilter;
+
+    public MonitorQueryPager(@Nonnull LogAnalyticsWorkspace workspace, @Nonnull String query) {
+        this(workspace, query, null, DEFAULT_PAGE_SIZE);
+    }
+
+    public MonitorQueryPager(@Nonnull LogAnalyticsWorkspace workspace, @Nonnull String source, @Nullable String tail) {
+        this(workspace, source, tail, DEFAULT_PAGE_SIZE);
+    }
+
+    public MonitorQueryPager(@Nonnull LogAnalyticsWorkspace workspace, @Nonnull String source, @Nullable String tail, int pageSize) {
+        this.workspace = workspace;
+        this.source = StringUtils.stripEnd(source.trim(), ";");
+        this.tail = StringUtils.stripEnd(StringUtils.trimToEmpty(tail), ";");
+        this.query = join(this.source, this.tail);
+        this.pageSize = pageSize;
+        this.pinFilter = getPinFilter(OffsetDateTime.now(ZoneOffset.UTC));
+    }
+
+    private MonitorQueryPager(@Nonnull MonitorQueryPager pager) {
+        this.workspace = pager.workspace;
+        this.query = pager.query;
+        this.source = pager.source;
+        this.tail = pager.tail;
+        this.pageSize = pager.pageSize;
+        this.pagingSupported = pager.pagingSupported;
+        this.pinFilter = pager.pinFilter;
+    }
+
+    /**
+     * @return a new pager from the first page of the same query pinned to the same time, e.g. to export all the rows
+     * listed by this pager.
+     */
+    @Nonnull
+    public synchronized MonitorQueryPager restart() {
+        return new MonitorQueryPager(this);
+    }
+
+    /**
+     * query the next page of rows, an empty list if there are no more rows.
+     */
+    @Nonnull
+    public synchronized List<LogsTableRow> nextPage() {
+        if (!this.hasMore) {
+            return Collections.emptyList();
+        }
+        final List<LogsTableRow> rows;
+        if (this.pagingSupported) {
+            rows = this.queryPage();
+        } else {
+            rows = this.queryRows(this.query);
+            this.hasMore = false;
+        }
+        this.offset += rows.size();
+        this.hasMore = this.hasMore && rows.size() >= this.pageSize;
+        return rows;
+    }
+
+    @Nonnull
+    private List<LogsTableRow> queryPage() {
+        if (this.offset == 0 && Objects.nonNull(this.pinFilter)) {
+            try {
+                return this.queryRows(getPageQuery(join(this.source, this.pinFilter, this.tail), this.offset, this.pageSize));
+            } catch (final RuntimeException e) {
+                // e.g. the ingestion time is not available after summarize
+                log.debug("failed to pin query to the time of the first page: {}", e.getMessage());
+                this.pinFilter = null;
+            }
+        }
+        try {
+            final String pinned = Objects.isNull(this.pinFilter) ? this.query : join(this.source, this.pinFilter, this.tail);
+            return this.queryRows(getPageQuery(pinned, this.offset, this.pageSize));
+        } catch (final RuntimeException e) {
+            if (this.offset > 0) {
+                throw e;
+            }
+            // the query can't be paged, read the whole result as the first page
+            log.debug("failed to page query, fall back to query all rows: {}", e.getMessage());
+            this.pagingSupported = false;
+            this.hasMore = false;
+            return this.queryRows(this.query);
+        }
+    }
+
+    @Nonnull
+    private List<LogsTableRow> queryRows(@Nonnull String queryString) {
+        return Optional.ofNullable(this.workspace.executeQuery(queryString))
+            .map(LogsTable::getRows)
+            .filter(Objects::nonNull)
+            .orElse(Collections.emptyList());
+    }
+
+    @Nonnull
+    static String getPinFilter(@Nonnull OffsetDateTime time) {
+        return String.format("where ingestion_time() <= datetime(%s)", time.truncatedTo(ChronoUnit.MILLIS).format(PIN_TIME_FORMATTER));
+    }
+
+    @Nonnull
+    private static String join(@Nonnull String... parts) {
+        return StringUtils.join(Arrays.stream(parts).filter(StringUtils::isNotBlank).toList(), " | ");
+    }
+
+    @Nonnull
+    static String getPageQuery(@Nonnull String query, int offset, int pageSize) {
+        return String.format("%s | serialize %s = row_number() | where %s > %d and %s <= %d | project-away %s", query,
+            ROW_NUMBER_COLUMN, ROW_NUMBER_COLUMN, offset, ROW_NUMBER_COLUMN, (long) offset + pageSize, ROW_NUMBER_COLUMN);
+    }
+}
@@ -42,8 +42,9 @@ public class MonitorSingleTab {
         this.initListener();
         this.monitorLogTablePanel.setInitResourceId(resourceId);
         AzureTaskManager.getInstance().runInBackground(AzureString.fromString("Loading logs"), () -> {
-            loadFilters(tabName);
+            // query the logs first, the filter values are loaded meanwhile
             loadLogs();
+            loadFilters(tabName);
         });
     }
 
@@ -87,8 +88,11 @@ public class MonitorSingleTab {
 
     private void loadLogs() {
         final LogAnalyticsWorkspace selectedWorkspace = this.parentView.getSelectedWorkspace();
-        final String queryString = this.isTableTab ? this.monitorLogTablePanel.getQueryStringFromFilters(tabName) : this.parentView.getQueryString(tabName);
-        this.monitorLogTablePanel.loadTableModel(selectedWorkspace, queryString);
+        if (this.isTableTab) {
+            this.monitorLogTablePanel.loadTableModelFromFilters(selectedWorkspace, tabName);
+        } else {
+            this.monitorLogTablePanel.loadTableModel(selectedWorkspace, this.parentView.getQueryString(tabName));
+        }
         this.monitorLogDetailsPanel.setStatus("No table cell is selected");
     }
 
@@ -8,6 +8,8 @@ package com.microsoft.azure.toolkit.intellij.monitor.view.right.table;
 import com.azure.monitor.query.models.LogsTableRow;
 import com.intellij.ui.table.JBTable;
 import com.microsoft.azure.toolkit.intellij.common.CommonConst;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTask;
+import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 
@@ -17,12 +19,21 @@ import javax.swing.*;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class LogTable extends JBTable {
     @Getter
     private LogTableModel logTableModel = new LogTableModel();
+    private final AtomicLong filterGeneration = new AtomicLong();
+    private String lastFilterText = StringUtils.EMPTY;
+    @Nullable
+    private BitSet lastMatches;
+    @Nullable
+    private LogTableModel lastMatchesModel;
     public LogTable() {
         super();
         this.setModel(logTableModel);
@@ -47,11 +58,32 @@ public class LogTable extends JBTable {
     }
 
     public void setModel(List<LogsTableRow> logsTableRows) {
-        logTableModel = new LogTableModel(logsTableRows);
-        this.setModel(logTableModel);
+        this.setModel(new LogTableModel(logsTableRows));
+    }
+
+    public void setModel(LogTableModel model) {
+        logTableModel = model;
+        this.setModel((TableModel) logTableModel);
         this.setColumnWidth();
     }
 
+    /**
+     * append the next page of the paged query result, the current filter is applied to the appended rows.
+     */
+    public void appendRows(@Nonnull LogTableModel page) {
+        final boolean empty = this.logTableModel.getColumnCount() == 0;
+        final int first = this.logTableModel.getRowCount();
+        if (Objects.nonNull(this.lastMatches) && this.lastMatchesModel == this.logTableModel) {
+            // the filter must include the matched rows before they are inserted into the sorter
+            final BitSet matches = page.search(this.lastFilterText, null, () -> false);
+            Optional.ofNullable(matches).ifPresent(m -> m.stream().forEach(row -> this.lastMatches.set(first + row)));
+        }
+        this.logTableModel.append(page);
+        if (empty) {
+            this.setColumnWidth();
+        }
+    }
+
     public void clearModel() {
         this.logTableModel = new LogTableModel();
         this.setModel(logTableModel);
@@ -66,15 +98,52 @@ public class LogTable extends JBTable {
         }
     }
 
+    /**
+     * filter the rows containing the text (case-insensitive) in any cell. the rows are searched in background by the
+     * search index of the model, and only in the rows matched by the previous text if the new text contains it.
+     */
     public void filter(String stringToFilter) {
-        final RowFilter<TableModel, Object> rf;
-        try {
-            rf = RowFilter.regexFilter("(?i)" + stringToFilter);
-        } catch (final java.util.regex.PatternSyntaxException e) {
+        final long generation = this.filterGeneration.incrementAndGet();
+        final LogTableModel model = this.logTableModel;
+        final String text = StringUtils.defaultString(stringToFilter).toLowerCase();
+        if (text.isEmpty()) {
+            this.applyFilter(model, text, null);
             return;
         }
+        final BitSet candidates = Objects.nonNull(this.lastMatches) && this.lastMatchesModel == model
+            && text.contains(this.lastFilterText) ? (BitSet) this.lastMatches.clone() : null;
+        final int rows = model.getRowCount();
+        AzureTaskManager.getInstance().runOnPooledThread(() -> {
+            final BitSet matches = model.search(text, candidates, () -> generation != this.filterGeneration.get());
+            if (Objects.isNull(matches)) {
+                return;
+            }
+            AzureTaskManager.getInstance().runLater(() -> {
+                if (generation == this.filterGeneration.get() && model == this.logTableModel) {
+                    // search the rows appended meanwhile
+                    if (model.getRowCount() > rows) {
+                        final BitSet appended = new BitSet();
+                        appended.set(rows, model.getRowCount());
+                        Optional.ofNullable(model.search(text, appended, () -> false)).ifPresent(matches::or);
+                    }
+                    this.applyFilter(model, text, matches);
+                }
+            }, AzureTask.Modality.ANY);
+        });
+    }
+
+    private void applyFilter(LogTableModel model, String text, @Nullable BitSet matches) {
+        this.lastFilterText = text;
+        this.lastMatches = matches;
+        this.lastMatchesModel = model;
+        final RowFilter<TableModel, Integer> rf = Objects.isNull(matches) ? null : new RowFilter<>() {
+            @Override
+            public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                return matches.get(entry.getIdentifier());
+            }
+        };
         if (this.getRowSorter() instanceof TableRowSorter<? extends TableModel>) {
-            ((TableRowSorter<? extends TableModel>) this.getRowSorter()).setRowFilter(rf);
+            ((TableRowSorter<TableModel>) this.getRowSorter()).setRowFilter(rf);
         }
     }
 
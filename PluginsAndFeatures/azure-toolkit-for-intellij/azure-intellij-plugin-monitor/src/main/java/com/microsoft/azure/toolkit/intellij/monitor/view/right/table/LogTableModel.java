@@ -13,6 +13,7 @@ import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.Nls;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
@@ -20,33 +21,59 @@ import javax.swing.table.TableModel;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
 
 import static com.microsoft.azure.toolkit.intellij.common.AzureBundle.message;
 
+/**
+ * Columnar table model of the query result. The cells are copied into a typed array per column once when the model is
+ * created, with the date time values pre-formatted, so that painting doesn't touch the row/cell object graph of the
+ * query result. A lower-cased text of each row is also kept as the search index of {@link LogTable#filter(String)}.
+ * The pages of a paged query are appended to the model as they are loaded, see {@link #append(LogTableModel)}.
+ */
 public class LogTableModel implements TableModel {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.n a");
+    // separates the cells in the search index, so that a search text never matches across cells
+    private static final char CELL_SEPARATOR = '\u0000';
+
     @Getter
     private final List<String> columnNames = new ArrayList<>();
     private final List<LogsColumnType> columnClasses = new ArrayList<>();
-    @Getter
-    private final List<LogsTableRow> logsTableRows = new ArrayList<>();
+    private final List<Column> columns = new ArrayList<>();
     private final List<TableModelListener> tableModelListenerList = new ArrayList<>();
-
+    // read by the background search, the search index is always updated before the row count
+    private volatile int rowCount;
+    private int capacity;
+    private volatile String[] searchIndex = new String[0];
 
     public LogTableModel() {
     }
 
-    public LogTableModel(List<LogsTableRow> logsTableRows ) {
+    public LogTableModel(List<LogsTableRow> logsTableRows) {
         this.columnClasses.addAll(logsTableRows.get(0).getRow().stream().map(LogsTableCell::getColumnType).toList());
         this.columnNames.addAll(logsTableRows.get(0).getRow().stream().map(LogsTableCell::getColumnName).toList());
-        this.logsTableRows.addAll(logsTableRows);
+        this.rowCount = logsTableRows.size();
+        this.capacity = this.rowCount;
+        for (int columnIndex = 0; columnIndex < this.columnClasses.size(); columnIndex++) {
+            this.columns.add(Column.create(this.columnClasses.get(columnIndex), this.rowCount));
+        }
+        for (int rowIndex = 0; rowIndex < this.rowCount; rowIndex++) {
+            final List<LogsTableCell> cells = logsTableRows.get(rowIndex).getRow();
+            for (int columnIndex = 0; columnIndex < this.columns.size() && columnIndex < cells.size(); columnIndex++) {
+                this.columns.get(columnIndex).load(rowIndex, cells.get(columnIndex));
+            }
+        }
+        this.buildSearchIndex();
     }
 
     @Override
     public int getRowCount() {
-        return this.logsTableRows.size();
+        return this.rowCount;
     }
 
     @Override
@@ -90,22 +117,55 @@ public class LogTableModel implements TableModel {
         if (isRowInvalid(rowIndex)) {
             return null;
         }
-        final LogsColumnType type = this.columnClasses.get(columnIndex);
-        if (LogsColumnType.BOOL.equals(type)) {
-            return this.logsTableRows.get(rowIndex).getRow().get(columnIndex).getValueAsBoolean();
-        }
-        if (LogsColumnType.INT.equals(type)) {
-            return this.logsTableRows.get(rowIndex).getRow().get(columnIndex).getValueAsInteger();
-        }
-        if (LogsColumnType.LONG.equals(type)) {
-            return this.logsTableRows.get(rowIndex).getRow().get(columnIndex).getValueAsLong();
+        return this.columns.get(columnIndex).get(rowIndex);
+    }
+
+    /**
+     * the raw text of the cell as returned by the query, e.g. the ISO date time rather than the formatted one.
+     */
+    @Nullable
+    public String getRawTextAt(int rowIndex, int columnIndex) {
+        if (isRowInvalid(rowIndex)) {
+            return null;
         }
-        if (LogsColumnType.DATETIME.equals(type)) {
-            final OffsetDateTime dateTime = this.logsTableRows.get(rowIndex).getRow().get(columnIndex).getValueAsDateTime();
-            final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.n a");
-            return Optional.ofNullable(dateTime).map(d -> dateTime.format(dateTimeFormatter)).orElse(StringUtils.EMPTY);
+        return this.columns.get(columnIndex).getRawText(rowIndex);
+    }
+
+    /**
+     * the lower-cased text of all the cells of the row, in the same form as displayed.
+     */
+    @Nonnull
+    String getSearchText(int rowIndex) {
+        return this.searchIndex[rowIndex];
+    }
+
+    /**
+     * search the rows containing the text in any cell.
+     *
+     * @param lowerCaseText the lower-cased text to search
+     * @param candidates    the rows to search in, e.g. the rows matched by a part of the text, or null for all rows
+     * @param isCancelled   checked periodically to stop the outdated search
+     * @return the matched rows, or null if cancelled
+     */
+    @Nullable
+    BitSet search(@Nonnull String lowerCaseText, @Nullable BitSet candidates, @Nonnull BooleanSupplier isCancelled) {
+        // read the row count first, the index of the counted rows is published with it.
+        // rows may be appended meanwhile, which are searched separately
+        final int rowCount = this.rowCount;
+        final String[] index = this.searchIndex;
+        final int rows = Math.min(rowCount, index.length);
+        final BitSet matches = new BitSet(rows);
+        int row = candidates == null ? 0 : candidates.nextSetBit(0);
+        for (int checked = 0; row >= 0 && row < rows; checked++) {
+            if ((checked & 0x3FF) == 0 && isCancelled.getAsBoolean()) {
+                return null;
+            }
+            if (index[row] != null && index[row].contains(lowerCaseText)) {
+                matches.set(row);
+            }
+            row = candidates == null ? row + 1 : candidates.nextSetBit(row + 1);
         }
-        return this.logsTableRows.get(rowIndex).getRow().get(columnIndex).getValueAsString();
+        return matches;
     }
 
     @Override
@@ -113,15 +173,55 @@ public class LogTableModel implements TableModel {
         if (value != null && !(value instanceof String)) {
             throw new IllegalArgumentException(message("function.appSettings.validate.illegalType"));
         }
-        while (rowIndex >= this.logsTableRows.size()) {
-            final LogsTableCell newCell = new LogsTableCell(columnNames.get(columnIndex), LogsColumnType.STRING, columnIndex, rowIndex, value);
-            final LogsTableRow newRow = new LogsTableRow(rowIndex, List.of(newCell));
-            this.logsTableRows.add(newRow);
+        if (isRowInvalid(rowIndex)) {
+            return;
+        }
+        final Column column = this.columns.get(columnIndex);
+        final Column updated = column.withText(rowIndex, (String) value, this.rowCount, this.capacity);
+        if (updated != column) {
+            this.columns.set(columnIndex, updated);
+            this.columnClasses.set(columnIndex, LogsColumnType.STRING);
         }
-        this.logsTableRows.get(rowIndex).getRow().add(columnIndex, new LogsTableCell(columnNames.get(columnIndex), LogsColumnType.STRING, columnIndex, rowIndex, value));
+        this.searchIndex[rowIndex] = this.buildSearchText(rowIndex);
         fireTableChanged();
     }
 
+    /**
+     * append the rows of the next page, must be called in the UI thread as the table reads the model.
+     * the page model is expected to be built in background from the same query, so that only arrays are copied here.
+     */
+    public void append(@Nonnull LogTableModel page) {
+        if (page.rowCount == 0) {
+            return;
+        }
+        final boolean structureChanged = this.columns.isEmpty();
+        if (structureChanged) {
+            this.columnNames.addAll(page.columnNames);
+            this.columnClasses.addAll(page.columnClasses);
+            page.columnClasses.forEach(type -> this.columns.add(Column.create(type, 0)));
+        }
+        if (page.columns.size() != this.columns.size()) {
+            throw new IllegalArgumentException("columns of the page don't match the table");
+        }
+        final int first = this.rowCount;
+        this.ensureCapacity(this.rowCount + page.rowCount);
+        for (int columnIndex = 0; columnIndex < this.columns.size(); columnIndex++) {
+            Column target = this.columns.get(columnIndex);
+            final Column source = page.columns.get(columnIndex);
+            if (target.getClass() != source.getClass()) {
+                target = target.toStringColumn(this.rowCount, this.capacity);
+                this.columns.set(columnIndex, target);
+                this.columnClasses.set(columnIndex, LogsColumnType.STRING);
+            }
+            target.copy(source, page.rowCount, this.rowCount);
+        }
+        System.arraycopy(page.searchIndex, 0, this.searchIndex, this.rowCount, page.rowCount);
+        this.rowCount += page.rowCount;
+        final TableModelEvent event = structureChanged ? new TableModelEvent(this, TableModelEvent.HEADER_ROW) :
+            new TableModelEvent(this, first, this.rowCount - 1, TableModelEvent.ALL_COLUMNS, TableModelEvent.INSERT);
+        new ArrayList<>(this.tableModelListenerList).forEach(listener -> listener.tableChanged(event));
+    }
+
     @Override
     public void addTableModelListener(TableModelListener l) {
         tableModelListenerList.add(l);
@@ -134,7 +234,11 @@ public class LogTableModel implements TableModel {
 
     public void clear() {
         this.columnNames.clear();
-        this.logsTableRows.clear();
+        this.columnClasses.clear();
+        this.columns.clear();
+        this.rowCount = 0;
+        this.capacity = 0;
+        this.searchIndex = new String[0];
         fireTableChanged();
     }
 
@@ -144,6 +248,294 @@ public class LogTableModel implements TableModel {
     }
 
     private boolean isRowInvalid(int row) {
-        return row < 0 || row >= this.logsTableRows.size();
+        return row < 0 || row >= this.rowCount;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= this.capacity) {
+            return;
+        }
+        this.capacity = Math.max(rows, this.capacity + (this.capacity >> 1));
+        this.columns.forEach(c -> c.grow(this.capacity));
+        this.searchIndex = Arrays.copyOf(this.searchIndex, this.capacity);
+    }
+
+    private void buildSearchIndex() {
+        this.searchIndex = new String[this.rowCount];
+        for (int rowIndex = 0; rowIndex < this.rowCount; rowIndex++) {
+            this.searchIndex[rowIndex] = this.buildSearchText(rowIndex);
+        }
+    }
+
+    @Nonnull
+    private String buildSearchText(int rowIndex) {
+        final StringBuilder text = new StringBuilder();
+        for (final Column column : this.columns) {
+            final Object value = column.get(rowIndex);
+            text.append(value == null ? StringUtils.EMPTY : value.toString().toLowerCase()).append(CELL_SEPARATOR);
+        }
+        return text.toString();
+    }
+
+    private abstract static class Column {
+        static Column create(LogsColumnType type, int rows) {
+            if (LogsColumnType.BOOL.equals(type)) {
+                return new BoolColumn(rows);
+            }
+            if (LogsColumnType.INT.equals(type)) {
+                return new IntColumn(rows);
+            }
+            if (LogsColumnType.LONG.equals(type)) {
+                return new LongColumn(rows);
+            }
+            if (LogsColumnType.DATETIME.equals(type)) {
+                return new DateTimeColumn(rows);
+            }
+            return new StringColumn(rows);
+        }
+
+        abstract void load(int row, LogsTableCell cell);
+
+        @Nullable
+        abstract Object get(int row);
+
+        @Nullable
+        abstract String getRawText(int row);
+
+        abstract void grow(int capacity);
+
+        /**
+         * copy the first rows of the source column of the same type to this column from the offset.
+         */
+        abstract void copy(Column source, int rows, int offset);
+
+        StringColumn toStringColumn(int rows, int capacity) {
+            final StringColumn column = new StringColumn(capacity);
+            for (int i = 0; i < rows; i++) {
+                column.values[i] = Optional.ofNullable(this.get(i)).map(Object::toString).orElse(null);
+            }
+            return column;
+        }
+
+        /**
+         * set the text of the cell, a typed column is converted into a string column.
+         */
+        Column withText(int row, @Nullable String text, int rows, int capacity) {
+            final StringColumn column = this.toStringColumn(rows, capacity);
+            column.values[row] = text;
+            return column;
+        }
+    }
+
+    private static class StringColumn extends Column {
+        private String[] values;
+
+        StringColumn(int rows) {
+            this.values = new String[rows];
+        }
+
+        @Override
+        void load(int row, LogsTableCell cell) {
+            this.values[row] = cell.getValueAsString();
+        }
+
+        @Override
+        Object get(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        String getRawText(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        void grow(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        void copy(Column source, int rows, int offset) {
+            if (source instanceof StringColumn) {
+                System.arraycopy(((StringColumn) source).values, 0, this.values, offset, rows);
+                return;
+            }
+            // a typed column converted into a string column, e.g. by editing
+            for (int i = 0; i < rows; i++) {
+                this.values[offset + i] = Optional.ofNullable(source.get(i)).map(Object::toString).orElse(null);
+            }
+        }
+
+        @Override
+        Column withText(int row, @Nullable String text, int rows, int capacity) {
+            this.values[row] = text;
+            return this;
+        }
+    }
+
+    private static class DateTimeColumn extends Column {
+        private String[] raw;
+        private String[] formatted;
+
+        DateTimeColumn(int rows) {
+            this.raw = new String[rows];
+            this.formatted = new String[rows];
+        }
+
+        @Override
+        void load(int row, LogsTableCell cell) {
+            this.raw[row] = cell.getValueAsString();
+            final OffsetDateTime dateTime = cell.getValueAsDateTime();
+            this.formatted[row] = Optional.ofNullable(dateTime).map(d -> d.format(DATE_TIME_FORMATTER)).orElse(StringUtils.EMPTY);
+        }
+
+        @Override
+        Object get(int row) {
+            return this.formatted[row];
+        }
+
+        @Override
+        String getRawText(int row) {
+            return this.raw[row];
+        }
+
+        @Override
+        void grow(int capacity) {
+            this.raw = Arrays.copyOf(this.raw, capacity);
+            this.formatted = Arrays.copyOf(this.formatted, capacity);
+        }
+
+        @Override
+        void copy(Column source, int rows, int offset) {
+            System.arraycopy(((DateTimeColumn) source).raw, 0, this.raw, offset, rows);
+            System.arraycopy(((DateTimeColumn) source).formatted, 0, this.formatted, offset, rows);
+        }
+    }
+
+    private static class IntColumn extends Column {
+        private int[] values;
+        private final BitSet nulls = new BitSet();
+
+        IntColumn(int rows) {
+            this.values = new int[rows];
+        }
+
+        @Override
+        void load(int row, LogsTableCell cell) {
+            final Integer value = cell.getValueAsInteger();
+            if (value == null) {
+                this.nulls.set(row);
+            } else {
+                this.values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return this.nulls.get(row) ? null : this.values[row];
+        }
+
+        @Override
+        String getRawText(int row) {
+            return this.nulls.get(row) ? null : String.valueOf(this.values[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        void copy(Column source, int rows, int offset) {
+            final IntColumn column = (IntColumn) source;
+            System.arraycopy(column.values, 0, this.values, offset, rows);
+            copyBits(column.nulls, this.nulls, rows, offset);
+        }
+    }
+
+    private static class LongColumn extends Column {
+        private long[] values;
+        private final BitSet nulls = new BitSet();
+
+        LongColumn(int rows) {
+            this.values = new long[rows];
+        }
+
+        @Override
+        void load(int row, LogsTableCell cell) {
+            final Long value = cell.getValueAsLong();
+            if (value == null) {
+                this.nulls.set(row);
+            } else {
+                this.values[row] = value;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return this.nulls.get(row) ? null : this.values[row];
+        }
+
+        @Override
+        String getRawText(int row) {
+            return this.nulls.get(row) ? null : String.valueOf(this.values[row]);
+        }
+
+        @Override
+        void grow(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        void copy(Column source, int rows, int offset) {
+            final LongColumn column = (LongColumn) source;
+            System.arraycopy(column.values, 0, this.values, offset, rows);
+            copyBits(column.nulls, this.nulls, rows, offset);
+        }
+    }
+
+    private static class BoolColumn extends Column {
+        private final BitSet values = new BitSet();
+        private final BitSet nulls = new BitSet();
+
+        BoolColumn(int rows) {
+        }
+
+        @Override
+        void load(int row, LogsTableCell cell) {
+            final Boolean value = cell.getValueAsBoolean();
+            if (value == null) {
+                this.nulls.set(row);
+            } else {
+                this.values.set(row, value);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return this.nulls.get(row) ? null : this.values.get(row);
+        }
+
+        @Override
+        String getRawText(int row) {
+            return this.nulls.get(row) ? null : String.valueOf(this.values.get(row));
+        }
+
+        @Override
+        void grow(int capacity) {
+        }
+
+        @Override
+        void copy(Column source, int rows, int offset) {
+            final BoolColumn column = (BoolColumn) source;
+            copyBits(column.values, this.values, rows, offset);
+            copyBits(column.nulls, this.nulls, rows, offset);
+        }
+    }
+
+    private static void copyBits(BitSet source, BitSet target, int rows, int offset) {
+        for (int i = source.nextSetBit(0); i >= 0 && i < rows; i = source.nextSetBit(i + 1)) {
+            target.set(offset + i);
+        }
     }
 }
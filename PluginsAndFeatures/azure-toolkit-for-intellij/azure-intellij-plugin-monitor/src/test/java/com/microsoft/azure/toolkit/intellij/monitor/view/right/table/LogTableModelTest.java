@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.monitor.view.right.table;
+
+import com.azure.monitor.query.models.LogsColumnType;
+import com.azure.monitor.query.models.LogsTableCell;
+import com.azure.monitor.query.models.LogsTableRow;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LogTableModelTest {
+    private static final int PAGE_SIZE = 1000;
+    private static final String[] LEVELS = {"Information", "Warning", "Error", "Verbose"};
+
+    @Test
+    public void testLoad10kRows() {
+        this.checkLoadAndSearch(10_000);
+    }
+
+    @Test
+    public void testLoad100kRows() {
+        this.checkLoadAndSearch(100_000);
+    }
+
+    @Test
+    public void testSearchIsCancelled() {
+        final LogTableModel model = new LogTableModel(createRows(10_000));
+
+        assertNull(model.search("error", null, () -> true));
+    }
+
+    private void checkLoadAndSearch(int rows) {
+        final List<LogsTableRow> result = createRows(rows);
+        final LogTableModel model = new LogTableModel(result);
+
+        assertEquals(rows, model.getRowCount());
+        assertEquals(6, model.getColumnCount());
+        assertEquals(Long.class, model.getColumnClass(3));
+        assertEquals(Integer.class, model.getColumnClass(4));
+        assertEquals(Boolean.class, model.getColumnClass(5));
+        final int last = rows - 1;
+        assertEquals("Error", model.getValueAt(2, 1));
+        assertEquals("request " + last + " handled by instance-" + (last % 7), model.getValueAt(last, 2));
+        assertEquals((long) (last % 1000), model.getValueAt(last, 3));
+        assertEquals(200 + last % 5, model.getValueAt(last, 4));
+        assertEquals(last % 5 != 0, model.getValueAt(last, 5));
+        assertEquals(result.get(last).getRow().get(0).getValueAsString(), model.getRawTextAt(last, 0));
+        assertNull(model.getValueAt(rows, 0));
+
+        // the paged loading builds each page separately and appends it, which must end up with the same model
+        final LogTableModel paged = new LogTableModel();
+        for (int from = 0; from < rows; from += PAGE_SIZE) {
+            paged.append(new LogTableModel(result.subList(from, Math.min(rows, from + PAGE_SIZE))));
+        }
+        assertEquals(rows, paged.getRowCount());
+        for (int row = 0; row < rows; row++) {
+            assertEquals(model.getSearchText(row), paged.getSearchText(row));
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                assertEquals(model.getValueAt(row, column), paged.getValueAt(row, column));
+            }
+        }
+
+        // typing "error" letter by letter searches only in the rows matched by the previous text
+        final String query = "error";
+        BitSet matches = null;
+        for (int length = 1; length <= query.length(); length++) {
+            final String text = query.substring(0, length);
+            matches = paged.search(text, matches, () -> false);
+            assertNotNull(matches);
+            assertEquals(model.search(text, null, () -> false), matches);
+        }
+        assertEquals(rows / LEVELS.length, matches.cardinality());
+        assertEquals(2, matches.nextSetBit(0));
+    }
+
+    private static List<LogsTableRow> createRows(int rows) {
+        final OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        final List<LogsTableRow> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            final List<LogsTableCell> cells = new ArrayList<>();
+            cells.add(new LogsTableCell("TimeGenerated", LogsColumnType.DATETIME, 0, i, now.minusSeconds(i).toString()));
+            cells.add(new LogsTableCell("Level", LogsColumnType.STRING, 1, i, LEVELS[i % LEVELS.length]));
+            cells.add(new LogsTableCell("Message", LogsColumnType.STRING, 2, i, "request " + i + " handled by instance-" + (i % 7)));
+            cells.add(new LogsTableCell("DurationMs", LogsColumnType.LONG, 3, i, (long) (i % 1000)));
+            cells.add(new LogsTableCell("StatusCode", LogsColumnType.INT, 4, i, 200 + (i % 5)));
+            cells.add(new LogsTableCell("Success", LogsColumnType.BOOL, 5, i, i % 5 != 0));
+            result.add(new LogsTableRow(i, cells));
+        }
+        return result;
+    }
+}
@@ -7,4 +7,5 @@ dependencies {
     implementation("com.microsoft.azure:azure-toolkit-ide-common-lib")
     implementation("com.microsoft.azure:azure-toolkit-ide-redis-lib")
     implementation("redis.clients:jedis:3.6.3")
+    testImplementation("junit:junit:4.13.2")
 }
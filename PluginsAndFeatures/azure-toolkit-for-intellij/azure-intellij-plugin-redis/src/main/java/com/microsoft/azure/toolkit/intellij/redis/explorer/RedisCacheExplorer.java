@@ -6,6 +6,7 @@
 package com.microsoft.azure.toolkit.intellij.redis.explorer;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.microsoft.azure.toolkit.intellij.common.AzureActionButton;
 import com.microsoft.azure.toolkit.intellij.common.properties.AzResourcePropertiesEditor;
@@ -13,11 +14,13 @@ import com.microsoft.azure.toolkit.lib.common.action.Action;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
 import com.microsoft.azure.toolkit.lib.common.task.AzureTaskManager;
 import com.microsoft.azure.toolkit.redis.RedisCache;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
 
 import javax.annotation.Nonnull;
@@ -31,6 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -43,7 +47,10 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
     public static final String INSIGHT_NAME = "AzurePlugin.IntelliJ.Editor.RedisCacheExplorer";
     private final RedisCache redis;
 
-    private String currentCursor;
+    private final RedisKeyScanner scanner;
+    private final KeyListModel keyListModel = new KeyListModel();
+    @Nullable
+    private RedisKeyScanner.ScanTask scanTask;
     private String lastChosenKey;
 
     private static final String[] LIST_TITLE = new String[]{" Index", " Item"};
@@ -55,7 +62,6 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
     private static final int TABLE_HEADER_FONT_SIZE = 16;
     private static final int SPLIT_PANE_DIVIDER_SIZE = 2;
     private static final double SPLIT_PANE_WEIGHT = 0.4;
-    private static final int DEFAULT_KEY_COUNT = 50;
     private static final int DEFAULT_REDIS_DB_NUMBER = 16;
     private static final int MAX_DATABASE_NUMBER = 64;
     private static final long DEFAULT_RANGE_START = 0;
@@ -70,7 +76,7 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
     private JComboBox<String> cbActionType;
     private JTextField txtKeyPattern;
     private AzureActionButton<RedisCache> btnSearch;
-    private JList<String> lstKey;
+    private JList<RedisKeyScanner.KeyInfo> lstKey;
     private AzureActionButton<RedisCache> btnScanMore;
     private JTable tblInnerValue;
     private JTextArea txtStringValue;
@@ -87,7 +93,7 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         this.redis = redis;
         final AzureTaskManager manager = AzureTaskManager.getInstance();
 
-        currentCursor = SCAN_POINTER_START;
+        scanner = new RedisKeyScanner(() -> this.redis.getJedisPool().getResource(), manager::runOnPooledThread);
         lastChosenKey = "";
 
         cbActionType.addItem(ACTION_SCAN);
@@ -106,6 +112,11 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
 
         progressBar.setIndeterminate(true);
 
+        // only the visible cells are rendered, with the fixed cell height the list doesn't measure all the keys
+        lstKey.setModel(keyListModel);
+        lstKey.setPrototypeCellValue(new RedisKeyScanner.KeyInfo("prototype-key", "STRING", 1024L, -1L));
+        lstKey.setCellRenderer(new KeyCellRenderer());
+
         cbDatabase.addActionListener(event -> {
             if (Objects.equals(cbActionType.getSelectedItem(), ACTION_GET)) {
                 return;
@@ -116,14 +127,14 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         });
 
         lstKey.addListSelectionListener(event -> {
-            final String selectedKey = lstKey.getSelectedValue();
-            if (selectedKey == null || selectedKey.equals(lastChosenKey)) {
+            final RedisKeyScanner.KeyInfo selected = lstKey.getSelectedValue();
+            if (selected == null || selected.getKey().equals(lastChosenKey) || event.getValueIsAdjusting()) {
                 return;
             }
             RedisCacheExplorer.this.setWidgetEnableStatus(false);
-            lastChosenKey = selectedKey;
+            lastChosenKey = selected.getKey();
             manager.runOnPooledThread(() -> {
-                final Pair<String, ArrayList<String[]>> data = doWithRedis(jedis -> getValueByKey(jedis, selectedKey));
+                final Pair<String, ArrayList<String[]>> data = doWithRedis(jedis -> getValueByKey(jedis, selected.getKey(), selected.getType()));
                 manager.runLater(() -> RedisCacheExplorer.this.showContent(data));
             });
         });
@@ -139,14 +150,7 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
                 .withAuthRequired(true)
                 .withSource(this.redis)
                 .withIdParam(this.redis.getName())
-                .withHandler(ignore -> {
-                    RedisCacheExplorer.this.setWidgetEnableStatus(false);
-                    manager.runOnPooledThread(() -> {
-                        final ScanResult<String> r = doWithRedis(jedis -> jedis.scan(currentCursor, new ScanParams()
-                                .match(txtKeyPattern.getText()).count(DEFAULT_KEY_COUNT)));
-                        manager.runLater(() -> RedisCacheExplorer.this.showScanResult(r));
-                    });
-                });
+                .withHandler(ignore -> manager.runLater(RedisCacheExplorer.this::scanMore));
         btnScanMore.setAction(scanMoreAction);
 
         txtKeyPattern.addActionListener(event -> onBtnSearchClick());
@@ -187,18 +191,51 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         }
     }
 
-    public void showScanResult(ScanResult<String> result) {
-        lstKey.removeAll();
-        final DefaultListModel<String> listModel = new DefaultListModel<>();
-        final List<String> keys = result.getResult();
-        Collections.sort(keys);
-        for (final String key : keys) {
-            listModel.addElement(key);
-        }
-        lstKey.setModel(listModel);
-        currentCursor = result.getCursor();
-        setWidgetEnableStatus(true);
+    /**
+     * scan the keys in background from the beginning, the key list is filled page by page.
+     */
+    private void startScan(String pattern) {
+        keyListModel.clear();
         clearValueArea();
+        lastChosenKey = "";
+        final int database = Math.max(0, cbDatabase.getSelectedIndex());
+        this.scanTask = scanner.scan(database, pattern, this::onKeysScanned, this::onScanStopped);
+        this.setScanning(true);
+    }
+
+    private void scanMore() {
+        final RedisKeyScanner.ScanTask task = this.scanTask;
+        if (task == null || !task.isFinished() || task.isCompleted()) {
+            return;
+        }
+        this.scanTask = scanner.scanMore(task);
+        this.setScanning(true);
+    }
+
+    private void onKeysScanned(RedisKeyScanner.ScanTask task, List<RedisKeyScanner.KeyInfo> keys) {
+        AzureTaskManager.getInstance().runLater(() -> {
+            // drop the pages of the cancelled scans
+            if (task == this.scanTask && !task.isCancelled()) {
+                keyListModel.addAll(keys);
+            }
+        });
+    }
+
+    private void onScanStopped(RedisKeyScanner.ScanTask task) {
+        AzureTaskManager.getInstance().runLater(() -> {
+            if (task != this.scanTask) {
+                return;
+            }
+            this.setScanning(false);
+            Optional.ofNullable(task.getError()).ifPresent(e -> AzureMessager.getMessager().error(e));
+        });
+    }
+
+    private void setScanning(boolean scanning) {
+        pnlProgressBar.setVisible(scanning);
+        final RedisKeyScanner.ScanTask task = this.scanTask;
+        btnScanMore.setEnabled(!scanning && Objects.equals(cbActionType.getSelectedItem(), ACTION_SCAN)
+            && task != null && !task.isCompleted());
     }
 
     public void showContent(Pair<String, ArrayList<String[]>> val) {
@@ -209,7 +246,7 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         final String type = val.getKey();
         final ArrayList<String[]> value = val.getValue();
         lblTypeValue.setText(type);
-        lblKeyValue.setText(lstKey.getSelectedValue());
+        lblKeyValue.setText(Optional.ofNullable(lstKey.getSelectedValue()).map(RedisKeyScanner.KeyInfo::getKey).orElse(""));
         if (Objects.equals(type, "STRING")) {
             if (value.size() > 0 && value.get(0).length > 0) {
                 txtStringValue.setText(value.get(0)[0]);
@@ -242,30 +279,22 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         setWidgetEnableStatus(true);
     }
 
-    public void updateKeyList() {
-        final DefaultListModel<String> listModel = (DefaultListModel<String>) lstKey.getModel();
-        listModel.removeAllElements();
-        listModel.addElement(txtKeyPattern.getText());
-        lstKey.setModel(listModel);
+    public void updateKeyList(@Nullable String type) {
+        keyListModel.clear();
+        keyListModel.addAll(Collections.singletonList(new RedisKeyScanner.KeyInfo(txtKeyPattern.getText(), type, null, null)));
+        lastChosenKey = txtKeyPattern.getText();
         lstKey.setSelectedIndex(0);
     }
 
     public void getKeyFail() {
-        final DefaultListModel<String> listModel = (DefaultListModel<String>) lstKey.getModel();
-        listModel.removeAllElements();
+        keyListModel.clear();
         setWidgetEnableStatus(true);
         clearValueArea();
     }
 
     private void onDataBaseSelect() {
-        final AzureTaskManager manager = AzureTaskManager.getInstance();
-        manager.runOnPooledThread(() -> {
-            final ScanResult<String> r = doWithRedis(jedis -> {
-                jedis.select(cbDatabase.getSelectedIndex());
-                return jedis.scan(SCAN_POINTER_START, new ScanParams().match(DEFAULT_SCAN_PATTERN).count(DEFAULT_KEY_COUNT));
-            });
-            manager.runLater(() -> RedisCacheExplorer.this.showScanResult(r));
-        });
+        this.startScan(DEFAULT_SCAN_PATTERN);
+        this.setWidgetEnableStatus(true);
     }
 
     private void setWidgetEnableStatus(boolean enabled) {
@@ -275,8 +304,11 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         btnSearch.setEnabled(enabled);
         lstKey.setEnabled(enabled);
         cbActionType.setEnabled(enabled);
-        final String actionType = (String) cbActionType.getSelectedItem();
-        btnScanMore.setEnabled(enabled && Objects.equals(actionType, ACTION_SCAN));
+        final RedisKeyScanner.ScanTask task = this.scanTask;
+        final boolean scanning = task != null && !task.isFinished();
+        pnlProgressBar.setVisible(!enabled || scanning);
+        btnScanMore.setEnabled(enabled && !scanning && Objects.equals(cbActionType.getSelectedItem(), ACTION_SCAN)
+            && task != null && !task.isCompleted());
     }
 
     private void clearValueArea() {
@@ -297,22 +329,20 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         final String actionType = (String) cbActionType.getSelectedItem();
         final String key = txtKeyPattern.getText();
         if (Objects.equals(actionType, ACTION_GET)) {
+            scanner.cancel();
             final AzureTaskManager manager = AzureTaskManager.getInstance();
             manager.runOnPooledThread(() -> {
                 final Pair<String, ArrayList<String[]>> result = doWithRedis(jedis ->
-                    jedis.exists(key) ? getValueByKey(jedis, key) : Pair.of("", new ArrayList<>()));
-                this.updateKeyList();
-                this.showContent(result);
+                    jedis.exists(key) ? getValueByKey(jedis, key, null) : Pair.of("", new ArrayList<>()));
+                manager.runLater(() -> {
+                    this.updateKeyList(Optional.ofNullable(result).map(Pair::getKey).orElse(null));
+                    this.showContent(result);
+                });
             });
         } else if (Objects.equals(actionType, ACTION_SCAN)) {
-            final AzureTaskManager manager = AzureTaskManager.getInstance();
-            manager.runOnPooledThread(() -> {
-                final ScanResult<String> r = doWithRedis(jedis -> jedis.scan(SCAN_POINTER_START, new ScanParams().match(key).count(DEFAULT_KEY_COUNT)));
-                manager.runLater(() -> RedisCacheExplorer.this.showScanResult(r));
-            });
-            currentCursor = SCAN_POINTER_START;
+            this.startScan(key);
+            this.setWidgetEnableStatus(true);
         }
-        lastChosenKey = "";
     }
 
     @Override
@@ -362,10 +392,27 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         }
     }
 
+    /**
+     * @param knownType the type looked up by the scan, to save a round trip
+     */
     @Nullable
-    private Pair<String, ArrayList<String[]>> getValueByKey(Jedis jedis, String key) {
+    private Pair<String, ArrayList<String[]>> getValueByKey(Jedis jedis, String key, @Nullable String knownType) {
         jedis.select(cbDatabase.getSelectedIndex());
-        final String type = jedis.type(key).toUpperCase();
+        if (knownType != null) {
+            try {
+                return getValueByType(jedis, key, knownType);
+            } catch (final JedisDataException e) {
+                // the key may be re-created with another type since scanned
+                if (!StringUtils.startsWith(e.getMessage(), "WRONGTYPE")) {
+                    throw e;
+                }
+            }
+        }
+        return getValueByType(jedis, key, jedis.type(key).toUpperCase());
+    }
+
+    @Nullable
+    private Pair<String, ArrayList<String[]>> getValueByType(Jedis jedis, String key, String type) {
         final ArrayList<String[]> columnData = new ArrayList<>();
         switch (type) {
             case "STRING":
@@ -405,6 +452,63 @@ public class RedisCacheExplorer extends AzResourcePropertiesEditor<RedisCache> {
         }
     }
 
+    @Override
+    public void dispose() {
+        scanner.cancel();
+        super.dispose();
+    }
+
+    private static class KeyListModel extends AbstractListModel<RedisKeyScanner.KeyInfo> {
+        private final List<RedisKeyScanner.KeyInfo> keys = new ArrayList<>();
+
+        @Override
+        public int getSize() {
+            return keys.size();
+        }
+
+        @Override
+        public RedisKeyScanner.KeyInfo getElementAt(int index) {
+            return keys.get(index);
+        }
+
+        void addAll(List<RedisKeyScanner.KeyInfo> page) {
+            if (page.isEmpty()) {
+                return;
+            }
+            final int start = keys.size();
+            keys.addAll(page);
+            fireIntervalAdded(this, start, keys.size() - 1);
+        }
+
+        void clear() {
+            final int size = keys.size();
+            if (size > 0) {
+                keys.clear();
+                fireIntervalRemoved(this, 0, size - 1);
+            }
+        }
+    }
+
+    private static class KeyCellRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            final Component component = super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            if (value instanceof RedisKeyScanner.KeyInfo) {
+                final RedisKeyScanner.KeyInfo info = (RedisKeyScanner.KeyInfo) value;
+                final StringBuilder text = new StringBuilder(info.getKey());
+                final List<String> details = new ArrayList<>();
+                Optional.ofNullable(info.getType()).filter(StringUtils::isNotBlank).ifPresent(details::add);
+                Optional.ofNullable(info.getMemoryUsage()).map(StringUtil::formatFileSize).ifPresent(details::add);
+                Optional.ofNullable(info.getTtl()).filter(ttl -> ttl >= 0).map(ttl -> "TTL " + ttl + "s").ifPresent(details::add);
+                if (!details.isEmpty()) {
+                    text.append("  (").append(String.join(", ", details)).append(")");
+                }
+                setText(text.toString());
+            }
+            return component;
+        }
+    }
+
     @Override
     protected void onResourceDeleted() {
         this.manager.closeEditor(this.redis, project);
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.redis.explorer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static redis.clients.jedis.ScanParams.SCAN_POINTER_START;
+
+/**
+ * Background key scanner of a redis database. It follows the scan cursor continuously and looks up the type, memory
+ * usage and ttl of each page of keys in one pipelined round trip. The pages are delivered incrementally, and a scan
+ * stops when it's cancelled, the cursor is exhausted or the key limit is reached, where it can be continued later.
+ */
+@Slf4j
+public class RedisKeyScanner {
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int DEFAULT_KEY_LIMIT = 50_000;
+
+    private final Supplier<Jedis> jedisSupplier;
+    private final Executor executor;
+    @Nullable
+    private volatile ScanTask current;
+    // MEMORY USAGE is not supported by old redis servers or may be disabled
+    private volatile boolean memoryUsageSupported = true;
+
+    public RedisKeyScanner(@Nonnull Supplier<Jedis> jedisSupplier, @Nonnull Executor executor) {
+        this.jedisSupplier = jedisSupplier;
+        this.executor = executor;
+    }
+
+    /**
+     * start a new scan from the beginning, the running scan is cancelled.
+     */
+    @Nonnull
+    public ScanTask scan(int database, @Nonnull String pattern, @Nonnull BiConsumer<ScanTask, List<KeyInfo>> onPage, @Nonnull Consumer<ScanTask> onStopped) {
+        return this.start(new ScanTask(database, pattern, SCAN_POINTER_START, DEFAULT_PAGE_SIZE, DEFAULT_KEY_LIMIT, onPage, onStopped));
+    }
+
+    /**
+     * continue the stopped scan from its cursor for another key limit.
+     */
+    @Nonnull
+    public ScanTask scanMore(@Nonnull ScanTask stopped) {
+        return this.start(new ScanTask(stopped.database, stopped.pattern, stopped.getCursor(), stopped.pageSize, stopped.keyLimit,
+            stopped.onPage, stopped.onStopped));
+    }
+
+    public void cancel() {
+        final ScanTask task = this.current;
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    @Nullable
+    public ScanTask getCurrent() {
+        return this.current;
+    }
+
+    @Nonnull
+    private synchronized ScanTask start(@Nonnull ScanTask task) {
+        this.cancel();
+        this.current = task;
+        this.executor.execute(() -> {
+            try (final Jedis jedis = this.jedisSupplier.get()) {
+                task.run(jedis);
+            } catch (final JedisException e) {
+                task.error = e;
+                log.warn("failed to scan redis keys with pattern {}", task.pattern, e);
+            } finally {
+                task.finished = true;
+                task.onStopped.accept(task);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * look up the type, memory usage and ttl of the keys in one pipelined round trip.
+     */
+    @Nonnull
+    List<KeyInfo> lookup(@Nonnull Jedis jedis, @Nonnull List<String> keys) {
+        final boolean withMemory = this.memoryUsageSupported;
+        final Pipeline pipeline = jedis.pipelined();
+        final List<Response<String>> types = new ArrayList<>(keys.size());
+        final List<Response<Long>> ttls = new ArrayList<>(keys.size());
+        final List<Response<Object>> memories = new ArrayList<>(keys.size());
+        for (final String key : keys) {
+            types.add(pipeline.type(key));
+            ttls.add(pipeline.ttl(key));
+            if (withMemory) {
+                memories.add(pipeline.sendCommand(Protocol.Command.MEMORY, "USAGE", key));
+            }
+        }
+        pipeline.sync();
+        final List<KeyInfo> result = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            final String type = get(types.get(i));
+            final Long ttl = get(ttls.get(i));
+            Long memory = null;
+            if (withMemory) {
+                try {
+                    memory = (Long) memories.get(i).get();
+                } catch (final JedisException e) {
+                    this.memoryUsageSupported = false;
+                }
+            }
+            result.add(new KeyInfo(keys.get(i), type == null ? null : type.toUpperCase(), memory, ttl));
+        }
+        return result;
+    }
+
+    @Nullable
+    private static <T> T get(@Nonnull Response<T> response) {
+        try {
+            return response.get();
+        } catch (final JedisException e) {
+            return null;
+        }
+    }
+
+    public class ScanTask {
+        @Getter
+        private final int database;
+        @Getter
+        private final String pattern;
+        private final int pageSize;
+        private final int keyLimit;
+        private final BiConsumer<ScanTask, List<KeyInfo>> onPage;
+        private final Consumer<ScanTask> onStopped;
+        @Getter
+        private volatile String cursor;
+        @Getter
+        private volatile int scannedKeys;
+        @Getter
+        private volatile boolean cancelled;
+        @Getter
+        private volatile boolean finished;
+        @Getter
+        @Nullable
+        private volatile JedisException error;
+
+        private ScanTask(int database, String pattern, String cursor, int pageSize, int keyLimit,
+                         BiConsumer<ScanTask, List<KeyInfo>> onPage, Consumer<ScanTask> onStopped) {
+            this.database = database;
+            this.pattern = pattern;
+            this.cursor = cursor;
+            this.pageSize = pageSize;
+            this.keyLimit = keyLimit;
+            this.onPage = onPage;
+            this.onStopped = onStopped;
+        }
+
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        /**
+         * @return true if the cursor is exhausted, false if the scan stopped early and can be continued.
+         */
+        public boolean isCompleted() {
+            return this.finished && this.error == null && Objects.equals(this.cursor, SCAN_POINTER_START);
+        }
+
+        /**
+         * the cancellation is checked between pages, the scanned page is always delivered with the cursor advanced,
+         * so that a continued scan neither repeats nor skips it.
+         */
+        private void run(@Nonnull Jedis jedis) {
+            jedis.select(this.database);
+            final ScanParams params = new ScanParams().match(this.pattern).count(this.pageSize);
+            do {
+                final ScanResult<String> page = jedis.scan(this.cursor, params);
+                final List<String> keys = page.getResult();
+                if (!keys.isEmpty()) {
+                    final List<KeyInfo> infos = lookup(jedis, keys);
+                    infos.sort(Comparator.comparing(KeyInfo::getKey));
+                    this.onPage.accept(this, Collections.unmodifiableList(infos));
+                }
+                this.cursor = page.getCursor();
+                this.scannedKeys += keys.size();
+            } while (!this.cancelled && !Objects.equals(this.cursor, SCAN_POINTER_START) && this.scannedKeys < this.keyLimit);
+        }
+    }
+
+    @Getter
+    public static class KeyInfo {
+        private final String key;
+        @Nullable
+        private final String type;
+        @Nullable
+        private final Long memoryUsage;
+        /**
+         * remaining time to live in seconds, -1 if the key never expires.
+         */
+        @Nullable
+        private final Long ttl;
+
+        public KeyInfo(@Nonnull String key, @Nullable String type, @Nullable Long memoryUsage, @Nullable Long ttl) {
+            this.key = key;
+            this.type = type;
+            this.memoryUsage = memoryUsage;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public String toString() {
+            return this.key;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.redis.explorer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * runs against a locally started redis, e.g. {@code docker run -p 6379:6379 redis}, and is skipped if there is none.
+ * the host and port can be set by the environment variables REDIS_TEST_HOST and REDIS_TEST_PORT.
+ */
+public class RedisKeyScannerTest {
+    private static final int TEST_DATABASE = 15;
+    private static final String PREFIX = "azure-toolkit-scanner-test:";
+
+    private String host;
+    private int port;
+
+    @Before
+    public void setUp() {
+        host = System.getenv().getOrDefault("REDIS_TEST_HOST", "localhost");
+        port = Integer.parseInt(System.getenv().getOrDefault("REDIS_TEST_PORT", "6379"));
+        try (final Jedis jedis = new Jedis(host, port)) {
+            jedis.select(TEST_DATABASE);
+            final Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 1200; i++) {
+                pipeline.set(PREFIX + "string:" + i, "value-" + i);
+            }
+            pipeline.rpush(PREFIX + "list", "a", "b", "c");
+            pipeline.hset(PREFIX + "hash", "field", "value");
+            pipeline.setex(PREFIX + "expiring", 3600, "value");
+            pipeline.sync();
+        } catch (final JedisException e) {
+            Assume.assumeNoException("no local redis available", e);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        try (final Jedis jedis = new Jedis(host, port)) {
+            jedis.select(TEST_DATABASE);
+            final List<String> keys = new ArrayList<>(jedis.keys(PREFIX + "*"));
+            if (!keys.isEmpty()) {
+                jedis.del(keys.toArray(new String[0]));
+            }
+        } catch (final JedisException ignored) {
+            // no local redis
+        }
+    }
+
+    @Test
+    public void scanAllKeysWithDetails() {
+        final List<RedisKeyScanner.KeyInfo> scanned = Collections.synchronizedList(new ArrayList<>());
+        final RedisKeyScanner scanner = new RedisKeyScanner(() -> new Jedis(host, port), Runnable::run);
+        final RedisKeyScanner.ScanTask task = scanner.scan(TEST_DATABASE, PREFIX + "*", (t, page) -> scanned.addAll(page), t -> {
+        });
+
+        Assert.assertTrue(task.isCompleted());
+        Assert.assertEquals(1203, scanned.size());
+        final Map<String, RedisKeyScanner.KeyInfo> byKey = scanned.stream()
+            .collect(Collectors.toMap(RedisKeyScanner.KeyInfo::getKey, Function.identity()));
+        Assert.assertEquals("STRING", byKey.get(PREFIX + "string:1").getType());
+        Assert.assertEquals("LIST", byKey.get(PREFIX + "list").getType());
+        Assert.assertEquals("HASH", byKey.get(PREFIX + "hash").getType());
+        Assert.assertEquals(Long.valueOf(-1), byKey.get(PREFIX + "list").getTtl());
+        Assert.assertTrue(byKey.get(PREFIX + "expiring").getTtl() > 0);
+    }
+
+    @Test
+    public void cancelStopsScanning() {
+        final List<RedisKeyScanner.KeyInfo> scanned = new ArrayList<>();
+        final RedisKeyScanner scanner = new RedisKeyScanner(() -> new Jedis(host, port), Runnable::run);
+        final RedisKeyScanner.ScanTask task = scanner.scan(TEST_DATABASE, PREFIX + "*", (t, page) -> {
+            scanned.addAll(page);
+            t.cancel();
+        }, t -> {
+        });
+
+        Assert.assertTrue(task.isCancelled());
+        Assert.assertFalse(task.isCompleted());
+        Assert.assertTrue(scanned.size() < 1203);
+
+        final RedisKeyScanner.ScanTask more = scanner.scanMore(task);
+        Assert.assertTrue(more.isFinished());
+    }
+
+    @Test
+    public void continueCancelledScanWithoutRepeatingKeys() {
+        final List<String> scanned = new ArrayList<>();
+        final RedisKeyScanner scanner = new RedisKeyScanner(() -> new Jedis(host, port), Runnable::run);
+        final RedisKeyScanner.ScanTask task = scanner.scan(TEST_DATABASE, PREFIX + "*", (t, page) -> {
+            page.forEach(info -> scanned.add(info.getKey()));
+            if (t.getCursor().equals(ScanParams.SCAN_POINTER_START)) {
+                t.cancel(); // cancel the first scan only, during its first page
+            }
+        }, t -> {
+        });
+        Assert.assertTrue(task.isCancelled());
+
+        RedisKeyScanner.ScanTask more = task;
+        while (!more.isCompleted() && more.getError() == null) {
+            more = scanner.scanMore(more);
+        }
+
+        Assert.assertEquals(1203, scanned.size());
+        Assert.assertEquals(1203, scanned.stream().distinct().count());
+    }
+}
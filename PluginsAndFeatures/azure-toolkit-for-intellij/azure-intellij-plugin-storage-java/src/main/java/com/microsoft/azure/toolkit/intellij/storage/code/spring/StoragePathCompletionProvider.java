@@ -39,25 +39,24 @@ import com.microsoft.azure.toolkit.lib.common.telemetry.AzureTelemeter;
 import com.microsoft.azure.toolkit.lib.common.telemetry.AzureTelemetry;
 import com.microsoft.azure.toolkit.lib.storage.IStorageAccount;
 import com.microsoft.azure.toolkit.lib.storage.blob.BlobContainer;
-import com.microsoft.azure.toolkit.lib.storage.blob.BlobContainerModule;
 import com.microsoft.azure.toolkit.lib.storage.blob.IBlobFile;
 import com.microsoft.azure.toolkit.lib.storage.model.StorageFile;
 import com.microsoft.azure.toolkit.lib.storage.share.IShareFile;
 import com.microsoft.azure.toolkit.lib.storage.share.Share;
-import com.microsoft.azure.toolkit.lib.storage.share.ShareModule;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiFunction;
-import java.util.function.Function;
-import java.util.function.Supplier;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
 
 public class StoragePathCompletionProvider extends CompletionProvider<CompletionParameters> {
 
@@ -87,10 +86,8 @@ public class StoragePathCompletionProvider extends CompletionProvider<Completion
                         .withTailText(" " + a.getData().getResourceGroupName())
                         .withIcon(IntelliJAzureIcons.getIcon(AzureIcons.StorageAccount.MODULE))).forEach(result::addElement);
             } else {
-                final List<? extends StorageFile> files = getFiles(fullPrefix, accounts);
                 final String[] parts = result.getPrefixMatcher().getPrefix().trim().split("/", -1);
-                result = result.withPrefixMatcher(parts[parts.length - 1]);
-                AzureTelemeter.info("connector.resources_count.storage_resources_code_completion", ImmutableMap.of("count", files.size() + ""));
+                final CompletionResultSet resultSet = result.withPrefixMatcher(parts[parts.length - 1]);
                 final BiFunction<StorageFile, String, LookupElementBuilder> builder = (file, title) -> LookupElementBuilder.create(title)
                     .withInsertHandler(new MyInsertHandler(title.endsWith("/")))
                     .withBoldness(true)
@@ -98,34 +95,30 @@ public class StoragePathCompletionProvider extends CompletionProvider<Completion
                     .withTypeText(file.getResourceTypeName())
                     .withTailText(" " + Optional.ofNullable(getStorageAccount(file)).map(IStorageAccount::getName).orElse(""))
                     .withIcon(IntelliJAzureIcons.getIcon(getFileIcon(file)));
-                for (final StorageFile file : files) {
-                    result.addElement(builder.apply(file, file.getName()));
+                final Set<String> added = new HashSet<>();
+                final Consumer<List<StorageFile>> addElements = files -> files.stream().filter(f -> added.add(f.getId())).forEach(file -> {
+                    resultSet.addElement(builder.apply(file, file.getName()));
                     if (file.isDirectory()) {
-                        result.addElement(builder.apply(file, file.getName() + "/"));
+                        resultSet.addElement(builder.apply(file, file.getName() + "/"));
                     }
-                }
+                });
+                // show the cached files at once, and the fresh ones as they are loaded
+                final StoragePathIndex index = StoragePathIndex.getInstance();
+                addElements.accept(index.getCachedFiles(fullPrefix, accounts));
+                final List<StorageFile> files = StoragePathIndex.waitFor(index.loadFiles(fullPrefix, accounts), Collections.emptyList());
+                addElements.accept(files);
+                AzureTelemeter.info("connector.resources_count.storage_resources_code_completion", ImmutableMap.of("count", files.size() + ""));
             }
             result.stopHere();
             AzureTelemeter.log(AzureTelemetry.Type.OP_END, OperationBundle.description("boundary/connector.complete_storage_resources_in_string_literal"));
         }
     }
 
+    /**
+     * list the files in the parent directory of the last part of the path, by the shared {@link StoragePathIndex}.
+     */
     public static List<? extends StorageFile> getFiles(String fullPrefix, @Nonnull final List<IStorageAccount> accounts) {
-        final String fixedFullPrefix = fullPrefix.replace("azure-blob://", "").replace("azure-file://", "").trim();
-        final String[] parts = fixedFullPrefix.split("/", -1);
-        final var getModule = fullPrefix.startsWith("azure-blob://") ?
-            (Function<IStorageAccount, BlobContainerModule>) IStorageAccount::getBlobContainerModule :
-            (Function<IStorageAccount, ShareModule>) IStorageAccount::getShareModule;
-        List<? extends StorageFile> files = accounts.stream().map(getModule)
-            .flatMap(m -> emptyIfException(() -> m.list().stream()))
-            .map(r -> ((StorageFile) r)).toList();
-        for (int i = 1; i < parts.length; i++) {
-            final String parentName = parts[i - 1];
-            files = files.stream().filter(f -> f.getName().equalsIgnoreCase(parentName))
-                .filter(StorageFile::isDirectory)
-                .flatMap(f -> emptyIfException(() -> f.getSubFileModule().list().stream())).toList();
-        }
-        return files;
+        return StoragePathIndex.getInstance().getFiles(fullPrefix, accounts);
     }
 
     public static List<Connection<?, ?>> getConnections(Module module) {
@@ -207,12 +200,4 @@ public class StoragePathCompletionProvider extends CompletionProvider<Completion
             }
         }
     }
-
-    private static <T> Stream<T> emptyIfException(Supplier<Stream<T>> func) {
-        try {
-            return func.get();
-        } catch (final Throwable e) {
-            return Stream.empty();
-        }
-    }
 }
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.storage.code.spring;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.microsoft.azure.toolkit.lib.common.event.AzureEventBus;
+import com.microsoft.azure.toolkit.lib.storage.IStorageAccount;
+import com.microsoft.azure.toolkit.lib.storage.model.StorageFile;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Shared index of the remote paths of the connected storage accounts, used by the code completion, annotators,
+ * references and line markers of {@code azure-blob://} and {@code azure-file://} paths. It's a trie of the names of
+ * containers/shares and directories, each level is listed once and cached for {@link #TTL_MILLIS}, or until the resource
+ * is refreshed or changed. Loading of a level is shared by concurrent lookups, and the next level of the matched
+ * directories is prefetched in background. The children of at most {@link #MAX_DIRECTORIES} directories are kept, the
+ * children of the least recently loaded or looked up ones are released, and listed again when they are looked up.
+ */
+@Slf4j
+public class StoragePathIndex {
+    public static final String BLOB_PREFIX = "azure-blob://";
+    public static final String FILE_PREFIX = "azure-file://";
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final int MAX_PREFETCH_DIRECTORIES = 8;
+    private static final int MAX_DIRECTORIES = 1000;
+    private static final long WAIT_INTERVAL_MILLIS = 100;
+    private static final StoragePathIndex INSTANCE = new StoragePathIndex();
+
+    // roots of the accounts, keyed by the account id and the path prefix
+    private final Map<String, Node> roots = new ConcurrentHashMap<>();
+    // directory nodes with children loaded, keyed by the lower-cased resource id, for invalidation by events. the
+    // children of the evicted ones are released, so that the tree under the roots is bounded as well
+    private final Map<String, Node> directories = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Node> eldest) {
+            final boolean evict = this.size() > MAX_DIRECTORIES;
+            if (evict) {
+                eldest.getValue().unload();
+            }
+            return evict;
+        }
+    });
+
+    private StoragePathIndex() {
+        final AzureEventBus.EventListener onResourceChanged = new AzureEventBus.EventListener(e -> this.invalidate(e.getSource()));
+        AzureEventBus.on("resource.refreshed.resource", onResourceChanged);
+        AzureEventBus.on("resource.children_changed.resource", onResourceChanged);
+        AzureEventBus.on("account.logged_out.account", new AzureEventBus.EventListener(e -> this.clear()));
+    }
+
+    public static StoragePathIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * list the files in the parent directory of the last part of the path, the missing or expired levels are loaded
+     * and wait for.
+     */
+    @Nonnull
+    public List<StorageFile> getFiles(@Nonnull String fullPrefix, @Nonnull List<IStorageAccount> accounts) {
+        return this.resolve(fullPrefix, accounts, true);
+    }
+
+    /**
+     * list the cached files in the parent directory of the last part of the path without waiting, the missing or
+     * expired levels are loaded in background and available by following lookups or by {@link #loadFiles}.
+     */
+    @Nonnull
+    public List<StorageFile> getCachedFiles(@Nonnull String fullPrefix, @Nonnull List<IStorageAccount> accounts) {
+        return this.resolve(fullPrefix, accounts, false);
+    }
+
+    /**
+     * load the files in the parent directory of the last part of the path in background.
+     */
+    @Nonnull
+    public CompletableFuture<List<StorageFile>> loadFiles(@Nonnull String fullPrefix, @Nonnull List<IStorageAccount> accounts) {
+        return CompletableFuture.supplyAsync(() -> this.resolve(fullPrefix, accounts, true), AppExecutorUtil.getAppExecutorService());
+    }
+
+    /**
+     * wait for the future until it's done or the current progress is cancelled, e.g. by typing.
+     *
+     * @return the result of the future, or the fallback if it failed or the waiting thread is interrupted.
+     */
+    public static <T> T waitFor(@Nonnull CompletableFuture<T> future, T fallback) {
+        while (true) {
+            try {
+                return future.get(WAIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException e) {
+                ProgressManager.checkCanceled();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fallback;
+            } catch (final ExecutionException e) {
+                return fallback;
+            }
+        }
+    }
+
+    public void clear() {
+        this.roots.clear();
+        this.directories.clear();
+    }
+
+    @Nonnull
+    private List<StorageFile> resolve(@Nonnull String fullPrefix, @Nonnull List<IStorageAccount> accounts, boolean wait) {
+        final boolean isBlob = fullPrefix.startsWith(BLOB_PREFIX);
+        final String[] parts = StringUtils.removeStart(StringUtils.removeStart(fullPrefix, BLOB_PREFIX), FILE_PREFIX).trim().split("/", -1);
+        List<Node> level = accounts.stream().map(a -> this.getRoot(a, isBlob)).toList();
+        for (int i = 0; i < parts.length - 1 && !level.isEmpty(); i++) {
+            final String parentName = parts[i];
+            level = level.stream().flatMap(n -> n.getChildren(wait).stream())
+                .filter(n -> n.name.equalsIgnoreCase(parentName) && n.isDirectory()).toList();
+        }
+        final List<Node> nodes = level.stream().flatMap(n -> n.getChildren(wait).stream()).toList();
+        this.prefetch(nodes, parts[parts.length - 1].trim());
+        return nodes.stream().map(n -> n.file).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * load the next level of the directories starting with the name being typed.
+     */
+    private void prefetch(@Nonnull List<Node> nodes, @Nonnull String namePrefix) {
+        nodes.stream()
+            .filter(n -> n.isDirectory() && StringUtils.startsWithIgnoreCase(n.name, namePrefix) && n.isExpired())
+            .limit(MAX_PREFETCH_DIRECTORIES)
+            .forEach(Node::loadAsync);
+    }
+
+    @Nonnull
+    private Node getRoot(@Nonnull IStorageAccount account, boolean isBlob) {
+        final String key = account.getId().toLowerCase() + (isBlob ? "|" + BLOB_PREFIX : "|" + FILE_PREFIX);
+        return this.roots.computeIfAbsent(key, k -> new Node(null, () -> {
+            final var module = isBlob ? account.getBlobContainerModule() : account.getShareModule();
+            return module.list().stream().map(f -> (StorageFile) f);
+        }, () -> (isBlob ? account.getBlobContainerModule() : account.getShareModule()).refresh()));
+    }
+
+    @Nonnull
+    private Node getNode(@Nonnull StorageFile file) {
+        if (!file.isDirectory()) {
+            return new Node(file, Stream::empty, () -> {
+            });
+        }
+        // reuse the loaded node, so that its children are not listed again
+        return Optional.ofNullable(this.directories.get(file.getId().toLowerCase())).orElseGet(() -> new Node(file,
+            () -> file.getSubFileModule().list().stream().map(f -> (StorageFile) f),
+            () -> file.getSubFileModule().refresh()));
+    }
+
+    /**
+     * mark the children of the refreshed resource to be reloaded, the stale children are still served meanwhile.
+     */
+    private void invalidate(@Nullable Object source) {
+        if (source instanceof IStorageAccount account) {
+            final String id = account.getId().toLowerCase();
+            this.roots.entrySet().stream().filter(e -> e.getKey().startsWith(id + "|")).forEach(e -> e.getValue().invalidate());
+        } else if (source instanceof StorageFile file) {
+            Optional.ofNullable(this.directories.get(file.getId().toLowerCase())).ifPresent(Node::invalidate);
+        }
+    }
+
+    private class Node {
+        @Nullable
+        private final StorageFile file;
+        private final String name;
+        private final Supplier<Stream<StorageFile>> lister;
+        private final Runnable refresher;
+        @Nullable
+        private volatile List<Node> children;
+        private volatile long loadedAt;
+        private volatile boolean invalidated;
+        @Nullable
+        private CompletableFuture<List<Node>> loading;
+
+        Node(@Nullable StorageFile file, Supplier<Stream<StorageFile>> lister, Runnable refresher) {
+            this.file = file;
+            this.name = Objects.isNull(file) ? StringUtils.EMPTY : file.getName();
+            this.lister = lister;
+            this.refresher = refresher;
+        }
+
+        boolean isDirectory() {
+            return Objects.nonNull(this.file) && this.file.isDirectory();
+        }
+
+        boolean isExpired() {
+            return Objects.isNull(this.children) || this.invalidated || System.currentTimeMillis() - this.loadedAt > TTL_MILLIS;
+        }
+
+        void invalidate() {
+            this.invalidated = true;
+        }
+
+        /**
+         * release the children, they are listed again by the next lookup.
+         */
+        void unload() {
+            this.children = null;
+        }
+
+        /**
+         * the children of the node, the stale children are returned as is if not to wait, while they are reloaded.
+         */
+        @Nonnull
+        List<Node> getChildren(boolean wait) {
+            final List<Node> nodes = this.children;
+            if (Objects.nonNull(nodes) && !this.isExpired()) {
+                return nodes;
+            }
+            final CompletableFuture<List<Node>> future = this.loadAsync();
+            final List<Node> stale = Objects.isNull(nodes) ? Collections.<Node>emptyList() : nodes;
+            return wait ? waitFor(future, stale) : stale;
+        }
+
+        @Nonnull
+        synchronized CompletableFuture<List<Node>> loadAsync() {
+            CompletableFuture<List<Node>> future = this.loading;
+            if (Objects.isNull(future)) {
+                final boolean refresh = Objects.nonNull(this.children);
+                this.invalidated = false;
+                future = CompletableFuture.supplyAsync(() -> this.load(refresh), AppExecutorUtil.getAppExecutorService());
+                this.loading = future;
+                // runs inline if the future is done already, so the future is returned from the local variable
+                future.whenComplete((r, e) -> {
+                    synchronized (this) {
+                        this.loading = null;
+                    }
+                });
+            }
+            return future;
+        }
+
+        @Nonnull
+        private List<Node> load(boolean refresh) {
+            try {
+                if (refresh) {
+                    this.refresher.run();
+                }
+                final List<Node> result = this.lister.get().map(StoragePathIndex.this::getNode).toList();
+                this.children = result;
+                this.loadedAt = System.currentTimeMillis();
+                if (Objects.nonNull(this.file)) {
+                    StoragePathIndex.this.directories.put(this.file.getId().toLowerCase(), this);
+                }
+                return result;
+            } catch (final Throwable e) {
+                // keep the stale children if any, and retry by the next lookup
+                log.debug("failed to list storage files of '{}'", this.name, e);
+                return Optional.ofNullable(this.children).orElse(Collections.emptyList());
+            }
+        }
+    }
+}
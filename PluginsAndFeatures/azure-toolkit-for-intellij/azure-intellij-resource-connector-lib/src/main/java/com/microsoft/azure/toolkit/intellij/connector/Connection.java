@@ -87,7 +87,17 @@ public class Connection<R, C> {
         return configuration instanceof IConnectionAware;
     }
 
+    /**
+     * the environment variables of this connection, resolved by {@link ConnectionEnvironmentResolver} and cached for a while.
+     */
     public Map<String, String> getEnvironmentVariables(final Project project) {
+        return ConnectionEnvironmentResolver.getInstance().resolve(project, this);
+    }
+
+    /**
+     * load the environment variables of this connection from the resource, which may fetch keys from Azure.
+     */
+    public Map<String, String> loadEnvironmentVariables(final Project project) {
         final Map<String, String> result = this.resource.initEnv(project, this).entrySet().stream()
             .collect(Collectors.toMap(e -> e.getKey().replaceAll(Connection.ENV_PREFIX, this.getEnvPrefix()), Map.Entry::getValue));
         if (this.getResource().getDefinition() instanceof FunctionSupported<R>) {
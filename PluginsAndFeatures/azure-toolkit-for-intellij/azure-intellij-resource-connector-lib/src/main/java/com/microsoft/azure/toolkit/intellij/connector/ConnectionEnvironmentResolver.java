@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.connector;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.microsoft.azure.toolkit.lib.common.event.AzureEventBus;
+import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
+import com.microsoft.azure.toolkit.lib.common.model.AzResource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the environment variables of resource connections, which usually fetches keys and connection strings from
+ * Azure. The connections are resolved in parallel, and the resolved variables are cached in memory for
+ * {@link #TTL_MILLIS}, encrypted by a key of the current session, until the resource is refreshed or the account signs
+ * out. Variables with blank values, e.g. the password of a database which failed to be loaded, are not cached.
+ */
+@Slf4j
+public class ConnectionEnvironmentResolver {
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final ConnectionEnvironmentResolver INSTANCE = new ConnectionEnvironmentResolver();
+
+    // keyed by the lower-cased resource id and the properties of the connection affecting the variables
+    private final Map<String, CachedEnvironment> cache = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    @Nullable
+    private final SecretKey key;
+
+    private ConnectionEnvironmentResolver() {
+        this.key = createKey();
+        final AzureEventBus.EventListener onResourceChanged = new AzureEventBus.EventListener(e -> this.invalidate(e.getSource()));
+        AzureEventBus.on("resource.refreshed.resource", onResourceChanged);
+        AzureEventBus.on("resource.status_changed.resource", onResourceChanged);
+        AzureEventBus.on("account.logged_out.account", new AzureEventBus.EventListener(e -> this.cache.clear()));
+    }
+
+    public static ConnectionEnvironmentResolver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * resolve the environment variables of the connection, from the cache if not expired.
+     */
+    @Nonnull
+    public Map<String, String> resolve(@Nonnull Project project, @Nonnull Connection<?, ?> connection) {
+        final String cacheKey = getCacheKey(connection);
+        if (Objects.isNull(cacheKey)) {
+            return connection.loadEnvironmentVariables(project);
+        }
+        final CachedEnvironment cached = this.cache.get(cacheKey);
+        if (Objects.nonNull(cached) && !cached.isExpired()) {
+            final Map<String, String> env = this.open(cached);
+            if (Objects.nonNull(env)) {
+                return env;
+            }
+        }
+        final Map<String, String> env = connection.loadEnvironmentVariables(project);
+        if (env.values().stream().anyMatch(StringUtils::isBlank)) {
+            // e.g. the password or key failed to be loaded, resolve again next time
+            this.cache.remove(cacheKey);
+            return env;
+        }
+        Optional.ofNullable(this.seal(env)).ifPresent(sealed -> this.cache.put(cacheKey, sealed));
+        return env;
+    }
+
+    /**
+     * resolve the environment variables of the connections in parallel, the variables of the latter connections
+     * override the former ones.
+     */
+    @Nonnull
+    public Map<String, String> resolveAll(@Nonnull Project project, @Nonnull List<? extends Connection<?, ?>> connections) {
+        final List<CompletableFuture<Map<String, String>>> futures = connections.stream()
+            .map(c -> CompletableFuture.supplyAsync(() -> this.resolve(project, c), AppExecutorUtil.getAppExecutorService()))
+            .toList();
+        final Map<String, String> result = new LinkedHashMap<>();
+        try {
+            futures.forEach(f -> result.putAll(f.join()));
+        } catch (final CompletionException e) {
+            futures.forEach(f -> f.cancel(true));
+            final Throwable cause = Optional.ofNullable(e.getCause()).orElse(e);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new AzureToolkitRuntimeException(cause);
+        }
+        return result;
+    }
+
+    public void invalidate(@Nonnull Connection<?, ?> connection) {
+        Optional.ofNullable(getCacheKey(connection)).ifPresent(this.cache::remove);
+    }
+
+    private void invalidate(@Nullable Object source) {
+        if (source instanceof AzResource resource && StringUtils.isNotBlank(resource.getId())) {
+            // the resource and its sub resources
+            final String id = resource.getId().toLowerCase();
+            this.cache.keySet().removeIf(k -> k.startsWith(id));
+        }
+    }
+
+    @Nullable
+    private static String getCacheKey(@Nonnull Connection<?, ?> connection) {
+        final String dataId = connection.getResource().getDataId();
+        if (StringUtils.isBlank(dataId)) {
+            return null;
+        }
+        final String identity = Optional.ofNullable(connection.getUserAssignedManagedIdentity()).map(Resource::getDataId).orElse(StringUtils.EMPTY);
+        return String.join("|", dataId.toLowerCase(), connection.getEnvPrefix(),
+            String.valueOf(connection.getAuthenticationType()), identity, connection.getConsumer().getId(),
+            StringUtils.defaultString(connection.getResource().getEnvironmentCacheKey()));
+    }
+
+    @Nullable
+    private CachedEnvironment seal(@Nonnull Map<String, String> env) {
+        if (Objects.isNull(this.key)) {
+            return null;
+        }
+        try {
+            final Map<String, byte[]> values = new HashMap<>();
+            final Map<String, byte[]> ivs = new HashMap<>();
+            for (final Map.Entry<String, String> entry : env.entrySet()) {
+                final byte[] iv = new byte[IV_LENGTH];
+                this.random.nextBytes(iv);
+                final Cipher cipher = Cipher.getInstance(CIPHER);
+                cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+                values.put(entry.getKey(), cipher.doFinal(StringUtils.defaultString(entry.getValue()).getBytes(StandardCharsets.UTF_8)));
+                ivs.put(entry.getKey(), iv);
+            }
+            return new CachedEnvironment(values, ivs, System.currentTimeMillis() + TTL_MILLIS);
+        } catch (final GeneralSecurityException e) {
+            log.warn("failed to encrypt environment variables, skip caching", e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private Map<String, String> open(@Nonnull CachedEnvironment cached) {
+        try {
+            final Map<String, String> env = new HashMap<>();
+            for (final Map.Entry<String, byte[]> entry : cached.values.entrySet()) {
+                final Cipher cipher = Cipher.getInstance(CIPHER);
+                cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH_BITS, cached.ivs.get(entry.getKey())));
+                env.put(entry.getKey(), new String(cipher.doFinal(entry.getValue()), StandardCharsets.UTF_8));
+            }
+            return env;
+        } catch (final GeneralSecurityException e) {
+            log.warn("failed to decrypt cached environment variables, resolve again", e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static SecretKey createKey() {
+        try {
+            final KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            return generator.generateKey();
+        } catch (final GeneralSecurityException e) {
+            log.warn("AES is not available, environment variables of connections will not be cached", e);
+            return null;
+        }
+    }
+
+    private record CachedEnvironment(Map<String, byte[]> values, Map<String, byte[]> ivs, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > this.expiresAt;
+        }
+    }
+}
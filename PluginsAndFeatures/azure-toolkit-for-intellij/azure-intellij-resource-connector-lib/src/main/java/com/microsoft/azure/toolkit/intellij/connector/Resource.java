@@ -51,6 +51,14 @@ public interface Resource<T> {
         return Collections.emptyMap();
     }
 
+    /**
+     * the properties of the resource, besides the data id, which change the environment variables initialized by it,
+     * e.g. the username and jdbc url of a database. they are part of the key of the cached environment variables.
+     */
+    default String getEnvironmentCacheKey() {
+        return "";
+    }
+
     default boolean isModified(Resource<T> resource) {
         return !this.equals(resource);
     }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.intellij.connector.dotazure;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import io.github.cdimascio.dotenv.internal.DotenvParser;
+import io.github.cdimascio.dotenv.internal.DotenvReader;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable parsed snapshot of a {@code .env} file: its lines, the variables and the blocks of lines generated for
+ * each connection, i.e. the lines following {@code # connection.id=<id>} till a blank line or the next connection.
+ * Snapshots are cached by path and shared by all readers until the file is changed, which is detected by VFS events
+ * and by the size and last modified time of the file for changes not refreshed into VFS yet.
+ */
+public class DotEnv {
+    public static final String CONNECTION_MARK = "# connection.id=";
+    // keyed by the system independent path, the same as the paths of VFS
+    private static final Map<String, DotEnv> snapshots = new ConcurrentHashMap<>();
+
+    @Nonnull
+    private final Path file;
+    @Getter
+    @Nonnull
+    private final List<String> lines;
+    @Getter
+    @Nonnull
+    private final List<Pair<String, String>> variables;
+    @Nonnull
+    private final Map<String, Block> blocks;
+    private final long size;
+    private final long lastModified;
+
+    private DotEnv(@Nonnull Path file, @Nonnull List<String> lines, long size, long lastModified) {
+        this.file = file;
+        this.lines = Collections.unmodifiableList(lines);
+        this.size = size;
+        this.lastModified = lastModified;
+        this.variables = parseVariables(file, this.lines);
+        this.blocks = parseBlocks(this.lines);
+    }
+
+    /**
+     * get the snapshot of the {@code .env} file, parsed only if it's changed since last time.
+     */
+    @Nonnull
+    public static DotEnv get(@Nonnull Path file) throws IOException {
+        final Path path = file.toAbsolutePath().normalize();
+        final DotEnv cached = snapshots.get(getKey(path));
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (Objects.nonNull(cached) && cached.size == attributes.size() && cached.lastModified == attributes.lastModifiedTime().toMillis()) {
+            return cached;
+        }
+        final DotEnv snapshot = new DotEnv(path, Files.readAllLines(path, StandardCharsets.UTF_8), attributes.size(), attributes.lastModifiedTime().toMillis());
+        snapshots.put(getKey(path), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * @param path system independent path of the file, e.g. the path of a {@code VirtualFile}
+     */
+    public static void invalidate(@Nullable String path) {
+        if (StringUtils.isNotBlank(path)) {
+            snapshots.remove(path);
+        }
+    }
+
+    @Nonnull
+    private static String getKey(@Nonnull Path path) {
+        return FileUtil.toSystemIndependentName(path.toString());
+    }
+
+    /**
+     * @return the variables generated for the connection, empty if there is no block of the connection.
+     */
+    @Nonnull
+    public List<Pair<String, String>> getGeneratedVariables(@Nonnull String connectionId) {
+        return Optional.ofNullable(this.blocks.get(connectionId.toLowerCase())).map(b -> b.variables).orElse(Collections.emptyList());
+    }
+
+    /**
+     * replace the lines of the block of the connection with the new lines (the mark line excluded), or append the block
+     * if there is none. the rest lines are kept as they are, and the file is replaced atomically.
+     */
+    @Nonnull
+    public static synchronized DotEnv putBlock(@Nonnull Path file, @Nonnull String connectionId, @Nonnull List<String> blockLines) throws IOException {
+        final DotEnv current = get(file);
+        final List<String> block = new ArrayList<>();
+        block.add(CONNECTION_MARK + connectionId);
+        block.addAll(blockLines);
+        block.add(StringUtils.EMPTY);
+        final Block existing = current.blocks.get(connectionId.toLowerCase());
+        final List<String> result = new ArrayList<>(current.lines.size() + block.size());
+        if (Objects.isNull(existing)) {
+            result.addAll(current.lines);
+            result.addAll(block);
+        } else {
+            result.addAll(current.lines.subList(0, existing.start));
+            result.addAll(block);
+            result.addAll(current.lines.subList(existing.end, current.lines.size()));
+        }
+        return current.write(result);
+    }
+
+    /**
+     * remove the block of the connection and its trailing blank line, the file is replaced atomically.
+     */
+    @Nonnull
+    public static synchronized DotEnv removeBlock(@Nonnull Path file, @Nonnull String connectionId) throws IOException {
+        final DotEnv current = get(file);
+        final Block existing = current.blocks.get(connectionId.toLowerCase());
+        if (Objects.isNull(existing)) {
+            return current;
+        }
+        final List<String> result = new ArrayList<>(current.lines.subList(0, existing.start));
+        result.addAll(current.lines.subList(existing.end, current.lines.size()));
+        return current.write(result);
+    }
+
+    /**
+     * write the lines to a temp file beside and move it over the file, so that readers never see a partial file.
+     */
+    @Nonnull
+    private DotEnv write(@Nonnull List<String> newLines) throws IOException {
+        final Path temp = Files.createTempFile(this.file.getParent(), this.file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, String.join(System.lineSeparator(), newLines) + System.lineSeparator(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        final BasicFileAttributes attributes = Files.readAttributes(this.file, BasicFileAttributes.class);
+        final DotEnv snapshot = new DotEnv(this.file, newLines, attributes.size(), attributes.lastModifiedTime().toMillis());
+        snapshots.put(getKey(this.file), snapshot);
+        return snapshot;
+    }
+
+    @Nonnull
+    private static List<Pair<String, String>> parseVariables(@Nonnull Path file, @Nonnull List<String> lines) {
+        final Path dir = Optional.ofNullable(file.getParent()).orElse(file);
+        // parse the lines read already with the same rules as loading the file by dotenv
+        final DotenvReader reader = new DotenvReader(dir.toString(), file.getFileName().toString()) {
+            @Override
+            public List<String> read() {
+                return lines;
+            }
+        };
+        final DotenvParser parser = new DotenvParser(reader, false, false);
+        return parser.parse().stream().map(e -> Pair.of(e.getKey(), e.getValue())).toList();
+    }
+
+    @Nonnull
+    private static Map<String, Block> parseBlocks(@Nonnull List<String> lines) {
+        final Map<String, Block> blocks = new HashMap<>();
+        int i = 0;
+        while (i < lines.size()) {
+            final String line = lines.get(i);
+            if (!line.trim().startsWith(CONNECTION_MARK)) {
+                i++;
+                continue;
+            }
+            final String id = line.trim().substring(CONNECTION_MARK.length()).trim().toLowerCase();
+            final List<Pair<String, String>> variables = new ArrayList<>();
+            int end = i + 1;
+            while (end < lines.size() && StringUtils.isNotBlank(lines.get(end)) && !lines.get(end).trim().startsWith(CONNECTION_MARK)) {
+                final String[] parts = lines.get(end).split("=", 2);
+                variables.add(Pair.of(parts[0], parts.length > 1 ? parts[1] : StringUtils.EMPTY));
+                end++;
+            }
+            final boolean blankEnded = end < lines.size() && StringUtils.isBlank(lines.get(end));
+            // the first block is used if a connection has duplicated blocks
+            blocks.putIfAbsent(id, new Block(i, blankEnded ? end + 1 : end, Collections.unmodifiableList(variables)));
+            i = end;
+        }
+        return Collections.unmodifiableMap(blocks);
+    }
+
+    /**
+     * lines {@code [start, end)} of a connection, including the mark line and the trailing blank line.
+     */
+    private record Block(int start, int end, List<Pair<String, String>> variables) {
+    }
+
+    /**
+     * drops the snapshots of the {@code .env} files changed, moved, renamed or deleted in VFS.
+     */
+    public static class Listener implements BulkFileListener {
+        @Override
+        public void after(@Nonnull List<? extends VFileEvent> events) {
+            if (snapshots.isEmpty()) {
+                return;
+            }
+            for (final VFileEvent event : events) {
+                invalidate(event.getPath());
+                if (event instanceof VFileMoveEvent move) {
+                    invalidate(move.getOldPath());
+                } else if (event instanceof VFilePropertyChangeEvent property && property.isRename()) {
+                    invalidate(property.getOldPath());
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,8 @@ import com.intellij.openapi.project.ProjectUtil;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.microsoft.azure.toolkit.intellij.connector.Connection;
+import com.microsoft.azure.toolkit.intellij.connector.ConnectionEnvironmentResolver;
 import com.microsoft.azure.toolkit.intellij.connector.ResourceConnectionActionsContributor;
 import com.microsoft.azure.toolkit.lib.common.messager.ExceptionNotification;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
@@ -43,6 +45,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * @see "org.jetbrains.idea.maven.tasks.MavenBeforeRunTasksProvider"
@@ -138,14 +141,17 @@ public class DotEnvBeforeRunTaskProvider extends BeforeRunTaskProvider<DotEnvBef
                     .map(Profile::load)
                     .orElse(Collections.emptyList());
             final List<Pair<String, String>> result = new ArrayList<>(exists);
-            Optional.ofNullable(azureModule).map(AzureModule::getDefaultProfile)
+            final List<Connection<?, ?>> fixed = Optional.ofNullable(azureModule).map(AzureModule::getDefaultProfile)
                     .map(Profile::getConnections)
                     .stream().flatMap(List::stream)
                     .filter(c -> !c.isValidConnection())
                     .map(c -> ResourceConnectionActionsContributor.fixResourceConnection(c, project))
                     .filter(Objects::nonNull)
-                    .forEach(connection -> connection.getEnvironmentVariables(project)
-                            .forEach((key, value) -> result.add(Pair.of(key, value))));
+                    .collect(Collectors.toList());
+            if (!fixed.isEmpty()) {
+                ConnectionEnvironmentResolver.getInstance().resolveAll(project, fixed)
+                        .forEach((key, value) -> result.add(Pair.of(key, value)));
+            }
             return result;
         }
 
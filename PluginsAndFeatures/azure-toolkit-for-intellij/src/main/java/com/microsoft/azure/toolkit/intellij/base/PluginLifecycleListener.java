@@ -14,6 +14,7 @@ import com.microsoft.azure.toolkit.ide.common.auth.IdeAzureAccount;
 import com.microsoft.azure.toolkit.ide.common.store.AzureConfigInitializer;
 import com.microsoft.azure.toolkit.ide.common.store.AzureStoreManager;
 import com.microsoft.azure.toolkit.ide.common.store.DefaultMachineStore;
+import com.microsoft.azure.toolkit.ide.common.store.IMachineStore;
 import com.microsoft.azure.toolkit.intellij.common.CommonConst;
 import com.microsoft.azure.toolkit.intellij.common.auth.IntelliJSecureStore;
 import com.microsoft.azure.toolkit.intellij.common.settings.IntellijStore;
@@ -38,6 +39,7 @@ import javax.net.ssl.HttpsURLConnection;
 import java.io.File;
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.FileHandler;
 
 import static com.microsoft.azure.toolkit.ide.common.store.AzureConfigInitializer.TELEMETRY;
@@ -118,6 +120,11 @@ public class PluginLifecycleListener implements AppLifecycleListener, PluginStat
         HttpsURLConnection.setDefaultSSLSocketFactory(certificateManager.getSslContext().getSocketFactory());
     }
 
+    @Override
+    public void appWillBeClosed(boolean isRestart) {
+        Optional.ofNullable(AzureStoreManager.getInstance().getMachineStore()).ifPresent(IMachineStore::flush);
+    }
+
     @Override
     public void install(@Nonnull IdeaPluginDescriptor ideaPluginDescriptor) {
         if (ideaPluginDescriptor.getPluginId().getIdString().equalsIgnoreCase(CommonConst.PLUGIN_ID)) {
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.io.spark
+
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SparkSession
+import io.cucumber.java.Before
+import io.cucumber.java.en.Given
+import io.cucumber.java.en.Then
+import org.apache.commons.codec.binary.Base64OutputStream
+import org.apache.commons.codec.digest.DigestUtils
+import org.apache.commons.io.IOUtils
+import org.assertj.core.api.Assertions.assertThat
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.mock
+import rx.Observable
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.net.URI
+import java.util.Base64
+import java.util.concurrent.ConcurrentSkipListMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPInputStream
+import kotlin.random.Random
+
+class ClusterFilePipelinedOutputStreamScenario {
+    private val writeBlockPattern = "^writeBlock\\((\\d+)L, (true|false)((?:, \"[^\"]*\")*)\\)$".toRegex()
+    private val literalPattern = "\"([^\"]*)\"".toRegex()
+    private val writePagePattern = "^writePage\\(\"([^\"]*)\"\\)$".toRegex()
+
+    // The file content written at the mocked cluster side, keyed by block sequence
+    private val clusterBlocks = ConcurrentSkipListMap<Long, ByteArray>()
+    private val compressedBlocks = AtomicInteger(0)
+    private val statements = AtomicInteger(0)
+    private val outOfOrderBlocks = AtomicInteger(0)
+    private var statementLatencyMillis = 0L
+    private var content = ByteArray(0)
+    private var checksumMismatched = false
+
+    @Before
+    fun setUp() {
+        clusterBlocks.clear()
+        compressedBlocks.set(0)
+        statements.set(0)
+        outOfOrderBlocks.set(0)
+        statementLatencyMillis = 0L
+        checksumMismatched = false
+    }
+
+    @Given("^the mocked Livy statement latency is (\\d+)ms$")
+    fun setStatementLatency(latencyMillis: Long) {
+        statementLatencyMillis = latencyMillis
+    }
+
+    @Given("^prepare (\\d+)KB (random|repeated) content to upload$")
+    fun prepareContent(sizeKB: Int, kind: String) {
+        content = if (kind == "random") {
+            Random(sizeKB).nextBytes(sizeKB * 1024)
+        } else {
+            ByteArray(sizeKB * 1024) { (it % 16).toByte() }
+        }
+    }
+
+    @Given("^the mocked cluster reports a wrong checksum$")
+    fun reportWrongChecksum() {
+        checksumMismatched = true
+    }
+
+    private fun mockPipelinedSession(): SparkSession {
+        val session = mock(SparkSession::class.java)
+
+        doAnswer { invocation ->
+            val codes = invocation.getArgument<String>(0)
+
+            Observable.fromCallable {
+                statements.incrementAndGet()
+                val block = writeBlockPattern.matchEntire(codes)
+
+                when {
+                    block != null -> {
+                        val encoded = literalPattern.findAll(block.groupValues[3]).joinToString("") { it.groupValues[1] }
+                        val decoded = Base64.getDecoder().decode(encoded)
+                        val compressed = block.groupValues[2].toBoolean()
+                        if (compressed) {
+                            compressedBlocks.incrementAndGet()
+                        }
+
+                        val seq = block.groupValues[1].toLong()
+                        if (seq != clusterBlocks.size.toLong()) {
+                            outOfOrderBlocks.incrementAndGet()
+                        }
+
+                        clusterBlocks[seq] =
+                            if (compressed) GZIPInputStream(ByteArrayInputStream(decoded)).readBytes() else decoded
+                        mapOf("text/plain" to "")
+                    }
+                    codes.startsWith("closeUpload(") -> {
+                        val written = ByteArrayOutputStream().apply { clusterBlocks.values.forEach { write(it) } }
+                        val checksum = if (checksumMismatched) "0" else DigestUtils.sha256Hex(written.toByteArray())
+
+                        mapOf("text/plain" to "UPLOAD_SHA256:$checksum\n")
+                    }
+                    else -> mapOf("text/plain" to "")
+                }
+            }.delay(statementLatencyMillis, TimeUnit.MILLISECONDS)
+        }.`when`(session).runCodes(anyString())
+
+        return session
+    }
+
+    private fun mockBase64Session(): SparkSession {
+        val session = mock(SparkSession::class.java)
+
+        doAnswer { invocation ->
+            val codes = invocation.getArgument<String>(0)
+
+            Observable.fromCallable {
+                statements.incrementAndGet()
+                writePagePattern.matchEntire(codes)?.let {
+                    clusterBlocks[clusterBlocks.size.toLong()] = Base64.getDecoder().decode(it.groupValues[1])
+                }
+
+                mapOf("text/plain" to "")
+            }.delay(statementLatencyMillis, TimeUnit.MILLISECONDS)
+        }.`when`(session).runCodes(anyString())
+
+        return session
+    }
+
+    private fun uploadByPipelinedStream(compressionEnabled: Boolean) {
+        ClusterFilePipelinedOutputStream(
+            mockPipelinedSession(),
+            URI.create("/tmp/test.jar"),
+            compressionEnabled,
+            ClusterFilePipelinedOutputStream.DEFAULT_MAX_QUEUED_BLOCKS
+        ).use { IOUtils.copy(ByteArrayInputStream(content), it) }
+    }
+
+    private fun uploadByBase64Stream() {
+        @Suppress("DEPRECATION")
+        Base64OutputStream(ClusterFileBase64BufferedOutputStream(mockBase64Session(), URI.create("/tmp/test.jar")), true)
+            .use { IOUtils.copy(ByteArrayInputStream(content), it) }
+    }
+
+    private fun clusterFileContent(): ByteArray =
+        ByteArrayOutputStream().apply { clusterBlocks.values.forEach { write(it) } }.toByteArray()
+
+    @Then("^upload the content by pipelined stream with compression (enabled|disabled) should write the same content$")
+    fun checkPipelinedUpload(compression: String) {
+        uploadByPipelinedStream(compression == "enabled")
+
+        assertThat(clusterFileContent()).isEqualTo(content)
+        assertThat(outOfOrderBlocks.get()).isZero()
+    }
+
+    @Then("^upload the content by pipelined stream should fail with checksum mismatched$")
+    fun checkChecksumMismatched() {
+        val result = runCatching { uploadByPipelinedStream(false) }
+
+        assertThat(result.exceptionOrNull()).hasMessageContaining("checksum mismatched")
+    }
+
+    @Then("^there should be compressed blocks sent$")
+    fun checkCompressedBlocks() {
+        assertThat(compressedBlocks.get()).isPositive()
+    }
+
+    @Then("^the pipelined stream should send fewer statements than the BASE64 stream$")
+    fun compareWithBase64Stream() {
+        uploadByBase64Stream()
+        val base64Statements = statements.getAndSet(0)
+        assertThat(clusterFileContent()).isEqualTo(content)
+
+        clusterBlocks.clear()
+        uploadByPipelinedStream(false)
+        val pipelinedStatements = statements.get()
+        assertThat(clusterFileContent()).isEqualTo(content)
+
+        assertThat(pipelinedStatements).isLessThan(base64Statements)
+    }
+}
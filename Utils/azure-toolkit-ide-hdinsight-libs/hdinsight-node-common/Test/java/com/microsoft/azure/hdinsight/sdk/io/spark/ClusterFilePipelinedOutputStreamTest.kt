@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.io.spark
+
+import io.cucumber.junit.Cucumber
+import io.cucumber.junit.CucumberOptions
+import org.junit.runner.RunWith
+
+@RunWith(Cucumber::class)
+@CucumberOptions(
+    plugin = ["html:target/cucumber"],
+    name = ["ClusterFilePipelinedOutputStream tests"]
+)
+class ClusterFilePipelinedOutputStreamTest
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common
+
+import com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine
+import io.cucumber.java.After
+import io.cucumber.java.Before
+import io.cucumber.java.en.Given
+import io.cucumber.java.en.Then
+import org.assertj.core.api.Assertions.assertThat
+import rx.Observable
+import rx.Observer
+import rx.subjects.PublishSubject
+import java.io.File
+import java.util.UUID
+
+class DedupArtifactDeployScenario {
+    private lateinit var artifact: File
+    private val uploadedPaths = mutableListOf<String>()
+    private val existingPaths = mutableSetOf<String>()
+
+    private val fakeDeploy = object : Deployable {
+        override fun deploy(src: File, logSubject: Observer<SparkLogLine>): Observable<String> {
+            val uploadedPath = "wasbs://fake/${UUID.randomUUID()}/${src.name}"
+            uploadedPaths.add(uploadedPath)
+            existingPaths.add(uploadedPath)
+
+            return Observable.just(uploadedPath)
+        }
+
+        override fun isDeployed(uploadedPath: String): Observable<Boolean> =
+            Observable.just(existingPaths.contains(uploadedPath))
+
+        override fun getDeployTarget(): String = "wasbs://fake/"
+    }
+
+    private val deploy = DedupArtifactDeploy(fakeDeploy)
+    private var lastDeployedPath: String? = null
+
+    @Before
+    fun setUp() {
+        artifact = File.createTempFile("dedup-artifact-", ".jar")
+        uploadedPaths.clear()
+        existingPaths.clear()
+        lastDeployedPath = null
+    }
+
+    @After
+    fun tearDown() {
+        artifact.delete()
+    }
+
+    @Given("^the artifact content is '(.*)'$")
+    fun setArtifactContent(content: String) {
+        artifact.writeText(content + UUID.randomUUID())
+        // Make sure the modified time changes for the content hash cache
+        artifact.setLastModified(artifact.lastModified() + 1000)
+    }
+
+    @Given("^deploy the artifact$")
+    fun deployArtifact() {
+        lastDeployedPath = deploy.deploy(artifact, PublishSubject.create()).toBlocking().single()
+    }
+
+    @Given("^the uploaded artifacts are deleted from the storage$")
+    fun deleteUploadedArtifacts() {
+        existingPaths.clear()
+    }
+
+    @Then("^the artifact should be uploaded (\\d+) times?$")
+    fun checkUploadTimes(expectTimes: Int) {
+        assertThat(uploadedPaths).hasSize(expectTimes)
+    }
+
+    @Then("^the deployed path should be the last uploaded one$")
+    fun checkDeployedPath() {
+        assertThat(lastDeployedPath).isEqualTo(uploadedPaths.last())
+    }
+}
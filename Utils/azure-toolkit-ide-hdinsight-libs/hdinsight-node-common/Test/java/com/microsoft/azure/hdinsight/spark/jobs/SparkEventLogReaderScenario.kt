@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs
+
+import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog
+import io.cucumber.java.Before
+import io.cucumber.java.en.Given
+import io.cucumber.java.en.Then
+import org.assertj.core.api.Assertions.assertThat
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class SparkEventLogReaderScenario {
+    private val reader = SparkEventLogReader(SparkEventLogReader.SPARK_LISTENER_JOB_START, JobStartEventLog::class.java)
+    private var eventLog = ""
+    private var offset = 0L
+    private val jobIds = mutableListOf<Int>()
+
+    @Before
+    fun setUp() {
+        eventLog = ""
+        offset = 0L
+        jobIds.clear()
+    }
+
+    @Given("^append Spark event log lines$")
+    fun appendEventLogLines(lines: List<String>) {
+        eventLog += lines.joinToString("") { it.replace("\\n", "\n") }
+    }
+
+    @Then("^read Spark job start events from the zipped event log should get job IDs$")
+    fun checkReadJobStartEvents(expectJobIds: List<Int>) {
+        val zipBytes = ByteArrayOutputStream()
+        ZipOutputStream(zipBytes).use {
+            it.putNextEntry(ZipEntry("application_1_1"))
+            it.write(eventLog.toByteArray(Charsets.UTF_8))
+            it.closeEntry()
+        }
+
+        offset = reader.readEvents(ByteArrayInputStream(zipBytes.toByteArray()), offset) { event -> jobIds.add(event.jobId) }
+
+        assertThat(jobIds).containsExactlyElementsOf(expectJobIds)
+    }
+
+    @Then("^the Spark event log consumed offset should be (\\d+)$")
+    fun checkConsumedOffset(expectOffset: Long) {
+        assertThat(offset).isEqualTo(expectOffset)
+    }
+
+    @Then("^the Spark event name of line '(.*)' should be '(.*)'$")
+    fun checkEventName(line: String, expectName: String) {
+        assertThat(SparkEventLogReader.readEventName(line) ?: "<null>").isEqualTo(expectName)
+    }
+}
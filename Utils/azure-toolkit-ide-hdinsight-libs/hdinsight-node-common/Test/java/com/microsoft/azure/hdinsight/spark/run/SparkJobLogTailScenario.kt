@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.run
+
+import io.cucumber.java.Before
+import io.cucumber.java.en.Given
+import io.cucumber.java.en.Then
+import io.cucumber.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import rx.schedulers.TestScheduler
+import java.util.AbstractMap.SimpleImmutableEntry
+import java.util.Optional
+import java.util.concurrent.TimeUnit
+
+class SparkJobLogTailScenario {
+    private val scheduler = TestScheduler()
+    private val log = StringBuilder()
+    private val fetchTimes = mutableListOf<Long>()
+    private val cursors = mutableListOf<SparkJobLogTail.Cursor>()
+    private var tail: SparkJobLogTail? = null
+    private var reopenOnFetch = false
+
+    @Before
+    fun setUp() {
+        log.setLength(0)
+        fetchTimes.clear()
+        cursors.clear()
+        reopenOnFetch = false
+    }
+
+    @Given("^the Spark job log is '(.*)'$")
+    fun setLog(content: String) {
+        log.setLength(0)
+        log.append(content)
+    }
+
+    @Given("^append '(.*)' to the Spark job log$")
+    fun appendLog(content: String) {
+        log.append(content)
+    }
+
+    @Given("^open (\\d+) cursors? of the log tail with buffer capacity (\\d+)$")
+    fun openCursors(count: Int, capacity: Int) {
+        val logTail = tail ?: SparkJobLogTail({ offset, _ ->
+            fetchTimes.add(scheduler.now())
+            if (reopenOnFetch) {
+                reopenOnFetch = false
+                reopenCursor()
+            }
+
+            Optional.of(SimpleImmutableEntry(log.substring(offset.toInt()), offset))
+        }, capacity, scheduler, null).also { tail = it }
+
+        repeat(count) { cursors.add(logTail.openCursor()) }
+    }
+
+    @Given("^close all cursors and open a new one during the next fetch$")
+    fun reopenCursorOnFetch() {
+        reopenOnFetch = true
+    }
+
+    private fun reopenCursor() {
+        cursors.forEach { it.close() }
+        cursors.clear()
+        cursors.add(tail!!.openCursor())
+    }
+
+    @When("^advance the time by (\\d+) milliseconds$")
+    fun advanceTime(millis: Long) {
+        scheduler.advanceTimeBy(millis, TimeUnit.MILLISECONDS)
+    }
+
+    @When("^close all cursors$")
+    fun closeCursors() {
+        cursors.forEach { it.close() }
+    }
+
+    @Then("^all cursors should read '(.*)'$")
+    fun checkCursorsRead(expect: String) {
+        cursors.forEach { cursor ->
+            val read = StringBuilder()
+            val buf = ByteArray(3)
+
+            while (cursor.available(0) > 0) {
+                val len = cursor.read(buf, 0, buf.size)
+                read.append(String(buf, 0, len))
+            }
+
+            assertThat(read.toString()).isEqualTo(expect)
+        }
+    }
+
+    @Then("^the cursors should drop (\\d+) bytes$")
+    fun checkDroppedBytes(expect: Long) {
+        cursors.forEach { assertThat(it.droppedBytes).isEqualTo(expect) }
+    }
+
+    @Then("^the log should be fetched (\\d+) times?$")
+    fun checkFetchCount(expect: Int) {
+        assertThat(fetchTimes).hasSize(expect)
+    }
+
+    @Then("^the log fetch times should be '(.*)'$")
+    fun checkFetchTimes(expect: String) {
+        assertThat(fetchTimes).containsExactlyElementsOf(expect.split(",").map { it.trim().toLong() })
+    }
+}
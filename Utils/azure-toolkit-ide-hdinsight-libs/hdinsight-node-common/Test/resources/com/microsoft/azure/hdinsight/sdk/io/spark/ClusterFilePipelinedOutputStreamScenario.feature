@@ -0,0 +1,21 @@
+Feature: ClusterFilePipelinedOutputStream tests
+
+  Scenario: Upload binary content in pipelined blocks
+    Given the mocked Livy statement latency is 5ms
+    Given prepare 3000KB random content to upload
+    Then upload the content by pipelined stream with compression disabled should write the same content
+
+  Scenario: Upload compressible content with compression
+    Given the mocked Livy statement latency is 5ms
+    Given prepare 1024KB repeated content to upload
+    Then upload the content by pipelined stream with compression enabled should write the same content
+    Then there should be compressed blocks sent
+
+  Scenario: Verify the checksum after uploading
+    Given prepare 100KB random content to upload
+    Given the mocked cluster reports a wrong checksum
+    Then upload the content by pipelined stream should fail with checksum mismatched
+
+  Scenario: Send fewer statements than the BASE64 buffered stream
+    Given prepare 2048KB random content to upload
+    Then the pipelined stream should send fewer statements than the BASE64 stream
@@ -0,0 +1,24 @@
+Feature: Artifact deployment deduplication
+
+  Scenario: Reuse the unchanged artifact
+    Given the artifact content is 'jar v1'
+    Given deploy the artifact
+    Given deploy the artifact
+    Then the artifact should be uploaded 1 time
+    Then the deployed path should be the last uploaded one
+
+  Scenario: Upload the changed artifact again
+    Given the artifact content is 'jar v1'
+    Given deploy the artifact
+    Given the artifact content is 'jar v2'
+    Given deploy the artifact
+    Then the artifact should be uploaded 2 times
+    Then the deployed path should be the last uploaded one
+
+  Scenario: Upload again once the uploaded artifact is deleted
+    Given the artifact content is 'jar v1'
+    Given deploy the artifact
+    Given the uploaded artifacts are deleted from the storage
+    Given deploy the artifact
+    Then the artifact should be uploaded 2 times
+    Then the deployed path should be the last uploaded one
@@ -0,0 +1,28 @@
+Feature: Spark event log reader
+
+  Scenario: Pre-filter the event name without parsing the whole line
+    Then the Spark event name of line '{"Event":"SparkListenerJobStart","Job ID":1}' should be 'SparkListenerJobStart'
+    Then the Spark event name of line '{"Stage Info":{"Event":"Inner"},"Event":"SparkListenerStageCompleted"}' should be 'SparkListenerStageCompleted'
+    Then the Spark event name of line '{"Event":"SparkListenerJobStart","Job ID":' should be 'SparkListenerJobStart'
+    Then the Spark event name of line '{"Job ID":1}' should be '<null>'
+    Then the Spark event name of line 'not a json' should be '<null>'
+
+  Scenario: Read the job start events incrementally
+    Given append Spark event log lines
+      | {"Event":"SparkListenerLogStart","Spark Version":"3.4.0"}\n |
+      | {"Event":"SparkListenerJobStart","Job ID":0}\n              |
+      | {"Event":"SparkListenerJobEnd","Job ID":0}\n                |
+      | {"Event":"SparkListenerJobStart","Job ID":1}\n              |
+      | {"Event":"SparkListenerJobStart","Job ID"                   |
+    Then read Spark job start events from the zipped event log should get job IDs
+      | 0 |
+      | 1 |
+    Then the Spark event log consumed offset should be 191
+    Given append Spark event log lines
+      | :2}\n                                          |
+      | {"Event":"SparkListenerJobStart","Job ID":3}\n |
+    Then read Spark job start events from the zipped event log should get job IDs
+      | 0 |
+      | 1 |
+      | 2 |
+      | 3 |
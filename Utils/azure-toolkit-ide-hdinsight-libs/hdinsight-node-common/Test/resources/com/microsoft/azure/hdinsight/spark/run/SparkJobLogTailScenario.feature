@@ -0,0 +1,45 @@
+Feature: Spark job log tail
+
+  Scenario: Share the log tail between cursors
+    Given the Spark job log is 'hello world'
+    Given open 2 cursors of the log tail with buffer capacity 1024
+    When advance the time by 0 milliseconds
+    Then all cursors should read 'hello world'
+    Then the log should be fetched 1 time
+
+  Scenario: Poll fast while new log keeps coming
+    Given the Spark job log is 'line 1;'
+    Given open 1 cursor of the log tail with buffer capacity 1024
+    When advance the time by 0 milliseconds
+    Given append 'line 2;' to the Spark job log
+    When advance the time by 200 milliseconds
+    Then all cursors should read 'line 1;line 2;'
+    Then the log fetch times should be '0, 200'
+
+  Scenario: Back off polling exponentially when no new log
+    Given the Spark job log is ''
+    Given open 1 cursor of the log tail with buffer capacity 1024
+    When advance the time by 20000 milliseconds
+    Then the log fetch times should be '0, 500, 1500, 3500, 7500, 15500'
+
+  Scenario: Drop the overwritten log for the lagging cursor
+    Given the Spark job log is 'abcdefghij'
+    Given open 1 cursor of the log tail with buffer capacity 8
+    When advance the time by 0 milliseconds
+    Then all cursors should read 'cdefghij'
+    Then the cursors should drop 2 bytes
+
+  Scenario: Stop polling once all cursors are closed
+    Given the Spark job log is ''
+    Given open 2 cursors of the log tail with buffer capacity 1024
+    When advance the time by 0 milliseconds
+    When close all cursors
+    When advance the time by 20000 milliseconds
+    Then the log should be fetched 1 time
+
+  Scenario: Keep one polling chain when a cursor is re-opened during fetching
+    Given the Spark job log is ''
+    Given open 1 cursor of the log tail with buffer capacity 1024
+    Given close all cursors and open a new one during the next fetch
+    When advance the time by 2000 milliseconds
+    Then the log fetch times should be '0, 500, 1500'
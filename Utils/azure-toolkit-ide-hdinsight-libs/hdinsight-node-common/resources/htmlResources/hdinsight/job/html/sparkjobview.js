@@ -352,10 +352,18 @@ function renderStageDetails() {
 }
 
 function renderTaskDetails() {
-    getMessageAsync('/applications/tasks_summary','spark', function(s){
+    var appId = spark.appId;
+    getMessageAsync('/applications/tasks_summary','spark', function(s, xmlHttp){
+        if (appId !== spark.appId) {
+            return;
+        }
         var tasks = JSON.parse(s);
         renderTaskSummary(tasks);
-    }, spark.appId);
+        // the tasks of some stages are still loading, poll again for the rest
+        if (xmlHttp && xmlHttp.getResponseHeader('X-Partial-Result') === 'true') {
+            setTimeout(renderTaskDetails, 1000);
+        }
+    }, appId);
 }
 
 function renderExecutors() {
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.common;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.tooling.msservices.components.DefaultLoader;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Typed readers of the IDE application properties, such as the tuning options in {@link CommonConst}. The default
+ * value is returned if the property isn't set, is invalid, or the IDE helper isn't available, e.g. in unit tests.
+ */
+public final class ApplicationProperties {
+    private ApplicationProperties() {
+    }
+
+    /**
+     * @return the positive integer value of the property, or the default value
+     */
+    public static int getPositiveInt(@NotNull String name, int defaultValue) {
+        try {
+            if (!DefaultLoader.getIdeHelper().isApplicationPropertySet(name)) {
+                return defaultValue;
+            }
+
+            final int value = NumberUtils.toInt(DefaultLoader.getIdeHelper().getApplicationProperty(name), defaultValue);
+
+            return value > 0 ? value : defaultValue;
+        } catch (Exception ex) {
+            // To fix exception in unit test
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(@NotNull String name, boolean defaultValue) {
+        try {
+            if (!DefaultLoader.getIdeHelper().isApplicationPropertySet(name)) {
+                return defaultValue;
+            }
+
+            return BooleanUtils.toBoolean(DefaultLoader.getIdeHelper().getApplicationProperty(name));
+        } catch (Exception ex) {
+            // To fix exception in unit test
+            return defaultValue;
+        }
+    }
+}
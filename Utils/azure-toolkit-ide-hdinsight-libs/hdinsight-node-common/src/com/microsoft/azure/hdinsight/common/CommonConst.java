@@ -58,6 +58,14 @@ public class CommonConst {
     public static final String ARCADIA_WORKSPACE_NODE_ICON_PATH = "Workspace_13x.png";
     public static final String ARCADIA_OPEN_UI_NAME = "OpenArcadiaUI";
     public static final String DISABLE_SSL_CERTIFICATE_VALIDATION = "false";
+    public static final String HTTP_POOL_MAX_TOTAL_CONNECTIONS = "com.microsoft.azure.hdinsight.http.pool.maxTotal";
+    public static final String HTTP_POOL_MAX_CONNECTIONS_PER_ROUTE = "com.microsoft.azure.hdinsight.http.pool.maxPerRoute";
+    public static final String HTTP_POOL_IDLE_TIMEOUT_SECONDS = "com.microsoft.azure.hdinsight.http.pool.idleTimeoutSeconds";
+    public static final String SPARK_TASKS_FETCH_CONCURRENCY = "com.microsoft.azure.hdinsight.jobview.tasksFetchConcurrency";
+    public static final String SPARK_JOB_VIEW_CACHE_REFRESH_SECONDS = "com.microsoft.azure.hdinsight.jobview.cache.refreshSeconds";
+    public static final String SPARK_JOB_VIEW_CACHE_PERSISTENCE = "com.microsoft.azure.hdinsight.jobview.cache.persistence";
+    public static final String SPARK_JOB_VIEW_SERVER_THREADS = "com.microsoft.azure.hdinsight.jobview.server.threads";
+    public static final String SPARK_JOB_VIEW_SERVER_VIRTUAL_THREADS = "com.microsoft.azure.hdinsight.jobview.server.virtualThreads";
 
     public static final String CosmosServerlessToolWindowIconName= "SparkSubmissionToolWindow";
 
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common;
+
+import com.microsoft.azure.hdinsight.common.ApplicationProperties;
+import com.microsoft.azure.hdinsight.common.CommonConst;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.service.ServiceManager;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.ssl.TrustStrategy;
+
+import javax.net.ssl.SSLContext;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide pooled HTTP connections shared by all {@link HttpObservable} instances, so that
+ * polling many Livy sessions / batches against several clusters reuses kept-alive sockets and
+ * TLS sessions instead of creating a new connection pool per observable.
+ *
+ * The pool limits and idle timeout can be tuned by the IDE application properties
+ * {@link CommonConst#HTTP_POOL_MAX_TOTAL_CONNECTIONS}, {@link CommonConst#HTTP_POOL_MAX_CONNECTIONS_PER_ROUTE}
+ * and {@link CommonConst#HTTP_POOL_IDLE_TIMEOUT_SECONDS}.
+ */
+public final class HttpConnectionPool implements ILogger {
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private static final HttpConnectionPool INSTANCE = new HttpConnectionPool();
+
+    // The connection managers keyed by whether the SSL certificate validation is disabled or not,
+    // since the hostname verifier is bound to the registered SSL socket factory
+    @NotNull
+    private final Map<Boolean, PoolingHttpClientConnectionManager> connectionManagers = new HashMap<>();
+
+    @NotNull
+    private final List<IdleConnectionEvictor> idleConnectionEvictors = new ArrayList<>();
+
+    private HttpConnectionPool() {
+    }
+
+    @NotNull
+    public static HttpConnectionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the shared connection manager for the current SSL certificate validation setting.
+     *
+     * @return the shared pooling connection manager, which must NOT be closed by HTTP clients
+     */
+    @NotNull
+    public synchronized PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManagers.computeIfAbsent(HttpObservable.isSSLCertificateValidationDisabled(), isValidationDisabled -> {
+            final PoolingHttpClientConnectionManager manager = createConnectionManager(isValidationDisabled);
+            final IdleConnectionEvictor evictor = new IdleConnectionEvictor(
+                    manager, getIdleTimeoutSeconds(), TimeUnit.SECONDS);
+            evictor.start();
+            idleConnectionEvictors.add(evictor);
+
+            return manager;
+        });
+    }
+
+    /**
+     * Keep-alive strategy for pooled connections, which respects the server's Keep-Alive header
+     * and caps it with the idle timeout so that no pooled connection outlives the eviction.
+     */
+    @NotNull
+    public ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+        final long maxKeepAliveMillis = TimeUnit.SECONDS.toMillis(getIdleTimeoutSeconds());
+
+        return (response, context) -> {
+            final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+            return keepAlive > 0 ? Math.min(keepAlive, maxKeepAliveMillis) : maxKeepAliveMillis;
+        };
+    }
+
+    /*
+     * Metrics
+     */
+
+    /**
+     * Get the pool usage metrics of all connection managers created so far, without creating one.
+     *
+     * @return the leased / pending / available / max connections in total
+     */
+    @NotNull
+    public synchronized PoolStats getTotalStats() {
+        int leased = 0, pending = 0, available = 0, max = 0;
+        for (final PoolingHttpClientConnectionManager manager : connectionManagers.values()) {
+            final PoolStats stats = manager.getTotalStats();
+            leased += stats.getLeased();
+            pending += stats.getPending();
+            available += stats.getAvailable();
+            max += stats.getMax();
+        }
+
+        return new PoolStats(leased, pending, available, max);
+    }
+
+    /**
+     * Get the pool usage metrics of each route which has ever been connected.
+     *
+     * @return the map from route target host to its leased / pending / available connection statistics
+     */
+    @NotNull
+    public synchronized Map<String, PoolStats> getRouteStats() {
+        final Map<String, PoolStats> stats = new LinkedHashMap<>();
+
+        connectionManagers.values().forEach(manager ->
+                manager.getRoutes().forEach(route -> stats.put(route.getTargetHost().toURI(), manager.getStats(route))));
+
+        return stats;
+    }
+
+    /**
+     * Get the pool usage metrics for the JSON serialization, served by the Job View {@code /metrics} endpoint.
+     */
+    @NotNull
+    public Map<String, Object> getStatsSnapshot() {
+        final Map<String, Object> routes = new LinkedHashMap<>();
+        getRouteStats().forEach((host, stats) -> routes.put(host, toSnapshot(stats)));
+
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("total", toSnapshot(getTotalStats()));
+        snapshot.put("routes", routes);
+
+        return snapshot;
+    }
+
+    public void logStats() {
+        log().debug("HTTP connection pool total: " + getTotalStats());
+        getRouteStats().forEach((host, stats) -> log().debug("HTTP connection pool route " + host + ": " + stats));
+    }
+
+    /**
+     * Stop the idle connection evictors and close all pooled connections, e.g. when the IDE is closing. A new pool is
+     * created on demand if any HTTP client is built afterwards.
+     */
+    public synchronized void shutdown() {
+        logStats();
+
+        idleConnectionEvictors.forEach(IdleConnectionEvictor::shutdown);
+        idleConnectionEvictors.clear();
+
+        connectionManagers.values().forEach(PoolingHttpClientConnectionManager::shutdown);
+        connectionManagers.clear();
+    }
+
+    /*
+     * Helper functions
+     */
+
+    @NotNull
+    private PoolingHttpClientConnectionManager createConnectionManager(boolean isValidationDisabled) {
+        final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", createSSLSocketFactory(isValidationDisabled))
+                .build();
+
+        final PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(
+                socketFactoryRegistry, null, null, null, -1, TimeUnit.MILLISECONDS);
+        manager.setMaxTotal(ApplicationProperties.getPositiveInt(
+                CommonConst.HTTP_POOL_MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_TOTAL_CONNECTIONS));
+        manager.setDefaultMaxPerRoute(ApplicationProperties.getPositiveInt(
+                CommonConst.HTTP_POOL_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+        manager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        return manager;
+    }
+
+    /**
+     * Create the SSL socket factory with a single SSL context, all pooled HTTPS connections share its
+     * client session cache, so that the TLS sessions can be resumed rather than full handshakes.
+     */
+    @NotNull
+    private SSLConnectionSocketFactory createSSLSocketFactory(boolean isValidationDisabled) {
+        final TrustStrategy ts = ServiceManager.getServiceProvider(TrustStrategy.class);
+        SSLContext sslContext = null;
+
+        if (ts != null) {
+            try {
+                sslContext = new SSLContextBuilder()
+                        .loadTrustMaterial(ts)
+                        .build();
+            } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
+                log().error("Prepare SSL Context for HTTPS failure. " + ExceptionUtils.getStackTrace(e));
+            }
+        }
+
+        return new SSLConnectionSocketFactory(
+                sslContext != null ? sslContext : SSLContexts.createSystemDefault(),
+                new String[] { "TLSv1.2", "TLSv1.3" },
+                null,
+                isValidationDisabled ? NoopHostnameVerifier.INSTANCE : new DefaultHostnameVerifier());
+    }
+
+    @NotNull
+    private static Map<String, Object> toSnapshot(@NotNull PoolStats stats) {
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("leased", stats.getLeased());
+        snapshot.put("pending", stats.getPending());
+        snapshot.put("available", stats.getAvailable());
+        snapshot.put("max", stats.getMax());
+
+        return snapshot;
+    }
+
+    private long getIdleTimeoutSeconds() {
+        return ApplicationProperties.getPositiveInt(CommonConst.HTTP_POOL_IDLE_TIMEOUT_SECONDS, DEFAULT_IDLE_TIMEOUT_SECONDS);
+    }
+
+}
@@ -5,6 +5,8 @@
 
 package com.microsoft.azure.hdinsight.sdk.common;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.microsoft.azure.hdinsight.common.ApplicationProperties;
 import com.microsoft.azure.hdinsight.common.CommonConst;
 import com.microsoft.azure.hdinsight.common.StreamUtil;
 import com.microsoft.azure.hdinsight.common.logger.ILogger;
@@ -12,11 +14,8 @@ import com.microsoft.azure.hdinsight.sdk.common.errorresponse.*;
 import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
-import com.microsoft.azuretools.service.ServiceManager;
-import com.microsoft.tooling.msservices.components.DefaultLoader;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.http.*;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.config.AuthSchemes;
@@ -25,9 +24,6 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.conn.ssl.DefaultHostnameVerifier;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
@@ -35,19 +31,14 @@ import org.apache.http.message.BasicHeader;
 import org.apache.http.message.HeaderGroup;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
-import org.apache.http.ssl.SSLContextBuilder;
-import org.apache.http.ssl.TrustStrategy;
 import org.apache.http.util.EntityUtils;
 import rx.Observable;
 import rx.exceptions.Exceptions;
 
-import javax.net.ssl.SSLContext;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.UnknownServiceException;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 import static rx.exceptions.Exceptions.propagate;
@@ -108,12 +99,7 @@ public class HttpObservable implements ILogger {
                 .setProxyPreferredAuthSchemes(Collections.singletonList(AuthSchemes.BASIC))
                 .build();
 
-        this.httpClient = HttpClients.custom()
-                .useSystemProperties()
-                .setDefaultCookieStore(getCookieStore())
-                .setDefaultRequestConfig(getDefaultRequestConfig())
-                .setSSLSocketFactory(createSSLSocketFactory())
-                .build();
+        this.httpClient = createPooledHttpClient();
     }
 
     /**
@@ -131,13 +117,6 @@ public class HttpObservable implements ILogger {
             setDefaultHeader(new BasicHeader(
                     HttpHeaders.AUTHORIZATION, String.format("%s %s", "Basic", new String(encodedAuth))));
         }
-
-        this.httpClient = HttpClients.custom()
-                .useSystemProperties()
-                .setDefaultCookieStore(getCookieStore())
-                .setDefaultRequestConfig(getDefaultRequestConfig())
-                .setSSLSocketFactory(createSSLSocketFactory())
-                .build();
     }
 
     /*
@@ -234,38 +213,27 @@ public class HttpObservable implements ILogger {
      */
 
     public static boolean isSSLCertificateValidationDisabled() {
-        try {
-            return DefaultLoader.getIdeHelper().isApplicationPropertySet(CommonConst.DISABLE_SSL_CERTIFICATE_VALIDATION) &&
-                    Boolean.valueOf(DefaultLoader.getIdeHelper().getApplicationProperty(CommonConst.DISABLE_SSL_CERTIFICATE_VALIDATION));
-        } catch (Exception ex) {
-            // To fix exception in unit test
-            return false;
-        }
+        return ApplicationProperties.getBoolean(CommonConst.DISABLE_SSL_CERTIFICATE_VALIDATION, false);
     }
 
-    private SSLConnectionSocketFactory createSSLSocketFactory() {
-        TrustStrategy ts = ServiceManager.getServiceProvider(TrustStrategy.class);
-        SSLConnectionSocketFactory sslSocketFactory = null;
-
-        if (ts != null) {
-            try {
-                SSLContext sslContext = new SSLContextBuilder()
-                        .loadTrustMaterial(ts)
-                        .build();
-
-                sslSocketFactory = new SSLConnectionSocketFactory(
-                        sslContext,
-                        new String[] { "TLSv1.2", "TLSv1.3" },
-                        null,
-                        HttpObservable.isSSLCertificateValidationDisabled()
-                                ? NoopHostnameVerifier.INSTANCE
-                                : new DefaultHostnameVerifier());
+    /**
+     * Create the HTTP client upon the process-wide shared connection pool, the pooled connections and TLS sessions
+     * are reused across all HttpObservable instances. The HTTP client built can be closed without closing the pool.
+     *
+     * @return the HTTP client with the current cookie store and default request config
+     */
+    @NotNull
+    protected CloseableHttpClient createPooledHttpClient() {
+        final HttpConnectionPool pool = HttpConnectionPool.getInstance();
 
-            } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
-                log().error("Prepare SSL Context for HTTPS failure. " + ExceptionUtils.getStackTrace(e));
-            }
-        }
-        return sslSocketFactory;
+        return HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(pool.getConnectionManager())
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy(pool.getKeepAliveStrategy())
+                .setDefaultCookieStore(getCookieStore())
+                .setDefaultRequestConfig(getDefaultRequestConfig())
+                .build();
     }
 
     @NotNull
@@ -330,6 +298,110 @@ public class HttpObservable implements ILogger {
                 });
     }
 
+    /**
+     * Helper to convert the closeable stream good Http response (2xx) to a specified type, which is deserialized
+     * from the response content stream directly rather than from a String copy of the whole content.
+     * If the response is bad, propagate a HttpResponseException
+     *
+     * @param closeableHttpResponse the source closeable stream
+     * @param clazz the target type to convert
+     * @param <T> the target type
+     * @return the specified type class instance
+     */
+    public static <T> Observable<T> toObjectOnlyOkResponse(CloseableHttpResponse closeableHttpResponse,
+                                                           @NotNull final Class<T> clazz) {
+        return Observable.using(
+                // Resource factory
+                () -> closeableHttpResponse,
+                // Observable factory
+                streamResp -> {
+                    try {
+                        StatusLine status = streamResp.getStatusLine();
+
+                        if (status.getStatusCode() >= 300) {
+                            return Observable.error(classifyHttpError(streamResp));
+                        }
+
+                        if (streamResp.getEntity() == null) {
+                            return Observable.error(new HDIException("Unknown HTTP server response without content"));
+                        }
+
+                        try (InputStream content = streamResp.getEntity().getContent()) {
+                            return Observable.just(ObjectConvertUtils.convertJsonStreamToObject(content, clazz)
+                                    .orElseThrow(() -> propagate(
+                                            new HDIException("Unknown HTTP server response: " + status))));
+                        }
+                    } catch (IOException e) {
+                        return Observable.error(e);
+                    }
+                },
+                // Resource dispose
+                streamResp -> {
+                    try {
+                        streamResp.close();
+                    } catch (IOException ignore) {
+                        // The connection will be closed automatically after timeout,
+                        // the exception in closing can be ignored.
+                    }
+                });
+    }
+
+    /**
+     * Helper to convert the closeable stream good Http response (2xx) of a top-level JSON array to an Observable
+     * of the array elements, which are deserialized one by one while the content is streaming.
+     * If the response is bad, propagate a HttpResponseException
+     *
+     * @param closeableHttpResponse the source closeable stream
+     * @param clazz the array element type to convert
+     * @param <T> the array element type
+     * @return the array elements Observable
+     */
+    public static <T> Observable<T> toElementsOnlyOkResponse(CloseableHttpResponse closeableHttpResponse,
+                                                             @NotNull final Class<T> clazz) {
+        return Observable.using(
+                // Resource factory
+                () -> closeableHttpResponse,
+                // Observable factory
+                streamResp -> {
+                    try {
+                        StatusLine status = streamResp.getStatusLine();
+
+                        if (status.getStatusCode() >= 300) {
+                            return Observable.error(classifyHttpError(streamResp));
+                        }
+
+                        if (streamResp.getEntity() == null) {
+                            return Observable.empty();
+                        }
+
+                        final MappingIterator<T> elements = ObjectConvertUtils.convertJsonStreamToIterator(
+                                streamResp.getEntity().getContent(), clazz);
+
+                        // The streaming parsing IOException is wrapped as RuntimeException by the iterator
+                        return Observable.from((Iterable<T>) () -> elements)
+                                .onErrorResumeNext(err -> Observable.error(
+                                        err.getCause() instanceof IOException ? err.getCause() : err))
+                                .doOnUnsubscribe(() -> {
+                                    try {
+                                        elements.close();
+                                    } catch (IOException ignore) {
+                                    }
+                                });
+                    } catch (IOException e) {
+                        return Observable.error(e);
+                    }
+                },
+                // Resource dispose
+                streamResp -> {
+                    try {
+                        streamResp.close();
+                    } catch (IOException ignore) {
+                        // The connection will be closed automatically after timeout,
+                        // the exception in closing can be ignored.
+                    }
+                });
+    }
+
     /**
      * Helper to convert the http response to a specified type
      *
@@ -410,6 +482,29 @@ public class HttpObservable implements ILogger {
                 .map(resp -> this.convertJsonResponseToObject(resp, clazz));
     }
 
+    /**
+     * GET the JSON resource and deserialize it from the response content stream directly,
+     * which is preferred for large responses to avoid buffering the whole content as String.
+     */
+    public <T> Observable<T> getStreaming(@NotNull final String uri,
+                                          final List<NameValuePair> parameters,
+                                          final List<Header> addOrReplaceHeaders,
+                                          @NotNull final Class<T> clazz) {
+        return request(new HttpGet(uri), null, parameters, addOrReplaceHeaders)
+                .flatMap(resp -> toObjectOnlyOkResponse(resp, clazz));
+    }
+
+    /**
+     * GET the JSON resource of top-level array and emit its elements one by one while the response is streaming.
+     */
+    public <T> Observable<T> getArrayElements(@NotNull final String uri,
+                                              final List<NameValuePair> parameters,
+                                              final List<Header> addOrReplaceHeaders,
+                                              @NotNull final Class<T> clazz) {
+        return request(new HttpGet(uri), null, parameters, addOrReplaceHeaders)
+                .flatMap(resp -> toElementsOnlyOkResponse(resp, clazz));
+    }
+
     public <T> Observable<T> put(@NotNull final String uri,
                                  @Nullable final HttpEntity entity,
                                  final List<NameValuePair> parameters,
@@ -14,6 +14,10 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
 
+/**
+ * @deprecated sends each 32KB BASE64 block as a blocking statement, use {@link ClusterFilePipelinedOutputStream} instead.
+ */
+@Deprecated
 public class ClusterFileBase64BufferedOutputStream extends OutputStream {
     private static final int DEFAULT_BLOCK_SIZE_KB = 32;      // 32KB block size
 
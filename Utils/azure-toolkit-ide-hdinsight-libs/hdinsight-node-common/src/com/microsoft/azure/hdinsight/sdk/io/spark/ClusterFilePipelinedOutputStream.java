@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.io.spark;
+
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The cluster file output stream to write binary content into the cluster file system through a Livy interactive
+ * session, which is the higher throughput replacement of {@link ClusterFileBase64BufferedOutputStream}.
+ *
+ * <ul>
+ * <li>The raw bytes are written directly, the BASE64 encoding is done inside.</li>
+ * <li>The block size adapts to the statement round trip time, from {@link #MIN_BLOCK_SIZE} to {@link #MAX_BLOCK_SIZE}.</li>
+ * <li>The writing thread reads and encodes the following blocks into a bounded queue while the previous block is being
+ * sent, the statements themselves are sent one at a time in order, since a Livy session runs its statements one by
+ * one anyway and the session and its HTTP context are not safe for concurrent requests.</li>
+ * <li>Each block can be GZIP compressed before encoding, and is sent compressed only when it's worth.</li>
+ * <li>The SHA-256 checksum of the written file is verified at the cluster side when closing.</li>
+ * </ul>
+ *
+ * The stream doesn't close the Livy session, which is owned by the caller.
+ */
+public class ClusterFilePipelinedOutputStream extends OutputStream {
+    public static final int MIN_BLOCK_SIZE = 128 * 1024;
+    // The block is inlined into the statement as BASE64 literals, which are about 4/3 of the block size
+    public static final int MAX_BLOCK_SIZE = 512 * 1024;
+    public static final int DEFAULT_MAX_QUEUED_BLOCKS = 4;
+    private static final long TARGET_STATEMENT_MILLIS = 3000;
+    // Scala string literal must be shorter than 64K in the class constant pool
+    private static final int MAX_LITERAL_LENGTH = 60000;
+    // Send compressed block only if it saves more than 10%
+    private static final double MIN_COMPRESSION_RATIO = 0.9;
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile("UPLOAD_SHA256:([0-9a-f]+)");
+
+    private static final String PRELOADED_CODES = String.join("\n",
+            "import java.io._",
+            "import java.security.MessageDigest",
+            "import java.util.Base64",
+            "import java.util.zip.GZIPInputStream",
+            "",
+            "val uploadOutput = \"%s\"",
+            "val uploadFs = org.apache.hadoop.fs.FileSystem.get(sc.hadoopConfiguration)",
+            "val uploadOut = new BufferedOutputStream(uploadFs.create(new org.apache.hadoop.fs.Path(uploadOutput), true))",
+            "val uploadDigest = MessageDigest.getInstance(\"SHA-256\")",
+            "var uploadNextSeq = 0L",
+            "",
+            "def writeBlock(seq: Long, compressed: Boolean, pages: String*) = {",
+            "    val decoded = Base64.getDecoder.decode(pages.mkString)",
+            "    val bytes = if (compressed) {",
+            "        val in = new GZIPInputStream(new ByteArrayInputStream(decoded))",
+            "        val decompressed = new ByteArrayOutputStream()",
+            "        val buf = new Array[Byte](65536)",
+            "        var len = in.read(buf)",
+            "        while (len > 0) {",
+            "            decompressed.write(buf, 0, len)",
+            "            len = in.read(buf)",
+            "        }",
+            "        decompressed.toByteArray",
+            "    } else decoded",
+            "",
+            "    require(seq == uploadNextSeq, s\"Expect block $uploadNextSeq but got $seq\")",
+            "    uploadOut.write(bytes, 0, bytes.length)",
+            "    uploadDigest.update(bytes)",
+            "    uploadNextSeq += 1",
+            "}",
+            "",
+            "def closeUpload(blocks: Long) = {",
+            "    require(uploadNextSeq == blocks, s\"Only $uploadNextSeq of $blocks blocks are written\")",
+            "    uploadOut.close()",
+            "    println(\"UPLOAD_SHA256:\" + uploadDigest.digest().map(\"%%02x\".format(_)).mkString)",
+            "}");
+
+    @NotNull
+    private final Session session;
+
+    private final boolean compressionEnabled;
+
+    private final int maxQueuedBlocks;
+
+    // Permits of the blocks encoded but not written yet
+    @NotNull
+    private final Semaphore queuedBlocks;
+
+    // Run the block statements one by one in order off the writing thread
+    @NotNull
+    private final ExecutorService statementExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("cluster-file-upload-%d")
+            .setDaemon(true)
+            .build());
+
+    @NotNull
+    private final MessageDigest digest;
+
+    @NotNull
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    @NotNull
+    private final AtomicLong payloadChars = new AtomicLong(0);
+
+    private volatile int blockSize = MIN_BLOCK_SIZE;
+
+    @NotNull
+    private byte[] buf = new byte[MIN_BLOCK_SIZE];
+
+    private int count = 0;
+
+    private long nextSeq = 0;
+
+    private boolean closed = false;
+
+    public ClusterFilePipelinedOutputStream(@NotNull Session session,
+                                            @NotNull URI destination,
+                                            boolean compressionEnabled,
+                                            int maxQueuedBlocks) {
+        this.session = session;
+        this.compressionEnabled = compressionEnabled;
+        this.maxQueuedBlocks = Math.max(1, maxQueuedBlocks);
+        this.queuedBlocks = new Semaphore(this.maxQueuedBlocks);
+
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // Pre-load
+        runCodes(String.format(PRELOADED_CODES, destination.toString()));
+    }
+
+    public ClusterFilePipelinedOutputStream(@NotNull Session session, @NotNull URI destination) {
+        this(session, destination, false, DEFAULT_MAX_QUEUED_BLOCKS);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(@NotNull byte[] b, int off, int len) throws IOException {
+        checkOpen();
+
+        while (len > 0) {
+            final int copied = Math.min(len, buf.length - count);
+            System.arraycopy(b, off, buf, count, copied);
+            count += copied;
+            off += copied;
+            len -= copied;
+
+            if (count == buf.length) {
+                sendBlock();
+            }
+        }
+    }
+
+    /**
+     * Send the buffered bytes as a block without waiting for it to be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkOpen();
+
+        if (count > 0) {
+            sendBlock();
+        }
+    }
+
+    /**
+     * Wait for all blocks written, close the cluster file and verify its checksum.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            flush();
+            queuedBlocks.acquire(maxQueuedBlocks);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted when waiting for the blocks written");
+        } finally {
+            closed = true;
+            statementExecutor.shutdownNow();
+        }
+
+        checkError();
+
+        final Map<String, String> result = runCodes(String.format("closeUpload(%dL)", nextSeq));
+        final String output = result == null ? "" : String.valueOf(result.get("text/plain"));
+        final Matcher matcher = CHECKSUM_PATTERN.matcher(output);
+        final String expected = Hex.encodeHexString(digest.digest());
+
+        if (!matcher.find() || !matcher.group(1).equals(expected)) {
+            throw new IOException(String.format(
+                    "The uploaded file checksum mismatched, expect SHA-256 %s but got: %s", expected, output));
+        }
+
+        super.close();
+    }
+
+    /**
+     * Get the code characters sent in total by the block statements, for diagnostics.
+     */
+    public long getPayloadChars() {
+        return payloadChars.get();
+    }
+
+    public long getBlocksCount() {
+        return nextSeq;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private void sendBlock() throws IOException {
+        checkError();
+
+        final byte[] raw = count == buf.length ? buf : Arrays.copyOf(buf, count);
+        digest.update(raw);
+
+        byte[] content = raw;
+        boolean compressed = false;
+        if (compressionEnabled) {
+            final byte[] gzipped = gzip(raw);
+            if (gzipped.length < raw.length * MIN_COMPRESSION_RATIO) {
+                content = gzipped;
+                compressed = true;
+            }
+        }
+
+        final String code = buildWriteBlockCodes(nextSeq++, compressed, Base64.getEncoder().encodeToString(content));
+
+        // Allocate a new buffer since the current one may be still referred, and pick up the adapted block size
+        buf = new byte[blockSize];
+        count = 0;
+
+        try {
+            queuedBlocks.acquire();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted when waiting for the queued blocks");
+        }
+
+        payloadChars.addAndGet(code.length());
+
+        statementExecutor.execute(() -> {
+            try {
+                // Skip the rest blocks once any one failed, the stream is broken anyway
+                if (error.get() == null) {
+                    final long start = System.nanoTime();
+                    runCodes(code);
+                    adaptBlockSize(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            } catch (Throwable err) {
+                error.compareAndSet(null, err);
+            } finally {
+                queuedBlocks.release();
+            }
+        });
+    }
+
+    @NotNull
+    private static String buildWriteBlockCodes(long seq, boolean compressed, @NotNull String encoded) {
+        final StringBuilder code = new StringBuilder(encoded.length() + 64)
+                .append("writeBlock(").append(seq).append("L, ").append(compressed);
+
+        for (int start = 0; start < encoded.length(); start += MAX_LITERAL_LENGTH) {
+            code.append(", \"")
+                .append(encoded, start, Math.min(encoded.length(), start + MAX_LITERAL_LENGTH))
+                .append('"');
+        }
+
+        return code.append(')').toString();
+    }
+
+    private void adaptBlockSize(long statementMillis) {
+        if (statementMillis < TARGET_STATEMENT_MILLIS / 2) {
+            blockSize = Math.min(blockSize * 2, MAX_BLOCK_SIZE);
+        } else if (statementMillis > TARGET_STATEMENT_MILLIS * 2) {
+            blockSize = Math.max(blockSize / 2, MIN_BLOCK_SIZE);
+        }
+    }
+
+    @NotNull
+    private static byte[] gzip(@NotNull byte[] raw) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(raw);
+        }
+
+        return out.toByteArray();
+    }
+
+    private Map<String, String> runCodes(@NotNull String codes) {
+        // Serialize the statements of the session, which may be shared by other streams
+        synchronized (session) {
+            return session.runCodes(codes)
+                    .toBlocking()
+                    .singleOrDefault(null);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The cluster file output stream is closed");
+        }
+    }
+
+    private void checkError() throws IOException {
+        final Throwable err = error.get();
+        if (err != null) {
+            throw new IOException("Failed to write block into the cluster file", err);
+        }
+    }
+}
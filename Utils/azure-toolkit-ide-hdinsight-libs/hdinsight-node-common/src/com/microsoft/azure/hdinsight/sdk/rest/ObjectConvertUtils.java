@@ -8,6 +8,7 @@ package com.microsoft.azure.hdinsight.sdk.rest;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
@@ -16,6 +17,7 @@ import org.apache.http.HttpEntity;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,6 +32,23 @@ public final class ObjectConvertUtils {
         return Optional.ofNullable(objectMapper.readValue(jsonString, clazz));
     }
 
+    /**
+     * Deserialize the JSON content stream into an object directly, without buffering the whole content as String.
+     * The stream is left open for the caller to close.
+     */
+    public static <T> Optional<T> convertJsonStreamToObject(@NotNull InputStream jsonStream, @NotNull Class<T> clazz) throws IOException {
+        return Optional.ofNullable(objectMapper.readValue(jsonStream, clazz));
+    }
+
+    /**
+     * Deserialize the JSON content stream element by element. For a top-level JSON array, the iterator walks through
+     * the array elements lazily with the streaming parser, so only one element is held at a time.
+     * Closing the iterator closes the stream.
+     */
+    public static <T> MappingIterator<T> convertJsonStreamToIterator(@NotNull InputStream jsonStream, @NotNull Class<T> clazz) throws IOException {
+        return objectMapper.readerFor(clazz).readValues(jsonStream);
+    }
+
     public static <T> T convertToObjectQuietly(@NotNull String jsonString, @NotNull Class<T> clazz) {
         try {
             return objectMapper.readValue(jsonString, clazz);
@@ -7,32 +7,43 @@ package com.microsoft.azure.hdinsight.sdk.storage.adlsgen2;
 
 import com.google.common.collect.ImmutableList;
 import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
+import com.microsoft.azure.hdinsight.sdk.common.SharedKeyHttpObservable;
 import com.microsoft.azure.hdinsight.sdk.rest.azure.storageaccounts.RemoteFile;
 import com.microsoft.azure.hdinsight.sdk.rest.azure.storageaccounts.api.GetRemoteFilesResponse;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
 import rx.Observable;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.UnknownServiceException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ADLSGen2FSOperation {
     public static final String DEFAULT_UMASK = "0000";
     public static final String PERMISSIONS_HEADER = "x-ms-permissions";
     public static final String UMASK_HEADER = "x-ms-umask";
+    public static final int APPEND_BLOCK_SIZE = 8 * 1024 * 1024;
+    public static final int MAX_CONCURRENT_APPENDS = 4;
+    public static final int MAX_BLOCK_RETRIES = 3;
+    private static final int BLOCK_RETRY_DELAY_SECONDS = 2;
 
     private HttpObservable http;
 
@@ -42,9 +53,6 @@ public class ADLSGen2FSOperation {
     @NotNull
     private List<NameValuePair> createFileReqParams;
 
-    @NotNull
-    private List<NameValuePair> appendReqParams;
-
     @NotNull
     private ADLSGen2ParamsBuilder listReqBuilder;
 
@@ -61,11 +69,6 @@ public class ADLSGen2FSOperation {
                 .setResource("file")
                 .build();
 
-        this.appendReqParams = new ADLSGen2ParamsBuilder()
-                .setAction("append")
-                .setPosition(0)
-                .build();
-
         this.flushReqParamsBuilder = new ADLSGen2ParamsBuilder()
                 .setAction("flush");
     }
@@ -111,7 +114,20 @@ public class ADLSGen2FSOperation {
     }
 
     public Observable<Boolean> uploadData(String destFilePath, File src) {
-        return appendData(destFilePath, src)
+        return uploadData(destFilePath, src, null);
+    }
+
+    /**
+     * Upload the file to the created remote file by appending blocks in parallel and flushing once at the end.
+     *
+     * @param destFilePath the remote file path
+     * @param src the local file to upload
+     * @param uploadInProcessCallback the callback with the total uploaded bytes after each block is appended
+     */
+    public Observable<Boolean> uploadData(String destFilePath,
+                                          File src,
+                                          @Nullable CallableSingleArg<Void, Long> uploadInProcessCallback) {
+        return appendData(destFilePath, src, uploadInProcessCallback)
                 .flatMap(len -> flushData(destFilePath, len));
     }
 
@@ -128,25 +144,103 @@ public class ADLSGen2FSOperation {
                 .flatMap(pathList -> Observable.from(pathList.getRemoteFiles()));
     }
 
-    private Observable<Long> appendData(String filePath, File src) {
-        try {
-            InputStreamEntity reqEntity = new InputStreamEntity(
-                    new FileInputStream(src),
-                    -1,
-                    ContentType.APPLICATION_OCTET_STREAM);
-            BufferedHttpEntity entity = new BufferedHttpEntity(reqEntity);
-            long len = entity.getContentLength();
-
-            HttpPatch req = new HttpPatch(filePath);
-            http.setContentType("application/octet-stream");
-
-            return http.executeReqAndCheckStatus(req, entity, this.appendReqParams, Collections.emptyList(), 202)
-                    .map(ignore -> len);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(new IllegalArgumentException("Can not find the aritifact"));
-        } catch (IOException e) {
-            throw new RuntimeException(new IllegalArgumentException("Can not read the aritfact"));
+    /**
+     * Append the file content to the remote file block by block. The blocks are read from the file channel at their
+     * positions and appended to the same positions, at most {@link #MAX_CONCURRENT_APPENDS} in parallel, so that only
+     * the in-flight blocks are held in memory. Each request is signed by itself, see {@link SharedKeyHttpObservable},
+     * and the appends share the one route of the file, which is all the shared HTTP context keeps per request. A
+     * failed block is retried by itself rather than restarting the whole upload.
+     *
+     * @return the total length appended, which is the position to flush
+     */
+    private Observable<Long> appendData(String filePath,
+                                        File src,
+                                        @Nullable CallableSingleArg<Void, Long> uploadInProcessCallback) {
+        if (!src.isFile()) {
+            return Observable.error(new IllegalArgumentException("Can not find the aritifact"));
         }
+
+        final long len = src.length();
+        final AtomicLong uploadedBytes = new AtomicLong(0);
+        http.setContentType("application/octet-stream");
+
+        return Observable.using(
+                () -> {
+                    try {
+                        return FileChannel.open(src.toPath(), StandardOpenOption.READ);
+                    } catch (IOException e) {
+                        throw new RuntimeException(new IllegalArgumentException("Can not read the aritfact", e));
+                    }
+                },
+                channel -> Observable.range(0, (int) ((len + APPEND_BLOCK_SIZE - 1) / APPEND_BLOCK_SIZE))
+                        .map(index -> (long) index * APPEND_BLOCK_SIZE)
+                        .flatMap(position -> appendBlock(filePath, channel, position, (int) Math.min(APPEND_BLOCK_SIZE, len - position))
+                                        .doOnNext(blockLen -> {
+                                            final long uploaded = uploadedBytes.addAndGet(blockLen);
+                                            if (uploadInProcessCallback != null) {
+                                                try {
+                                                    uploadInProcessCallback.call(uploaded);
+                                                } catch (Exception ignored) {
+                                                    // The progress reporting failure shouldn't break the uploading
+                                                }
+                                            }
+                                        }), MAX_CONCURRENT_APPENDS),
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                    }
+                })
+                .count()
+                .map(ignore -> len);
+    }
+
+    private Observable<Integer> appendBlock(String filePath, FileChannel channel, long position, int blockLen) {
+        return Observable.defer(() -> {
+                    // Read the block for each try, not to hold the block during the retry delay
+                    final ByteBuffer block = ByteBuffer.allocate(blockLen);
+                    try {
+                        while (block.hasRemaining()) {
+                            if (channel.read(block, position + block.position()) < 0) {
+                                return Observable.<CloseableHttpResponse>error(new IOException("The aritifact is changed during uploading"));
+                            }
+                        }
+                    } catch (IOException e) {
+                        return Observable.<CloseableHttpResponse>error(e);
+                    }
+
+                    final ByteArrayEntity entity = new ByteArrayEntity(
+                            block.array(), 0, blockLen, ContentType.APPLICATION_OCTET_STREAM);
+                    final List<NameValuePair> appendReqParams = new ADLSGen2ParamsBuilder()
+                            .setAction("append")
+                            .setPosition(position)
+                            .build();
+
+                    return http.request(new HttpPatch(filePath), entity, appendReqParams, Collections.emptyList());
+                })
+                .map(resp -> {
+                    // Always release the connection, even for the unexpected status to retry
+                    try {
+                        final int statusCode = resp.getStatusLine().getStatusCode();
+                        if (statusCode != 202) {
+                            throw new RuntimeException(new UnknownServiceException(String.format(
+                                    "Append data at position %d with unexpected code %d and resp %s", position, statusCode, resp)));
+                        }
+
+                        return blockLen;
+                    } finally {
+                        EntityUtils.consumeQuietly(resp.getEntity());
+                        try {
+                            resp.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                })
+                .retryWhen(errors -> errors
+                        .zipWith(Observable.range(1, MAX_BLOCK_RETRIES + 1), (err, retries) -> retries > MAX_BLOCK_RETRIES
+                                ? Observable.<Long>error(err)
+                                : Observable.timer(retries * BLOCK_RETRY_DELAY_SECONDS, TimeUnit.SECONDS))
+                        .flatMap(delay -> delay));
     }
 
     private Observable<Boolean> flushData(String filePath, long flushLen) {
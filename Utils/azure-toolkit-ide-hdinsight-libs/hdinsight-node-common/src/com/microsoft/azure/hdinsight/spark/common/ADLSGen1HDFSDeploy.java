@@ -11,6 +11,7 @@ import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import org.apache.http.client.utils.URIBuilder;
 
+import java.net.URI;
 import java.net.URISyntaxException;
 
 // for cluster with adls account to deploy using webhdfs storage account type
@@ -27,4 +28,14 @@ public class ADLSGen1HDFSDeploy extends WebHDFSDeploy {
         builder.setScheme(cluster.getStorageAccount().getDefaultStorageSchema());
         return builder.build().toString();
     }
+
+    @Override
+    public String getArtifactWebHdfsPath(String uploadedPath) throws URISyntaxException {
+        // convert adl://xx/hdi-root/SparkSubmission/artifact.jar back to https://xx/webhdfs/v1/hdi-root/SparkSubmission/artifact.jar
+        final URI destinationRoot = URI.create(destinationRootPath);
+        final URIBuilder builder = new URIBuilder(uploadedPath);
+        builder.setScheme(destinationRoot.getScheme());
+        builder.setPath("/webhdfs/v1" + builder.getPath());
+        return builder.build().toString();
+    }
 }
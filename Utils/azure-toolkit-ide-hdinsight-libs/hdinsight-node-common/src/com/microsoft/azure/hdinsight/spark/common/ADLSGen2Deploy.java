@@ -6,6 +6,7 @@
 package com.microsoft.azure.hdinsight.spark.common;
 
 import com.microsoft.azure.hdinsight.common.AbfsUri;
+import com.microsoft.azure.hdinsight.common.MessageInfoType;
 import com.microsoft.azure.hdinsight.common.UriUtil;
 import com.microsoft.azure.hdinsight.common.logger.ILogger;
 import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
@@ -15,6 +16,8 @@ import com.microsoft.azure.hdinsight.spark.jobs.JobUtils;
 import com.microsoft.azure.toolkit.lib.Azure;
 import com.microsoft.azure.toolkit.lib.auth.AzureAccount;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
 import org.apache.http.HttpStatus;
 import rx.Observable;
 import rx.Observer;
@@ -22,6 +25,9 @@ import rx.exceptions.Exceptions;
 
 import java.io.File;
 import java.net.URI;
+import java.util.Collections;
+
+import static com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine.TOOL;
 
 public class ADLSGen2Deploy implements Deployable, ILogger {
     @NotNull
@@ -76,11 +82,31 @@ public class ADLSGen2Deploy implements Deployable, ILogger {
                  })
                  .doOnNext(ignore -> log().info(String.format("Create filesystem %s successfully.", dirPath)))
                  .flatMap(ignore -> op.createFile(filePath, "0755"))
-                 .flatMap(ignore -> op.uploadData(filePath, src))
+                 .flatMap(ignore -> op.uploadData(filePath, src, new CallableSingleArg<Void, Long>() {
+                     @Override
+                     public Void call(Long uploadedBytes) {
+                         logSubject.onNext(new SparkLogLine(TOOL, MessageInfoType.Info, String.format(
+                                 "Uploaded %d of %d bytes to %s", uploadedBytes, src.length(), filePath)));
+                         return null;
+                     }
+                 }))
                  .doOnNext(ignore -> log().info(String.format("Append data to file %s successfully.", filePath)))
                  .map(ignored -> AbfsUri.parse(filePath).getUri().toString());
     }
 
+    @Override
+    public Observable<Boolean> isDeployed(String uploadedPath) {
+        return http.head(AbfsUri.parse(uploadedPath).getUrl().toString(), Collections.emptyList(), Collections.emptyList())
+                   .map(ignored -> true)
+                   .onErrorReturn(err -> false);
+    }
+
+    @Nullable
+    @Override
+    public String getDeployTarget() {
+        return destinationRootPath;
+    }
+
     public static String getForbiddenErrorHints(String fileSystemRootPath) {
         final String signInUserEmail = Azure.az(AzureAccount.class).account().getUsername();
         return " Please verify if\n"
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.microsoft.azure.hdinsight.common.HDInsightLoader;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The local index of the uploaded artifacts, from the artifact content SHA-256 hash and the storage target to the
+ * uploaded path. The index is persisted in the plugin root folder, so that an unchanged artifact can be reused across
+ * the IDE sessions.
+ */
+public final class ArtifactUploadIndex implements ILogger {
+    private static final String INDEX_FILE_NAME = "artifactUploadIndex.properties";
+    private static final ArtifactUploadIndex INSTANCE = new ArtifactUploadIndex();
+
+    // The content hash of the local files, keyed by the path, length and last modified time
+    @NotNull
+    private final Map<String, String> contentHashes = new ConcurrentHashMap<>();
+
+    @Nullable
+    private Properties uploadedPaths;
+
+    private ArtifactUploadIndex() {
+    }
+
+    @NotNull
+    public static ArtifactUploadIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the SHA-256 hash of the file content, the file isn't read again until it's modified.
+     */
+    @NotNull
+    public String getContentHash(@NotNull File artifact) throws IOException {
+        final String fileKey = String.format("%s|%d|%d", artifact.getAbsolutePath(), artifact.length(), artifact.lastModified());
+        final String cached = contentHashes.get(fileKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        try (InputStream content = Files.newInputStream(artifact.toPath())) {
+            final String hash = DigestUtils.sha256Hex(content);
+            contentHashes.put(fileKey, hash);
+
+            return hash;
+        }
+    }
+
+    @Nullable
+    public synchronized String getUploadedPath(@NotNull String target, @NotNull String contentHash) {
+        return getUploadedPaths().getProperty(getIndexKey(target, contentHash));
+    }
+
+    public synchronized void putUploadedPath(@NotNull String target, @NotNull String contentHash, @NotNull String uploadedPath) {
+        getUploadedPaths().setProperty(getIndexKey(target, contentHash), uploadedPath);
+        save();
+    }
+
+    public synchronized void removeUploadedPath(@NotNull String target, @NotNull String contentHash) {
+        if (getUploadedPaths().remove(getIndexKey(target, contentHash)) != null) {
+            save();
+        }
+    }
+
+    @NotNull
+    private static String getIndexKey(@NotNull String target, @NotNull String contentHash) {
+        return contentHash + "@" + target;
+    }
+
+    @NotNull
+    private Properties getUploadedPaths() {
+        if (uploadedPaths != null) {
+            return uploadedPaths;
+        }
+
+        uploadedPaths = new Properties();
+
+        final Path indexFile = getIndexFile();
+        if (indexFile != null && Files.isRegularFile(indexFile)) {
+            try (InputStream in = Files.newInputStream(indexFile)) {
+                uploadedPaths.load(in);
+            } catch (IOException ex) {
+                log().warn("Failed to load the artifact upload index " + indexFile, ex);
+            }
+        }
+
+        return uploadedPaths;
+    }
+
+    private void save() {
+        final Path indexFile = getIndexFile();
+        if (indexFile == null || uploadedPaths == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(indexFile.getParent());
+
+            // Write to a temporary file and then move it, not to corrupt the index by a partial writing
+            final Path temp = Files.createTempFile(indexFile.getParent(), INDEX_FILE_NAME, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                uploadedPaths.store(out, "The uploaded Spark job artifacts by content SHA-256 hash and storage target");
+            }
+
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log().warn("Failed to save the artifact upload index " + indexFile, ex);
+        }
+    }
+
+    @Nullable
+    private Path getIndexFile() {
+        try {
+            return Paths.get(HDInsightLoader.getHDInsightHelper().getPluginRootPath(), INDEX_FILE_NAME);
+        } catch (Exception ex) {
+            // To fix exception in unit test
+            return null;
+        }
+    }
+}
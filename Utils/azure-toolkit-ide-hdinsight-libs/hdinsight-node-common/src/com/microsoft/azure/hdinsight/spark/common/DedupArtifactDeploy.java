@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.microsoft.azure.hdinsight.common.MessageInfoType;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.Observer;
+
+import java.io.File;
+
+import static com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine.TOOL;
+
+/**
+ * The deploy decorator to reuse the artifact uploaded before when its content isn't changed.
+ *
+ * The uploaded artifacts are indexed by content SHA-256 hash and storage target in {@link ArtifactUploadIndex}. An
+ * indexed artifact is reused only after the delegate confirms it still exists in the storage by
+ * {@link Deployable#isDeployed(String)}, otherwise it's uploaded again as usual.
+ */
+public class DedupArtifactDeploy implements Deployable, ILogger {
+    @NotNull
+    private final Deployable delegate;
+
+    @NotNull
+    private final ArtifactUploadIndex index;
+
+    public DedupArtifactDeploy(@NotNull Deployable delegate) {
+        this(delegate, ArtifactUploadIndex.getInstance());
+    }
+
+    public DedupArtifactDeploy(@NotNull Deployable delegate, @NotNull ArtifactUploadIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @NotNull
+    public Deployable getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Observable<String> deploy(File src, Observer<SparkLogLine> logSubject) {
+        final String target = delegate.getDeployTarget();
+        if (target == null) {
+            return delegate.deploy(src, logSubject);
+        }
+
+        return Observable.fromCallable(() -> index.getContentHash(src))
+                .flatMap(hash -> {
+                    final String uploadedPath = index.getUploadedPath(target, hash);
+                    if (uploadedPath == null) {
+                        return deployAndIndex(src, logSubject, target, hash);
+                    }
+
+                    return delegate.isDeployed(uploadedPath)
+                            .onErrorReturn(err -> {
+                                log().debug("Failed to check the uploaded artifact " + uploadedPath, err);
+                                return false;
+                            })
+                            .flatMap(isDeployed -> {
+                                if (!isDeployed) {
+                                    index.removeUploadedPath(target, hash);
+                                    return deployAndIndex(src, logSubject, target, hash);
+                                }
+
+                                logSubject.onNext(new SparkLogLine(TOOL, MessageInfoType.Info, String.format(
+                                        "The artifact %s isn't changed, reuse the uploaded one %s", src.getName(), uploadedPath)));
+
+                                return Observable.just(uploadedPath);
+                            });
+                });
+    }
+
+    @NotNull
+    private Observable<String> deployAndIndex(@NotNull File src,
+                                              @NotNull Observer<SparkLogLine> logSubject,
+                                              @NotNull String target,
+                                              @NotNull String hash) {
+        return delegate.deploy(src, logSubject)
+                .doOnNext(uploadedPath -> index.putUploadedPath(target, hash, uploadedPath));
+    }
+
+    @Override
+    public Observable<Boolean> isDeployed(String uploadedPath) {
+        return delegate.isDeployed(uploadedPath);
+    }
+
+    @Nullable
+    @Override
+    public String getDeployTarget() {
+        return delegate.getDeployTarget();
+    }
+}
@@ -6,6 +6,7 @@
 package com.microsoft.azure.hdinsight.spark.common;
 
 import com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import rx.Observable;
 import rx.Observer;
 
@@ -21,4 +22,24 @@ public interface Deployable {
      * Observable Error: IOException;
      */
     Observable<String> deploy(File src, Observer<SparkLogLine> logSubject);
+
+    /**
+     * Check if the artifact deployed before still exists in the storage
+     *
+     * @param uploadedPath the upload path returned by deploying
+     * @return Observable: true for existing, the default implementation can't check the storage and always returns false
+     */
+    default Observable<Boolean> isDeployed(String uploadedPath) {
+        return Observable.just(false);
+    }
+
+    /**
+     * Get the storage target identity to index the deployed artifacts
+     *
+     * @return the storage target, or null if the deployed artifacts can't be reused
+     */
+    @Nullable
+    default String getDeployTarget() {
+        return null;
+    }
 }
@@ -14,14 +14,17 @@ import com.microsoft.azure.hdinsight.spark.jobs.JobUtils;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.util.EntityUtils;
 import rx.Observable;
 import rx.Observer;
 import rx.exceptions.Exceptions;
@@ -119,6 +122,36 @@ public class WebHDFSDeploy implements Deployable, ILogger {
                 });
     }
 
+    @Override
+    public Observable<Boolean> isDeployed(String uploadedPath) {
+        final String webHdfsPath;
+        try {
+            webHdfsPath = getArtifactWebHdfsPath(uploadedPath);
+        } catch (final URISyntaxException ex) {
+            return Observable.just(false);
+        }
+
+        return http.request(new HttpGet(webHdfsPath), null, new WebHdfsParamsBuilder("GETFILESTATUS").build(), null)
+                .map(resp -> {
+                    EntityUtils.consumeQuietly(resp.getEntity());
+                    return resp.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
+                })
+                .onErrorReturn(err -> false);
+    }
+
+    @Nullable
+    @Override
+    public String getDeployTarget() {
+        return destinationRootPath;
+    }
+
+    /**
+     * Convert the artifact uploaded path back to the WebHDFS path without operation parameters
+     */
+    public String getArtifactWebHdfsPath(String uploadedPath) throws URISyntaxException {
+        return new URIBuilder(uploadedPath).removeQuery().build().toString();
+    }
+
     @Nullable
     public String getArtifactUploadedPath(String rootPath) throws URISyntaxException {
         final List<NameValuePair> params = new WebHdfsParamsBuilder("OPEN").build();
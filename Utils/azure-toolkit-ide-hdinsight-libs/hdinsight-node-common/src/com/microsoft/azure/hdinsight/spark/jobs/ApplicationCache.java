@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.microsoft.azure.hdinsight.common.ApplicationProperties;
+import com.microsoft.azure.hdinsight.common.CommonConst;
+import com.microsoft.azure.hdinsight.common.HDInsightLoader;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * The Job View cache of an application data, whose policy depends on the application state.
+ *
+ * The data of a running application is kept in the active cache and refreshed in background once it's older than
+ * the refresh interval, the stale data is served until the refreshing completes. Once the application is
+ * terminated, its data never changes, so it's loaded once more and moved into the terminal cache, where it's
+ * retained without expiry and only evicted by the total weight limit. The terminal data can optionally be persisted
+ * on disk by the IDE application property {@link CommonConst#SPARK_JOB_VIEW_CACHE_PERSISTENCE}, to survive the IDE
+ * restart.
+ *
+ * @param <V> the cached data type
+ */
+public class ApplicationCache<V> implements ILogger {
+    public static final int DEFAULT_REFRESH_SECONDS = 10;
+    private static final int MAX_ACTIVE_APPLICATIONS = 100;
+    private static final int ACTIVE_EXPIRE_MINUTES = 10;
+    private static final String PERSISTENCE_FOLDER = "jobViewCache";
+
+    static final Executor REFRESH_EXECUTOR = Executors.newFixedThreadPool(4, new ThreadFactoryBuilder()
+            .setNameFormat("job-view-cache-refresh-%d")
+            .setDaemon(true)
+            .build());
+
+    @NotNull
+    private final String name;
+
+    @NotNull
+    private final CacheLoader<ApplicationKey, V> loader;
+
+    @NotNull
+    private final Predicate<ApplicationKey> isTerminated;
+
+    @NotNull
+    private final LoadingCache<ApplicationKey, V> activeCache;
+
+    @NotNull
+    private final Cache<ApplicationKey, V> terminalCache;
+
+    @Nullable
+    private final Deserializer<V> deserializer;
+
+    /**
+     * Create the cache for the application data.
+     *
+     * @param name the cache name, which is also the persistence folder name
+     * @param loader the application data loader
+     * @param isTerminated the predicate whether the application is terminated or not
+     * @param weigher the weigher of the terminated application data
+     * @param maxTerminalWeight the total weight limit of the terminated application data
+     * @param deserializer the persisted data deserializer, or null to never persist the data
+     */
+    public ApplicationCache(@NotNull String name,
+                            @NotNull CacheLoader<ApplicationKey, V> loader,
+                            @NotNull Predicate<ApplicationKey> isTerminated,
+                            @NotNull Weigher<ApplicationKey, V> weigher,
+                            long maxTerminalWeight,
+                            @Nullable Deserializer<V> deserializer) {
+        this.name = name;
+        this.loader = loader;
+        this.isTerminated = isTerminated;
+        this.deserializer = deserializer;
+
+        this.activeCache = CacheBuilder.newBuilder()
+                .maximumSize(MAX_ACTIVE_APPLICATIONS)
+                .expireAfterAccess(ACTIVE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .refreshAfterWrite(getRefreshSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(loader, REFRESH_EXECUTOR));
+
+        this.terminalCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxTerminalWeight)
+                .weigher(weigher)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Create the cache for the application data list, the terminated application data is weighed by the list size.
+     */
+    @NotNull
+    public static <E> ApplicationCache<List<E>> ofList(@NotNull String name,
+                                                       @NotNull Class<E> elementClass,
+                                                       @NotNull CacheLoader<ApplicationKey, List<E>> loader,
+                                                       @NotNull Predicate<ApplicationKey> isTerminated,
+                                                       long maxTerminalElements) {
+        return new ApplicationCache<>(name,
+                                      loader,
+                                      isTerminated,
+                                      (key, elements) -> elements.size(),
+                                      maxTerminalElements,
+                                      json -> ObjectConvertUtils.convertJsonToList(json, elementClass));
+    }
+
+    @NotNull
+    public V get(@NotNull ApplicationKey key) throws ExecutionException {
+        final V terminal = terminalCache.getIfPresent(key);
+        if (terminal != null) {
+            return terminal;
+        }
+
+        if (!isTerminated.test(key)) {
+            return activeCache.get(key);
+        }
+
+        // The active data may be loaded before the application terminated, so it's loaded once again
+        final V loaded = terminalCache.get(key, () -> loadTerminal(key));
+        activeCache.invalidate(key);
+
+        return loaded;
+    }
+
+    /**
+     * Get the cached data of the terminated application.
+     *
+     * @param key the application key
+     * @return the cached terminal data, or null if the application isn't cached as terminated
+     */
+    @Nullable
+    public V getTerminalIfPresent(@NotNull ApplicationKey key) {
+        return terminalCache.getIfPresent(key);
+    }
+
+    public void invalidate(@NotNull ApplicationKey key) {
+        activeCache.invalidate(key);
+        terminalCache.invalidate(key);
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the hit / miss / load time statistics of the active applications cache. They're reported separately from
+     * the terminal ones, since a terminal lookup misses the active cache first and summing up counts it twice.
+     */
+    @NotNull
+    public CacheStats getActiveStats() {
+        return activeCache.stats();
+    }
+
+    /**
+     * Get the hit / miss / load time statistics of the terminal applications cache.
+     */
+    @NotNull
+    public CacheStats getTerminalStats() {
+        return terminalCache.stats();
+    }
+
+    @NotNull
+    private V loadTerminal(@NotNull ApplicationKey key) throws Exception {
+        final Path persisted = getPersistencePath(key);
+
+        if (persisted != null && Files.isRegularFile(persisted)) {
+            try {
+                final Optional<V> restored = deserializer.deserialize(
+                        new String(Files.readAllBytes(persisted), StandardCharsets.UTF_8));
+                if (restored.isPresent()) {
+                    return restored.get();
+                }
+            } catch (IOException ex) {
+                log().warn("Failed to restore the persisted " + name + " cache of " + key.getAppId(), ex);
+            }
+        }
+
+        final V loaded = loader.load(key);
+
+        if (persisted != null) {
+            persist(persisted, loaded);
+        }
+
+        return loaded;
+    }
+
+    private void persist(@NotNull Path path, @NotNull V data) {
+        final Optional<String> json = ObjectConvertUtils.convertObjectToJsonString(data);
+        if (!json.isPresent()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            // Write to a temporary file and then move it, not to leave a partial file to restore
+            final Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            Files.write(temp, json.get().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log().warn("Failed to persist the " + name + " cache of " + path.getFileName(), ex);
+        }
+    }
+
+    @Nullable
+    private Path getPersistencePath(@NotNull ApplicationKey key) {
+        if (deserializer == null || !isPersistenceEnabled()) {
+            return null;
+        }
+
+        try {
+            return Paths.get(HDInsightLoader.getHDInsightHelper().getPluginRootPath(),
+                             PERSISTENCE_FOLDER,
+                             toFileName(key.getClusterDetails().getName()),
+                             toFileName(key.getAppId()),
+                             name + ".json");
+        } catch (Exception ex) {
+            log().warn("Can't get the " + name + " cache persistence path of " + key.getAppId(), ex);
+            return null;
+        }
+    }
+
+    @NotNull
+    private static String toFileName(@NotNull String name) {
+        return name.replaceAll("[^\\w.-]", "_");
+    }
+
+    private static boolean isPersistenceEnabled() {
+        return ApplicationProperties.getBoolean(CommonConst.SPARK_JOB_VIEW_CACHE_PERSISTENCE, false);
+    }
+
+    static int getRefreshSeconds() {
+        return ApplicationProperties.getPositiveInt(CommonConst.SPARK_JOB_VIEW_CACHE_REFRESH_SECONDS, DEFAULT_REFRESH_SECONDS);
+    }
+
+    @FunctionalInterface
+    public interface Deserializer<V> {
+        Optional<V> deserialize(@NotNull String json) throws IOException;
+    }
+}
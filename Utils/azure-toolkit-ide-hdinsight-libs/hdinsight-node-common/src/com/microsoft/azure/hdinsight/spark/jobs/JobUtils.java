@@ -11,6 +11,7 @@ import com.google.gson.reflect.TypeToken;
 import com.jcraft.jsch.*;
 import com.microsoft.azure.datalake.store.ADLStoreClient;
 import com.microsoft.azure.datalake.store.IfExists;
+import com.microsoft.azure.arcadia.sdk.common.MfaEspSparkHttpObservable;
 import com.microsoft.azure.hdinsight.common.ClusterManagerEx;
 import com.microsoft.azure.hdinsight.common.HDInsightLoader;
 import com.microsoft.azure.hdinsight.common.MessageInfoType;
@@ -22,8 +23,9 @@ import com.microsoft.azure.hdinsight.sdk.cluster.MfaEspCluster;
 import com.microsoft.azure.hdinsight.sdk.common.AuthenticationException;
 import com.microsoft.azure.hdinsight.sdk.common.HDIException;
 import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
+import com.microsoft.azure.hdinsight.sdk.common.errorresponse.HttpErrorStatus;
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SparkSession;
-import com.microsoft.azure.hdinsight.sdk.io.spark.ClusterFileBase64BufferedOutputStream;
+import com.microsoft.azure.hdinsight.sdk.io.spark.ClusterFilePipelinedOutputStream;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azure.hdinsight.sdk.storage.implementation.HDStorageAccount;
@@ -45,7 +47,6 @@ import com.microsoft.azure.hdinsight.sdk.storage.StorageClientSDKManager;
 import com.microsoft.azure.hdinsight.sdk.storage.BlobContainer;
 import com.microsoft.azure.hdinsight.sdk.storage.model.ClientStorageAccount;
 import com.sun.net.httpserver.HttpExchange;
-import org.apache.commons.codec.binary.Base64OutputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.*;
@@ -85,6 +86,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.UnknownServiceException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.List;
 import java.util.AbstractMap.SimpleImmutableEntry;
@@ -92,6 +94,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import static com.microsoft.azure.hdinsight.common.MessageInfoType.Info;
 import static com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine.TOOL;
@@ -100,6 +103,7 @@ import static rx.exceptions.Exceptions.propagate;
 
 public class JobUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(JobUtils.class);
+    private static final int MIN_GZIP_RESPONSE_SIZE = 1024;
     private static final String JobLogFolderName = "SparkJobLog";
     private static final String yarnUIHisotryFormat = "%s/yarnui/hn/cluster/app/%s";
 
@@ -113,9 +117,22 @@ public class JobUtils {
 
     public static void setResponse(@NotNull HttpExchange httpExchange, @NotNull String message, int code) {
         try {
-            httpExchange.sendResponseHeaders(code, message.length());
+            byte[] content = message.getBytes(StandardCharsets.UTF_8);
+
+            // Compress the large response if the client accepts GZIP
+            if (content.length >= MIN_GZIP_RESPONSE_SIZE && isGzipAccepted(httpExchange)) {
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+                try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+                    gzipStream.write(content);
+                }
+
+                content = compressed.toByteArray();
+                httpExchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+
+            httpExchange.sendResponseHeaders(code, content.length);
             final OutputStream stream = httpExchange.getResponseBody();
-            stream.write(message.getBytes());
+            stream.write(content);
             stream.flush();
             httpExchange.close();
         } catch (final IOException e) {
@@ -123,6 +140,14 @@ public class JobUtils {
         }
     }
 
+    private static boolean isGzipAccepted(@NotNull HttpExchange httpExchange) {
+        final List<String> acceptEncodings = httpExchange.getRequestHeaders().get("Accept-Encoding");
+
+        return acceptEncodings != null && acceptEncodings.stream()
+                .flatMap(encodings -> Arrays.stream(encodings.split(",")))
+                .anyMatch(encoding -> encoding.trim().toLowerCase().startsWith("gzip"));
+    }
+
     public static URI getLivyLogPath(@NotNull String rootPath, @NotNull String applicationId) {
         final String path = StringHelper.concat(rootPath, File.separator, JobLogFolderName, File.separator, applicationId);
         final File file = new File(path);
@@ -432,6 +457,46 @@ public class JobUtils {
         }
     }
 
+    /**
+     * Create the HttpObservable with the cluster's authentication, to request the cluster's REST APIs,
+     * such as Spark history server and Yarn resource manager.
+     */
+    @NotNull
+    public static HttpObservable getHttpObservable(@NotNull final IClusterDetail clusterDetail) throws IOException, HDIException {
+        if (clusterDetail instanceof MfaEspCluster) {
+            final String tenantId = ((MfaEspCluster) clusterDetail).getTenantId();
+
+            if (tenantId == null) {
+                throw new UnknownServiceException("Can't get HIB cluster Tenant ID");
+            }
+
+            return new MfaEspSparkHttpObservable(tenantId);
+        }
+
+        return new HttpObservable(clusterDetail.getHttpUserName(), clusterDetail.getHttpPassword());
+    }
+
+    /**
+     * Wait for the single result of the REST API requesting Observable, and unwrap the errors into checked exceptions.
+     */
+    public static <T> T getRestResultBlocking(@NotNull final Observable<T> request) throws IOException, HDIException {
+        try {
+            return request.toBlocking().single();
+        } catch (final RuntimeException ex) {
+            final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+
+            if (cause instanceof HttpErrorStatus) {
+                throw new HDIException(cause.getMessage(), ((HttpErrorStatus) cause).getStatusCode());
+            } else if (cause instanceof HDIException) {
+                throw (HDIException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw ex;
+        }
+    }
+
     @Nullable
     private static BlobContainer getSparkClusterContainer(ClientStorageAccount storageAccount, String dealtContainerName) throws AzureCmdException {
         final List<BlobContainer> containerList = StorageClientSDKManager.getManager().getBlobContainers(storageAccount.getConnectionString());
@@ -657,20 +722,12 @@ public class JobUtils {
                                                         err -> ctrlError(legacyLogSubject, newLogSubject, err),
                                                         () -> {});
 
-                                 ClusterFileBase64BufferedOutputStream clusterFileBase64Out =
-                                         new ClusterFileBase64BufferedOutputStream(sparkSession, destUri);
-                                 Base64OutputStream base64Enc = new Base64OutputStream(clusterFileBase64Out, true);
-                                 InputStream inFile;
-
-                                 try {
-                                     inFile = new BufferedInputStream(new FileInputStream(srcJarFile));
-
+                                 try (InputStream inFile = new FileInputStream(srcJarFile);
+                                      ClusterFilePipelinedOutputStream clusterFileOut =
+                                              new ClusterFilePipelinedOutputStream(sparkSession, destUri)) {
                                      ctrlInfo(legacyLogSubject, newLogSubject, String.format("Uploading %s...",
                                                                                              srcJarFile));
-                                     IOUtils.copy(inFile, base64Enc);
-
-                                     inFile.close();
-                                     base64Enc.close();
+                                     IOUtils.copy(inFile, clusterFileOut, ClusterFilePipelinedOutputStream.MIN_BLOCK_SIZE);
                                  } catch (FileNotFoundException fnfEx) {
                                      throw propagate(new HDIException(String.format("Source file %s not found.",
                                                                                     srcJarFile), fnfEx));
@@ -7,6 +7,7 @@ package com.microsoft.azure.hdinsight.spark.jobs;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.microsoft.azure.hdinsight.common.JobViewManager;
 import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
@@ -19,99 +20,191 @@ import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.schedulers.Schedulers;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class JobViewCacheManager {
-    private static final LoadingCache<ApplicationKey, List<Job>> sparkJobLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Job>>() {
+    private static final SparkStageTasksLoader sparkStageTasksLoader = new SparkStageTasksLoader();
+
+    // The in-progress asynchronous tasks loadings, to share one loading among the Job View pollings
+    private static final Map<ApplicationKey, Future<List<Task>>> sparkTasksLoadings = new ConcurrentHashMap<>();
+
+    private static final long MAX_TERMINAL_ELEMENTS = 100_000;
+    private static final long MAX_TERMINAL_TASKS = 1_000_000;
+    private static final long MAX_TERMINAL_APPLICATIONS = 1_000;
+
+    private static final ApplicationCache<List<Job>> sparkJobLocalCache = ApplicationCache.ofList(
+            "jobs",
+            Job.class,
+            new CacheLoader<ApplicationKey, List<Job>>() {
                 @Override
                 public List<Job> load(ApplicationKey key) throws Exception {
                     return SparkRestUtil.getLastAttemptJobsFromApp(key);
                 }
-            });
+            },
+            JobViewCacheManager::isSparkApplicationCompleted,
+            MAX_TERMINAL_ELEMENTS);
 
-    private static final LoadingCache<ApplicationKey, List<Stage>> sparkStageLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Stage>>() {
+    private static final ApplicationCache<List<Stage>> sparkStageLocalCache = ApplicationCache.ofList(
+            "stages",
+            Stage.class,
+            new CacheLoader<ApplicationKey, List<Stage>>() {
                 @Override
                 public List<Stage> load(ApplicationKey key) throws Exception {
                     return SparkRestUtil.getAllStageFromApp(key);
                 }
-            });
+            },
+            JobViewCacheManager::isSparkApplicationCompleted,
+            MAX_TERMINAL_ELEMENTS);
 
-    private static final LoadingCache<ApplicationKey, List<Executor>> sparkExecutorLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Executor>>() {
+    private static final ApplicationCache<List<Executor>> sparkExecutorLocalCache = ApplicationCache.ofList(
+            "executors",
+            Executor.class,
+            new CacheLoader<ApplicationKey, List<Executor>>() {
                 @Override
                 public List<Executor> load(ApplicationKey key) throws Exception {
                     return SparkRestUtil.getAllExecutorFromApp(key);
                 }
-            });
+            },
+            JobViewCacheManager::isSparkApplicationCompleted,
+            MAX_TERMINAL_ELEMENTS);
 
+    // The applications list is always refreshed since new applications keep coming
     private static final LoadingCache<String, List<Application>> sparkApplicationsLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
-            .build(new CacheLoader<String, List<Application>>() {
+            .refreshAfterWrite(ApplicationCache.getRefreshSeconds(), TimeUnit.SECONDS)
+            .recordStats()
+            .build(CacheLoader.asyncReloading(new CacheLoader<String, List<Application>>() {
                 @Override
                 public List<Application> load(String key) throws Exception {
-                    return SparkRestUtil.getSparkApplications(JobViewManager.getCluster(key));
+                    final IClusterDetail cluster = JobViewManager.getCluster(key);
+                    final List<Application> applications = SparkRestUtil.getSparkApplications(cluster);
+                    invalidateFinished(cluster, sparkApplicationsLocalCache.getIfPresent(key), applications);
+
+                    return applications;
                 }
-            });
+            }, ApplicationCache.REFRESH_EXECUTOR));
 
-    private static final LoadingCache<ApplicationKey, List<Task>> sparkTasksSummaryLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Task>>() {
+    private static final ApplicationCache<List<Task>> sparkTasksSummaryLocalCache = ApplicationCache.ofList(
+            "tasks",
+            Task.class,
+            new CacheLoader<ApplicationKey, List<Task>>() {
                 @Override
                 public List<Task> load(ApplicationKey key) throws Exception {
-                    List<Task> allTasks = new ArrayList<>();
                     List<Stage> stages = sparkStageLocalCache.get(key);
-                    for (Stage stage: stages) {
-                        int stageId = stage.getStageId();
-                        int attemptedId = stage.getAttemptId();
-                        List<Task> tasks = SparkRestUtil.getSparkTasks(key, stageId, attemptedId);
-                        allTasks.addAll(tasks);
-                    }
-                    return allTasks;
+                    return sparkStageTasksLoader.loadTasks(key, stages);
                 }
-            });
+            },
+            JobViewCacheManager::isSparkApplicationCompleted,
+            MAX_TERMINAL_TASKS);
 
-    private static final LoadingCache<ApplicationKey, ApplicationMasterLogs> yarnAppLogLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, ApplicationMasterLogs>() {
+    private static final ApplicationCache<ApplicationMasterLogs> yarnAppLogLocalCache = new ApplicationCache<>(
+            "yarnLogs",
+            new CacheLoader<ApplicationKey, ApplicationMasterLogs>() {
                 @Override
                 public ApplicationMasterLogs load(ApplicationKey key) throws Exception {
                     return JobUtils.getYarnLogs(key);
                 }
-            });
+            },
+            JobViewCacheManager::isSparkApplicationCompleted,
+            (key, logs) -> 1,
+            MAX_TERMINAL_APPLICATIONS,
+            null);
 
-    private static final LoadingCache<ApplicationKey, App> yarnApplicationLocalCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, App>() {
+    private static final ApplicationCache<App> yarnApplicationLocalCache = new ApplicationCache<>(
+            "yarnApp",
+            new CacheLoader<ApplicationKey, App>() {
                 @Override
                 public App load(ApplicationKey key) throws Exception {
                     return YarnRestUtil.getApp(key);
                 }
-            });
+            },
+            JobViewCacheManager::isSparkApplicationCompleted,
+            (key, app) -> 1,
+            MAX_TERMINAL_APPLICATIONS,
+            null);
 
-    private static final LoadingCache<ApplicationKey, List<JobStartEventLog>> sparkJobStartEventLogCache = CacheBuilder.newBuilder()
-            .maximumSize(100)
-            .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<JobStartEventLog>>() {
+    private static final ApplicationCache<List<JobStartEventLog>> sparkJobStartEventLogCache = ApplicationCache.ofList(
+            "jobStartEvents",
+            JobStartEventLog.class,
+            new CacheLoader<ApplicationKey, List<JobStartEventLog>>() {
                 @Override
                 public List<JobStartEventLog> load(ApplicationKey key) throws Exception {
-                    return SparkRestUtil.getSparkEventLogs(key);
+                    final List<JobStartEventLog> events = SparkRestUtil.getSparkEventLogs(key);
+                    if (isSparkApplicationCompleted(key)) {
+                        // The events of the completed application are retained by the terminal cache, so the
+                        // incremental reading state isn't needed any more
+                        SparkRestUtil.invalidateSparkEventLogs(key);
+                    }
+
+                    return events;
                 }
-            });
+            },
+            JobViewCacheManager::isSparkApplicationCompleted,
+            MAX_TERMINAL_ELEMENTS);
+
+    private static final List<ApplicationCache<?>> applicationCaches = Arrays.asList(
+            sparkJobLocalCache,
+            sparkStageLocalCache,
+            sparkExecutorLocalCache,
+            sparkTasksSummaryLocalCache,
+            yarnAppLogLocalCache,
+            yarnApplicationLocalCache,
+            sparkJobStartEventLogCache);
+
+    /**
+     * Drop the data cached while the applications were running once they are completed, before the new applications
+     * list is published, so that their terminal data is loaded from scratch rather than updated from the running one.
+     */
+    private static void invalidateFinished(@NotNull IClusterDetail cluster,
+                                           @Nullable List<Application> previous,
+                                           @NotNull List<Application> current) {
+        if (previous == null) {
+            return;
+        }
+
+        final Set<String> running = previous.stream()
+                .filter(app -> !isCompleted(app))
+                .map(app -> app.getId().toLowerCase())
+                .collect(Collectors.toSet());
+
+        current.stream()
+                .filter(app -> isCompleted(app) && running.contains(app.getId().toLowerCase()))
+                .forEach(app -> invalidate(new ApplicationKey(cluster, app.getId())));
+    }
+
+    /**
+     * Check if the Spark application is completed or not by the Spark history server, which marks an application as
+     * completed only after its event log is finalized, so that all its data won't change any more.
+     */
+    private static boolean isSparkApplicationCompleted(@NotNull ApplicationKey key) {
+        try {
+            final Application application = getSingleSparkApplication(key);
+
+            return application != null && isCompleted(application);
+        } catch (ExecutionException ignored) {
+            return false;
+        }
+    }
+
+    private static boolean isCompleted(@NotNull Application application) {
+        return application.getAttempts() != null && !application.getAttempts().isEmpty()
+                && application.getAttempts().stream().allMatch(attempt -> Boolean.parseBoolean(attempt.getCompleted()));
+    }
 
     public static List<JobStartEventLog> getJobStartEventLogs(@NotNull ApplicationKey key) throws ExecutionException {
         return sparkJobStartEventLogCache.get(key);
@@ -151,7 +244,76 @@ public class JobViewCacheManager {
         return sparkTasksSummaryLocalCache.get(key);
     }
 
+    /**
+     * Get the tasks of the application asynchronously, the loading is shared by concurrent callers.
+     * The tasks loaded so far can be got by {@link #getLoadedTasks(ApplicationKey)} before the loading completes.
+     */
+    public static Future<List<Task>> getTasksAsync(@NotNull ApplicationKey key) {
+        final List<Task> cached = sparkTasksSummaryLocalCache.getTerminalIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        final Future<List<Task>> loading = sparkTasksLoadings.computeIfAbsent(key, k -> Observable
+                .fromCallable(() -> sparkTasksSummaryLocalCache.get(k))
+                .doOnTerminate(() -> sparkTasksLoadings.remove(k))
+                .subscribeOn(Schedulers.io())
+                .toBlocking()
+                .toFuture());
+
+        if (loading.isDone()) {
+            // The loading may terminate before it's put into the map
+            sparkTasksLoadings.remove(key, loading);
+        }
+
+        return loading;
+    }
+
+    public static List<Task> getLoadedTasks(@NotNull ApplicationKey key) {
+        return sparkStageTasksLoader.getLoadedTasks(key);
+    }
+
     public static List<Stage> getStages(@NotNull ApplicationKey key) throws ExecutionException {
         return sparkStageLocalCache.get(key);
     }
+
+    /**
+     * Get the hit / miss / load time statistics of all Job View caches, served by the Job View {@code /metrics}
+     * endpoint.
+     *
+     * @return the map from cache name to its statistics
+     */
+    @NotNull
+    public static Map<String, Object> getCacheStats() {
+        final Map<String, Object> stats = new LinkedHashMap<>();
+
+        stats.put("applications", toSnapshot(sparkApplicationsLocalCache.stats()));
+        applicationCaches.forEach(cache -> {
+            stats.put(cache.getName() + ".active", toSnapshot(cache.getActiveStats()));
+            stats.put(cache.getName() + ".terminal", toSnapshot(cache.getTerminalStats()));
+        });
+
+        return stats;
+    }
+
+    @NotNull
+    private static Map<String, Object> toSnapshot(@NotNull CacheStats stats) {
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("hitCount", stats.hitCount());
+        snapshot.put("missCount", stats.missCount());
+        snapshot.put("loadSuccessCount", stats.loadSuccessCount());
+        snapshot.put("loadExceptionCount", stats.loadExceptionCount());
+        snapshot.put("totalLoadTimeMillis", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime()));
+        snapshot.put("evictionCount", stats.evictionCount());
+
+        return snapshot;
+    }
+
+    /**
+     * Drop all cached data of the application, to reload them from the cluster at the next time.
+     */
+    public static void invalidate(@NotNull ApplicationKey key) {
+        applicationCaches.forEach(cache -> cache.invalidate(key));
+        SparkRestUtil.invalidateSparkEventLogs(key);
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The request latency histograms of the Job View HTTP server handlers, served by the {@code /metrics} endpoint.
+ */
+public class JobViewHttpMetrics {
+    // The upper bounds in milliseconds of the latency histogram buckets, the last bucket is for the slower ones
+    private static final long[] BUCKET_BOUNDS_MILLIS = { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    @NotNull
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Wrap the handler to record its latency by the name.
+     */
+    @NotNull
+    public HttpHandler timed(@NotNull String name, @NotNull HttpHandler handler) {
+        final LatencyHistogram histogram = histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+
+        return httpExchange -> {
+            final long start = System.nanoTime();
+            boolean isFailed = true;
+
+            try {
+                handler.handle(httpExchange);
+                isFailed = false;
+            } finally {
+                histogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), isFailed);
+            }
+        };
+    }
+
+    /**
+     * Get the metrics snapshot of all handlers, for the JSON serialization.
+     */
+    @NotNull
+    public Map<String, Object> getSnapshot() {
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        histograms.forEach((name, histogram) -> snapshot.put(name, histogram.getSnapshot()));
+
+        return snapshot;
+    }
+
+    private static class LatencyHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+        private final AtomicLong count = new AtomicLong(0);
+        private final AtomicLong failures = new AtomicLong(0);
+        private final AtomicLong sumMillis = new AtomicLong(0);
+        private final AtomicLong maxMillis = new AtomicLong(0);
+
+        void record(long millis, boolean isFailed) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sumMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+
+            if (isFailed) {
+                failures.incrementAndGet();
+            }
+        }
+
+        @NotNull
+        Map<String, Object> getSnapshot() {
+            final Map<String, Long> bucketCounts = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                bucketCounts.put("le_" + BUCKET_BOUNDS_MILLIS[i], buckets.get(i));
+            }
+            bucketCounts.put("le_inf", buckets.get(BUCKET_BOUNDS_MILLIS.length));
+
+            final Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("count", count.get());
+            snapshot.put("failures", failures.get());
+            snapshot.put("sumMillis", sumMillis.get());
+            snapshot.put("maxMillis", maxMillis.get());
+            snapshot.put("buckets", bucketCounts);
+
+            return snapshot;
+        }
+    }
+}
@@ -5,23 +5,39 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
-import com.microsoft.azuretools.azurecommons.helpers.StringHelper;
-import com.microsoft.tooling.msservices.components.DefaultLoader;
-import com.sun.net.httpserver.HttpExchange;
+import com.microsoft.azure.hdinsight.common.ApplicationProperties;
+import com.microsoft.azure.hdinsight.common.CommonConst;
+import com.microsoft.azure.hdinsight.sdk.common.HttpConnectionPool;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class JobViewHttpServer {
     private static HttpServer server;
-    private static final int NUMBER_OF_THREADS = 50;
+    private static final int BACKLOG = 50;
+    private static final int DEFAULT_NUMBER_OF_THREADS = 16;
+    private static final int MAX_QUEUED_REQUESTS = 200;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final String RETRY_AFTER_SECONDS = "1";
+    // Marks the thread answering the requests rejected by the saturated executor
+    private static final ThreadLocal<Boolean> isOverloadedThread = ThreadLocal.withInitial(() -> false);
     private static ExecutorService executorService;
+    private static ExecutorService overloadedExecutorService;
+    private static JobViewHttpMetrics metrics = new JobViewHttpMetrics();
     private static boolean isEnabled = false;
     private static int port = -1;
 
@@ -40,6 +56,9 @@ public class JobViewHttpServer {
             } catch (InterruptedException e) {
             }
         }
+        if (overloadedExecutorService != null) {
+            overloadedExecutorService.shutdownNow();
+        }
         isEnabled = false;
     }
 
@@ -47,6 +66,10 @@ public class JobViewHttpServer {
         return port;
     }
 
+    public synchronized static JobViewHttpMetrics getMetrics() {
+        return metrics;
+    }
+
     public synchronized static void initialize() {
         if (isEnabled) {
             return;
@@ -60,21 +83,109 @@ public class JobViewHttpServer {
             InetSocketAddress socketAddress = new InetSocketAddress(s.getLocalPort());
             port = socketAddress.getPort();
 
-            server = HttpServer.create(socketAddress, NUMBER_OF_THREADS);
+            server = HttpServer.create(socketAddress, BACKLOG);
+            metrics = new JobViewHttpMetrics();
 
             server.createContext("/try", (httpExchange) -> {
                     httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
                     JobUtils.setResponse(httpExchange, "Connect Successfully");
             });
-            server.createContext("/applications", new SparkJobHttpHandler());
-            server.createContext("/apps", new YarnJobHttpHandler());
-            server.createContext("/actions", new ActionHttpHandler());
+            server.createContext("/applications", rejectWhenOverloaded(metrics.timed("applications", new SparkJobHttpHandler())));
+            server.createContext("/apps", rejectWhenOverloaded(metrics.timed("apps", new YarnJobHttpHandler())));
+            server.createContext("/actions", rejectWhenOverloaded(metrics.timed("actions", new ActionHttpHandler())));
+            server.createContext("/metrics", (httpExchange) -> {
+                    httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                    Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(getMetricsSnapshot());
+                    JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
+            });
 
-            executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+            executorService = createExecutorService();
             server.setExecutor(executorService);
             server.start();
             isEnabled = true;
         } catch (IOException e) {
         }
     }
+
+    private static Map<String, Object> getMetricsSnapshot() {
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("handlers", metrics.getSnapshot());
+        snapshot.put("coalescedRequests", SparkJobHttpHandler.getCoalescedCount());
+        snapshot.put("caches", JobViewCacheManager.getCacheStats());
+        snapshot.put("httpConnectionPool", HttpConnectionPool.getInstance().getStatsSnapshot());
+
+        return snapshot;
+    }
+
+    /**
+     * Answer the request with 503 and {@code Retry-After} rather than handling it, if it's rejected by the saturated
+     * executor, so that the blocking cache loads are never run out of the bounded threads.
+     */
+    private static HttpHandler rejectWhenOverloaded(HttpHandler handler) {
+        return httpExchange -> {
+            if (!isOverloadedThread.get()) {
+                handler.handle(httpExchange);
+                return;
+            }
+
+            try {
+                httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                httpExchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+                httpExchange.sendResponseHeaders(SERVICE_UNAVAILABLE, -1);
+            } finally {
+                httpExchange.close();
+            }
+        };
+    }
+
+    /**
+     * Create the request executor, with the bounded platform threads pool by default. The virtual thread per task
+     * executor is used only if it's enabled explicitly and supported by the running JDK, which doesn't bound the
+     * requests handled at the same time.
+     */
+    private static ExecutorService createExecutorService() {
+        if (isVirtualThreadsEnabled()) {
+            try {
+                // The method is available since JDK 21
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ignored) {
+                // Virtual threads aren't supported, fall back to platform threads
+            }
+        }
+
+        final int threads = getNumberOfThreads();
+        final AtomicInteger threadIndex = new AtomicInteger(0);
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "job-view-http-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+
+        // The requests rejected when the queue is full are passed to a separated thread to be answered with 503, rather
+        // than run by the server dispatcher thread, which would stall accepting and dispatching all connections
+        overloadedExecutorService = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(() -> {
+                isOverloadedThread.set(true);
+                runnable.run();
+            }, "job-view-http-overloaded");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED_REQUESTS),
+                threadFactory, (rejected, pool) -> overloadedExecutorService.execute(rejected));
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private static boolean isVirtualThreadsEnabled() {
+        return ApplicationProperties.getBoolean(CommonConst.SPARK_JOB_VIEW_SERVER_VIRTUAL_THREADS, false);
+    }
+
+    private static int getNumberOfThreads() {
+        return ApplicationProperties.getPositiveInt(CommonConst.SPARK_JOB_VIEW_SERVER_THREADS, DEFAULT_NUMBER_OF_THREADS);
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesce the concurrent identical requests, so that only the first one runs the loading and the others wait for
+ * and share its result. The result isn't kept after the loading is done, the caching is up to the loader.
+ *
+ * @param <K> the request key type
+ * @param <V> the result type
+ */
+public class RequestCoalescer<K, V> {
+    @NotNull
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+
+    public V execute(@NotNull K key, @NotNull Callable<V> loader) throws ExecutionException {
+        final CompletableFuture<V> created = new CompletableFuture<>();
+        final CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            return await(existing);
+        }
+
+        try {
+            created.complete(loader.call());
+        } catch (Throwable err) {
+            created.completeExceptionally(err);
+        } finally {
+            inFlight.remove(key, created);
+        }
+
+        return await(created);
+    }
+
+    /**
+     * Get the requests count which shared the result of another in-flight one.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    private V await(@NotNull CompletableFuture<V> result) throws ExecutionException {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(ex);
+        } catch (ExecutionException ex) {
+            // Not to wrap the loader's ExecutionException twice
+            if (ex.getCause() instanceof ExecutionException) {
+                throw (ExecutionException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.HDIException;
+import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.message.BasicHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The incremental Spark event log reader for the event logs downloading API of Spark history server.
+ *
+ * The zipped event log is decompressed on the fly from the HTTP response stream without being saved to disk. Each
+ * event line is pre-filtered by the leading "Event" field with a streaming JSON parser, only the interested events
+ * are fully deserialized. The reader remembers the consumed byte offset and ETag of every application attempt, so a
+ * refresh skips the bytes processed before without decoding them, and a not modified event log isn't processed at
+ * all.
+ *
+ * The history server zips the event log on the fly for each request, so the compressed bytes of a range can't be
+ * inflated by themselves, and the whole zip is still transferred for a modified event log.
+ *
+ * @param <T> the interested event type
+ */
+public class SparkEventLogReader<T> implements ILogger {
+    public static final String SPARK_LISTENER_JOB_START = "SparkListenerJobStart";
+
+    private static final String EVENT_FIELD = "Event";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int MAX_ATTEMPT_STATES = 100;
+
+    @NotNull
+    private final String eventName;
+
+    @NotNull
+    private final Class<T> eventClass;
+
+    // The least recently read application attempts are evicted, the evicted one is read from the beginning again
+    @NotNull
+    private final Map<String, EventLogState<T>> states = Collections.synchronizedMap(
+            new LinkedHashMap<String, EventLogState<T>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EventLogState<T>> eldest) {
+                    return size() > MAX_ATTEMPT_STATES;
+                }
+            });
+
+    public SparkEventLogReader(@NotNull String eventName, @NotNull Class<T> eventClass) {
+        this.eventName = eventName;
+        this.eventClass = eventClass;
+    }
+
+    /**
+     * Read the interested events of the application attempt, only the new events since the last reading are
+     * processed.
+     *
+     * @param http the HTTP client with the cluster authentication
+     * @param eventLogsUrl the event logs downloading URL of the application attempt
+     * @param key the application key
+     * @param attemptId the application attempt ID
+     * @return all interested events of the application attempt so far
+     */
+    @NotNull
+    public List<T> read(@NotNull HttpObservable http,
+                        @NotNull String eventLogsUrl,
+                        @NotNull ApplicationKey key,
+                        @NotNull String attemptId) throws IOException, HDIException {
+        final String stateKey = String.format("%s/%s/%s", key.getClusterConnString(), key.getAppId(), attemptId).toLowerCase();
+        final EventLogState<T> state = states.computeIfAbsent(stateKey, k -> new EventLogState<>());
+
+        synchronized (state) {
+            if (!readOnce(http, eventLogsUrl, state)) {
+                // The event log is shorter than the processed one, it must be re-generated. The previous response is
+                // closed already, so that its connection is back to the pool before the retry.
+                log().debug("Spark event log of " + stateKey + " is rewritten, read it from the beginning");
+                state.reset();
+                readOnce(http, eventLogsUrl, state);
+            }
+
+            return new ArrayList<>(state.events);
+        }
+    }
+
+    /**
+     * Read the new events of the application attempt into the state.
+     *
+     * @return false if the event log is rewritten, and the state is left untouched
+     */
+    private boolean readOnce(@NotNull HttpObservable http,
+                             @NotNull String eventLogsUrl,
+                             @NotNull EventLogState<T> state) throws IOException, HDIException {
+        final List<Header> headers = state.eTag == null
+                ? Collections.emptyList()
+                : Collections.singletonList(new BasicHeader(HttpHeaders.IF_NONE_MATCH, state.eTag));
+
+        try (CloseableHttpResponse response = JobUtils.getRestResultBlocking(
+                http.request(new HttpGet(eventLogsUrl), null, null, headers))) {
+            final int statusCode = response.getStatusLine().getStatusCode();
+
+            if (statusCode == HttpStatus.SC_NOT_MODIFIED) {
+                return true;
+            }
+
+            if (statusCode >= 300 || response.getEntity() == null) {
+                state.reset();
+                throw new HDIException(response.getStatusLine().getReasonPhrase(), statusCode);
+            }
+
+            final Header eTagHeader = response.getFirstHeader(HttpHeaders.ETAG);
+            final List<T> newEvents = new ArrayList<>();
+
+            try (InputStream content = response.getEntity().getContent()) {
+                final long consumed = readEvents(content, state.offset, newEvents::add);
+
+                if (consumed < state.offset) {
+                    return false;
+                }
+
+                state.events.addAll(newEvents);
+                state.offset = consumed;
+                state.eTag = eTagHeader == null ? null : eTagHeader.getValue();
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Read the interested events from the event logs zip stream.
+     *
+     * @param zipStream the zipped event logs stream
+     * @param skipBytes the event log bytes have been processed which are skipped without decoding
+     * @param onEvent the interested event consumer
+     * @return the bytes of complete lines read in total, the tailing incomplete line of an in-progress event log
+     *         isn't counted, so that it will be read again at the next time
+     */
+    long readEvents(@NotNull InputStream zipStream,
+                    long skipBytes,
+                    @NotNull Consumer<T> onEvent) throws IOException {
+        final ZipInputStream zip = new ZipInputStream(zipStream);
+        ZipEntry entry;
+
+        while ((entry = zip.getNextEntry()) != null) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+
+            // The attempt event logs zip has only one event log entry
+            final long skipped = skipFully(zip, skipBytes);
+
+            if (skipped < skipBytes) {
+                return skipped;
+            }
+
+            // The new line byte never appears inside a UTF-8 multi-bytes character, so lines are split by bytes and
+            // only the complete lines are decoded
+            long consumed = skipBytes;
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = zip.read(buffer)) != -1) {
+                int lineStart = 0;
+
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+
+                    line.write(buffer, lineStart, i - lineStart);
+                    handleLine(new String(line.toByteArray(), StandardCharsets.UTF_8), onEvent);
+                    line.reset();
+                    lineStart = i + 1;
+                }
+
+                line.write(buffer, lineStart, read - lineStart);
+                consumed += read;
+            }
+
+            return consumed - line.size();
+        }
+
+        return 0;
+    }
+
+    private static long skipFully(@NotNull InputStream input, long bytes) throws IOException {
+        long skipped = 0;
+
+        while (skipped < bytes) {
+            final long current = input.skip(bytes - skipped);
+
+            if (current <= 0) {
+                // The skip may return 0 before the end, check it by reading one byte
+                if (input.read() == -1) {
+                    break;
+                }
+
+                skipped++;
+                continue;
+            }
+
+            skipped += current;
+        }
+
+        return skipped;
+    }
+
+    private void handleLine(@NotNull String line, @NotNull Consumer<T> onEvent) {
+        if (!eventName.equals(readEventName(line))) {
+            return;
+        }
+
+        final T event = ObjectConvertUtils.convertToObjectQuietly(line, eventClass);
+        if (event != null) {
+            onEvent.accept(event);
+        }
+    }
+
+    /**
+     * Read the "Event" field of an event line by the streaming parser, without building the JSON tree. Spark writes
+     * the "Event" field as the first one, so the rest of the line is usually never touched.
+     *
+     * @param line the event line
+     * @return the event name, or null for any invalid line
+     */
+    @Nullable
+    static String readEventName(@NotNull String line) {
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+
+                if (Objects.equals(field, EVENT_FIELD)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+
+                parser.skipChildren();
+            }
+        } catch (IOException ignored) {
+            // The in-progress or malformed line is ignored
+        }
+
+        return null;
+    }
+
+    /**
+     * Drop the reading states of all attempts of the application, e.g. once its events are retained by the caller.
+     */
+    public void invalidate(@NotNull ApplicationKey key) {
+        final String prefix = String.format("%s/%s/", key.getClusterConnString(), key.getAppId()).toLowerCase();
+        synchronized (states) {
+            states.keySet().removeIf(stateKey -> stateKey.startsWith(prefix));
+        }
+    }
+
+    private static class EventLogState<T> {
+        @Nullable
+        private String eTag;
+
+        private long offset = 0;
+
+        @NotNull
+        private final List<T> events = new ArrayList<>();
+
+        private void reset() {
+            eTag = null;
+            offset = 0;
+            events.clear();
+        }
+    }
+}
@@ -5,6 +5,7 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
+import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
 import com.microsoft.azure.hdinsight.sdk.common.HDIException;
 import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
@@ -16,6 +17,8 @@ import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.spark.jobs.framework.JobRequestDetails;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -24,47 +27,105 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class SparkJobHttpHandler implements HttpHandler {
+    public static final String PARTIAL_RESULT_HEADER = "X-Partial-Result";
+    private static final long PARTIAL_TASKS_WAIT_MS = 3000;
+
+    // The concurrent identical requests share one backend loading
+    private static final RequestCoalescer<String, JobViewResponse> requestCoalescer = new RequestCoalescer<>();
+
+    public static long getCoalescedCount() {
+        return requestCoalescer.getCoalescedCount();
+    }
 
     @Override
     public void handle(HttpExchange httpExchange) throws IOException {
         httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
         JobRequestDetails requestDetail = JobRequestDetails.getJobRequestDetail(httpExchange);
         try {
-            String path = requestDetail.getRequestPath();
-            if (path.equalsIgnoreCase("/applications/") && requestDetail.getAppId().equalsIgnoreCase("0")) {
-                try {
-                    List<Application> applications = SparkRestUtil.getSparkApplications(requestDetail.getCluster());
-                    Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(applications);
-                    JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-                } catch (HDIException e) {
-                    DefaultLoader.getUIHelper().logError("get applications list error", e);
-                }
-            } else if (path.contains("application_graph")) {
-                ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
-                List<Job> jobs = JobViewCacheManager.getJob(key);
-                App app = JobViewCacheManager.getYarnApp(key);
-                List<JobStartEventLog> jobStartEventLogs = JobViewCacheManager.getJobStartEventLogs(key);
-                YarnAppWithJobs yarnAppWithJobs = new YarnAppWithJobs(app, jobs, jobStartEventLogs);
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(yarnAppWithJobs);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            } else if (path.contains("stages_summary")) {
-                List<Stage> stages = JobViewCacheManager.getStages(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(stages);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            } else if (path.contains("executors_summary")) {
-                List<Executor> executors = JobViewCacheManager.getExecutors(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(executors);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            } else if (path.contains("tasks_summary")) {
-                List<Task> tasks = JobViewCacheManager.getTasks(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(tasks);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
+            JobViewResponse response = requestCoalescer.execute(getRequestKey(requestDetail), () -> loadResponse(requestDetail));
+            if (response == null) {
+                return;
+            }
+
+            if (response.isPartial) {
+                httpExchange.getResponseHeaders().add(PARTIAL_RESULT_HEADER, "true");
             }
+            JobUtils.setResponse(httpExchange, response.body, response.code);
         } catch (ExecutionException e) {
             JobUtils.setResponse(httpExchange, e.getMessage(), 500);
         }
     }
-}
 
+    @NotNull
+    private static String getRequestKey(@NotNull JobRequestDetails requestDetail) {
+        IClusterDetail cluster = requestDetail.getCluster();
+
+        return String.join("|", requestDetail.getRequestPath(), cluster == null ? "" : cluster.getName(), requestDetail.getAppId());
+    }
+
+    @Nullable
+    private static JobViewResponse loadResponse(@NotNull JobRequestDetails requestDetail) throws ExecutionException, IOException {
+        String path = requestDetail.getRequestPath();
+        if (path.equalsIgnoreCase("/applications/") && requestDetail.getAppId().equalsIgnoreCase("0")) {
+            try {
+                List<Application> applications = SparkRestUtil.getSparkApplications(requestDetail.getCluster());
+                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(applications);
+                return new JobViewResponse(responseString.orElseThrow(IOException::new), 200, false);
+            } catch (HDIException e) {
+                DefaultLoader.getUIHelper().logError("get applications list error", e);
+                return new JobViewResponse(String.valueOf(e.getMessage()), 500, false);
+            }
+        } else if (path.contains("application_graph")) {
+            ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+            List<Job> jobs = JobViewCacheManager.getJob(key);
+            App app = JobViewCacheManager.getYarnApp(key);
+            List<JobStartEventLog> jobStartEventLogs = JobViewCacheManager.getJobStartEventLogs(key);
+            YarnAppWithJobs yarnAppWithJobs = new YarnAppWithJobs(app, jobs, jobStartEventLogs);
+            Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(yarnAppWithJobs);
+            return new JobViewResponse(responseString.orElseThrow(IOException::new), 200, false);
+        } else if (path.contains("stages_summary")) {
+            List<Stage> stages = JobViewCacheManager.getStages(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
+            Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(stages);
+            return new JobViewResponse(responseString.orElseThrow(IOException::new), 200, false);
+        } else if (path.contains("executors_summary")) {
+            List<Executor> executors = JobViewCacheManager.getExecutors(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
+            Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(executors);
+            return new JobViewResponse(responseString.orElseThrow(IOException::new), 200, false);
+        } else if (path.contains("tasks_summary")) {
+            ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+            List<Task> tasks;
+            boolean isPartial = false;
+            try {
+                tasks = JobViewCacheManager.getTasksAsync(key).get(PARTIAL_TASKS_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+                // Response the tasks loaded so far, the Job View polls again for the rest
+                tasks = JobViewCacheManager.getLoadedTasks(key);
+                isPartial = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExecutionException(e);
+            }
+            Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(tasks);
+            return new JobViewResponse(responseString.orElseThrow(IOException::new), 200, isPartial);
+        }
+
+        return null;
+    }
+
+    private static final class JobViewResponse {
+        @NotNull
+        private final String body;
+        private final int code;
+        private final boolean isPartial;
+
+        private JobViewResponse(@NotNull String body, int code, boolean isPartial) {
+            this.body = body;
+            this.code = code;
+            this.isPartial = isPartial;
+        }
+    }
+}
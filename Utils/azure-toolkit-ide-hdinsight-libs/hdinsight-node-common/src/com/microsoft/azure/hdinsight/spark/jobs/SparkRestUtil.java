@@ -5,63 +5,50 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.microsoft.azure.hdinsight.common.HDInsightLoader;
 import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
 import com.microsoft.azure.hdinsight.sdk.common.HDIException;
 import com.microsoft.azure.hdinsight.sdk.rest.AttemptWithAppId;
-import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
-import com.microsoft.azure.hdinsight.sdk.rest.RestUtil;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.executor.Executor;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.job.Job;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
-import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpEntity;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.message.BasicHeader;
+import rx.Observable;
 
-
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 public class SparkRestUtil {
     public static final String SPARK_REST_API_ENDPOINT = "%s/sparkhistory/api/v1/applications/%s";
+    private static final SparkEventLogReader<JobStartEventLog> JOB_START_EVENT_LOG_READER =
+            new SparkEventLogReader<>(SparkEventLogReader.SPARK_LISTENER_JOB_START, JobStartEventLog.class);
+    private static final List<Header> ACCEPT_JSON_HEADERS =
+            Collections.singletonList(new BasicHeader(HttpHeaders.ACCEPT, "application/json"));
 
     @NotNull
     public static List<Application> getSparkApplications(@NotNull IClusterDetail clusterDetail) throws HDIException, IOException {
-        HttpEntity entity = getSparkRestEntity(clusterDetail, "");
-        Optional<List<Application>> apps = ObjectConvertUtils.convertEntityToList(entity, Application.class);
-
         // spark job has at least one attempt
-        return apps.orElse(RestUtil.getEmptyList(Application.class))
-                .stream()
+        return JobUtils.getRestResultBlocking(getSparkRestElements(clusterDetail, "", Application.class)
                 .filter(app -> app.getAttempts().size() != 0 && app.getAttempts().get(0).getAttemptId() != null)
-                .collect(Collectors.toList());
+                .toList());
     }
 
     public static List<Executor> getAllExecutorFromApp(@NotNull ApplicationKey key) throws IOException, HDIException, ExecutionException {
         final AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
-        final HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), String.format("/%s/%s/executors", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()));
-        Optional<List<Executor>> executors = ObjectConvertUtils.convertEntityToList(entity, Executor.class);
-        return executors.orElse(RestUtil.getEmptyList(Executor.class));
+        return JobUtils.getRestResultBlocking(getSparkRestElements(key.getClusterDetails(), String.format("/%s/%s/executors", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()), Executor.class)
+                .toList());
     }
 
     public static List<Stage> getAllStageFromApp(@NotNull ApplicationKey key) throws IOException, HDIException, ExecutionException {
         final AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
-        final HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), String.format("/%s/%s/stages", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()));
-        final Optional<List<Stage>> stages = ObjectConvertUtils.convertEntityToList(entity, Stage.class);
-        return stages.orElse(RestUtil.getEmptyList(Stage.class));
+        return JobUtils.getRestResultBlocking(getSparkRestElements(key.getClusterDetails(), String.format("/%s/%s/stages", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()), Stage.class)
+                .toList());
     }
 
     public static List<Job> getLastAttemptJobsFromApp(@NotNull ApplicationKey key) throws IOException, HDIException, ExecutionException {
@@ -70,54 +57,30 @@ public class SparkRestUtil {
     }
 
     public static List<Job> getSparkJobsFromApp(@NotNull IClusterDetail clusterDetail, @NotNull String appId, @NotNull String attemptId) throws IOException, HDIException {
-        HttpEntity entity = getSparkRestEntity(clusterDetail, String.format("/%s/%s/jobs", appId, attemptId));
-        Optional<List<Job>> apps = ObjectConvertUtils.convertEntityToList(entity, Job.class);
-        return apps.orElse(RestUtil.getEmptyList(Job.class));
+        return JobUtils.getRestResultBlocking(getSparkRestElements(clusterDetail, String.format("/%s/%s/jobs", appId, attemptId), Job.class)
+                .toList());
     }
 
     public static List<Task> getSparkTasks(@NotNull ApplicationKey key, @NotNull int stage, int attemptId) throws IOException, ExecutionException, HDIException {
         AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
         String url = String.format("/%s/%s/stages/%s/%s/taskList", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId(),stage, attemptId);
-        HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), url);
 
-        Optional<List<Task>> tasks = ObjectConvertUtils.convertEntityToList(entity, Task.class);
-        return tasks.orElse(RestUtil.getEmptyList(Task.class));
+        return JobUtils.getRestResultBlocking(getSparkRestElements(key.getClusterDetails(), url, Task.class)
+                .toList());
+    }
+
+    public static List<JobStartEventLog> getSparkEventLogs(@NotNull ApplicationKey key) throws HDIException, IOException, ExecutionException {
+        final AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
+        final String url = getSparkRestUrl(key.getClusterDetails(), String.format("%s/%s/logs", key.getAppId(), attemptWithAppId.getAttemptId()));
+
+        return JOB_START_EVENT_LOG_READER.read(JobUtils.getHttpObservable(key.getClusterDetails()), url, key, attemptWithAppId.getAttemptId());
     }
 
-    public static List<JobStartEventLog> getSparkEventLogs(@NotNull ApplicationKey key) throws HDIException, IOException {
-        String url = String.format("%s/logs", key.getAppId());
-        String eventLogsPath = String.format("%s/SparkEventLogs/%s/eventLogs.zip", HDInsightLoader.getHDInsightHelper().getPluginRootPath(), key.getAppId());
-        File file = new File(eventLogsPath);
-        HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), url);
-        InputStream inputStream = entity.getContent();
-        FileUtils.copyInputStreamToFile(inputStream, file);
-        IOUtils.closeQuietly(inputStream);
-
-        ZipFile zipFile = new ZipFile(file);
-        List<? extends ZipEntry> entities =  Collections.list(zipFile.entries());
-        // every application has an attempt in event log
-        // and the entity name should be in formation "{appId}_{attemptId}"
-        String entityName = String.format("%s_%s", key.getAppId(), entities.size());
-        ZipEntry lastEntity = zipFile.getEntry(entityName);
-        if (lastEntity == null) {
-            throw new HDIException(String.format("No Spark event log entity found for app: %s", key.getAppId()));
-        }
-        InputStream zipFileInputStream = zipFile.getInputStream(lastEntity);
-        String entityContent = IOUtils.toString(zipFileInputStream, Charset.forName("utf-8"));
-
-        String[] lines = entityContent.split("\n");
-        List<JobStartEventLog> jobStartEvents = Arrays.stream(lines)
-                .filter(line -> {
-                    final Map<String, Object> json = JsonUtils.fromJson(line, new TypeReference<HashMap<String, Object>>() {
-                    });
-                    String eventName = ((String) json.get("Event"));
-                    return eventName.equalsIgnoreCase("SparkListenerJobStart");
-                    })
-                .map(oneLine -> ObjectConvertUtils.convertToObjectQuietly(oneLine, JobStartEventLog.class))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        return jobStartEvents;
+    /**
+     * Drop the incremental reading states of the application event logs.
+     */
+    public static void invalidateSparkEventLogs(@NotNull ApplicationKey key) {
+        JOB_START_EVENT_LOG_READER.invalidate(key);
     }
 
     private static AttemptWithAppId getLastAttemptFromLocalCache(@NotNull ApplicationKey key) throws ExecutionException, HDIException {
@@ -127,10 +90,23 @@ public class SparkRestUtil {
         return selectedApplication.orElseThrow(()-> new HDIException(String.format("application %s on cluster %s can't find", key.getAppId(), key.getClusterDetails().getName()))).getLastAttemptWithAppId(key.getClusterDetails().getName());
     }
 
-    private static HttpEntity getSparkRestEntity(@NotNull IClusterDetail clusterDetail, @NotNull String restUrl) throws HDIException, IOException {
+    /**
+     * Get the Spark history REST API result of JSON array, whose elements are parsed one by one from the response
+     * stream, the large listings such as thousands of tasks won't be buffered as a whole String.
+     */
+    @NotNull
+    private static <T> Observable<T> getSparkRestElements(@NotNull IClusterDetail clusterDetail,
+                                                          @NotNull String restUrl,
+                                                          @NotNull Class<T> clazz) throws HDIException, IOException {
+        return JobUtils.getHttpObservable(clusterDetail)
+                .getArrayElements(getSparkRestUrl(clusterDetail, restUrl), null, ACCEPT_JSON_HEADERS, clazz)
+                .filter(Objects::nonNull);
+    }
+
+    @NotNull
+    private static String getSparkRestUrl(@NotNull IClusterDetail clusterDetail, @NotNull String restUrl) {
         String connUrl = clusterDetail.getConnectionUrl();
         connUrl = connUrl.endsWith("/") ? connUrl.substring(0, connUrl.length() - 1) : connUrl;
-        final String url = String.format(SPARK_REST_API_ENDPOINT, connUrl, restUrl);
-        return JobUtils.getEntity(clusterDetail, url);
+        return String.format(SPARK_REST_API_ENDPOINT, connUrl, restUrl);
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.microsoft.azure.hdinsight.common.ApplicationProperties;
+import com.microsoft.azure.hdinsight.common.CommonConst;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage;
+import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static rx.exceptions.Exceptions.propagate;
+
+/**
+ * The Spark tasks loader which fetches the tasks of all stages in parallel with a bounded concurrency.
+ *
+ * The tasks of a finished stage never change, so they are cached per stage and never fetched again. The tasks
+ * loaded so far by an in-progress loading can be got by {@link #getLoadedTasks(ApplicationKey)}, for the Job View
+ * to render the partial results before all stages are fetched.
+ */
+public class SparkStageTasksLoader implements ILogger {
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+    private static final long MAX_CACHED_TASKS = 1_000_000;
+    private static final Set<String> FINISHED_STAGE_STATUSES =
+            new HashSet<>(Arrays.asList("COMPLETE", "FAILED", "SKIPPED"));
+
+    @NotNull
+    private final Cache<String, List<Task>> finishedStageTasksCache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_TASKS)
+            .<String, List<Task>>weigher((stageKey, tasks) -> tasks.size())
+            .build();
+
+    // The tasks loaded so far of the in-progress loadings
+    @NotNull
+    private final Map<ApplicationKey, List<Task>> loadingTasks = new ConcurrentHashMap<>();
+
+    /**
+     * Load the tasks of all the stages, blocking until all stages are fetched.
+     *
+     * @param key the application key
+     * @param stages the stages of the application
+     * @return all tasks of the stages
+     */
+    @NotNull
+    public List<Task> loadTasks(@NotNull ApplicationKey key, @NotNull List<Stage> stages) {
+        final List<Task> loaded = Collections.synchronizedList(new ArrayList<>());
+        loadingTasks.put(key, loaded);
+
+        try {
+            return loadStageTasks(key, stages)
+                    .doOnNext(loaded::addAll)
+                    .reduce(new ArrayList<Task>(), (allTasks, stageTasks) -> {
+                        allTasks.addAll(stageTasks);
+                        return allTasks;
+                    })
+                    .toBlocking()
+                    .single();
+        } finally {
+            loadingTasks.remove(key, loaded);
+        }
+    }
+
+    /**
+     * Fetch the tasks of the stages in parallel, the tasks of each stage are emitted once they are fetched.
+     *
+     * @param key the application key
+     * @param stages the stages of the application
+     * @return the tasks list of each stage, in the order of fetching finished
+     */
+    @NotNull
+    public Observable<List<Task>> loadStageTasks(@NotNull ApplicationKey key, @NotNull List<Stage> stages) {
+        return Observable.from(stages)
+                .flatMap(stage -> Observable.fromCallable(() -> getStageTasks(key, stage))
+                                            .subscribeOn(Schedulers.io()),
+                         getMaxConcurrency());
+    }
+
+    /**
+     * Get the tasks loaded so far of the application.
+     *
+     * @param key the application key
+     * @return the tasks loaded so far, or empty list if there is no in-progress loading
+     */
+    @NotNull
+    public List<Task> getLoadedTasks(@NotNull ApplicationKey key) {
+        final List<Task> loaded = loadingTasks.get(key);
+        if (loaded == null) {
+            return Collections.emptyList();
+        }
+
+        synchronized (loaded) {
+            return new ArrayList<>(loaded);
+        }
+    }
+
+    @NotNull
+    private List<Task> getStageTasks(@NotNull ApplicationKey key, @NotNull Stage stage) {
+        final String stageKey = String.format("%s/%s/%d/%d",
+                key.getClusterConnString(), key.getAppId(), stage.getStageId(), stage.getAttemptId()).toLowerCase();
+        final List<Task> cached = finishedStageTasksCache.getIfPresent(stageKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            final List<Task> tasks = SparkRestUtil.getSparkTasks(key, stage.getStageId(), stage.getAttemptId());
+            if (stage.getStatus() != null && FINISHED_STAGE_STATUSES.contains(stage.getStatus().toUpperCase())) {
+                finishedStageTasksCache.put(stageKey, tasks);
+            }
+
+            return tasks;
+        } catch (Exception ex) {
+            log().warn(String.format("Failed to get tasks of stage %d of application %s",
+                    stage.getStageId(), key.getAppId()), ex);
+            throw propagate(ex);
+        }
+    }
+
+    private static int getMaxConcurrency() {
+        return ApplicationProperties.getPositiveInt(CommonConst.SPARK_TASKS_FETCH_CONCURRENCY, DEFAULT_MAX_CONCURRENCY);
+    }
+}
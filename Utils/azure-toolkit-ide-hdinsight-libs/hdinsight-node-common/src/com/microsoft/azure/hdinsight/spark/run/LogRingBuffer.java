@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.run;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+
+/**
+ * The bounded byte ring buffer addressed by the absolute position since the first byte written. Once the buffer is
+ * full, the oldest bytes are overwritten, the readers behind the start position have to skip to it.
+ */
+final class LogRingBuffer {
+    @NotNull
+    private final byte[] data;
+
+    // The total bytes written, which is the absolute end position
+    private long end = 0;
+
+    LogRingBuffer(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    synchronized void write(@NotNull byte[] bytes) {
+        // Only the last capacity bytes can be kept
+        int off = Math.max(0, bytes.length - data.length);
+        long position = end + off;
+
+        while (off < bytes.length) {
+            final int index = (int) (position % data.length);
+            final int copied = Math.min(bytes.length - off, data.length - index);
+            System.arraycopy(bytes, off, data, index, copied);
+            off += copied;
+            position += copied;
+        }
+
+        end += bytes.length;
+        notifyAll();
+    }
+
+    synchronized long getStart() {
+        return Math.max(0, end - data.length);
+    }
+
+    synchronized long getEnd() {
+        return end;
+    }
+
+    /**
+     * Read the bytes from the absolute position, which must be not before the start position.
+     *
+     * @return the bytes read, 0 if there are no bytes after the position
+     */
+    synchronized int read(long position, @NotNull byte[] b, int off, int len) {
+        if (position < getStart()) {
+            throw new IllegalArgumentException("The position " + position + " has been overwritten");
+        }
+
+        final int total = (int) Math.min(len, end - position);
+        int read = 0;
+
+        while (read < total) {
+            final int index = (int) ((position + read) % data.length);
+            final int copied = Math.min(total - read, data.length - index);
+            System.arraycopy(data, index, b, off + read, copied);
+            read += copied;
+        }
+
+        return read;
+    }
+
+    /**
+     * Wait until there are bytes after the position or timeout.
+     */
+    synchronized void awaitData(long position, long timeoutMillis) throws InterruptedException {
+        if (end <= position && timeoutMillis > 0) {
+            wait(timeoutMillis);
+        }
+    }
+}
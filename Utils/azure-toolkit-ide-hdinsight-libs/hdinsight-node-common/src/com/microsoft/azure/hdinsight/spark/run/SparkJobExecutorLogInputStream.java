@@ -5,7 +5,6 @@
 
 package com.microsoft.azure.hdinsight.spark.run;
 
-import com.microsoft.azure.hdinsight.spark.common.ISparkBatchJob;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
@@ -28,11 +27,10 @@ class SparkJobExecutorLogInputStream extends SparkJobLogInputStream {
                         .toBlocking().singleOrDefault(null));
     }
 
+    @NotNull
     @Override
-    public ISparkBatchJob attachJob(@NotNull ISparkBatchJob sparkJob) {
-        setSparkBatchJob(sparkJob);
-
-        return sparkJob;
+    protected String getTailKey() {
+        return getLogUrl() + "/" + getLogType();
     }
 
     public String getLogUrl() {
@@ -11,29 +11,42 @@ import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Optional;
 
-import static java.lang.Thread.sleep;
-
+/**
+ * The input stream of a Spark job log, which is tailed in background by {@link SparkJobLogTail}. The streams of the
+ * same job and log share one tail, so the log is fetched once for all of them.
+ *
+ * The stream doesn't block when no log is buffered: {@link #available()} waits for new log at most
+ * {@link #AVAILABLE_WAIT_MILLIS}, and the reading beyond the buffered log throws {@link IOException} as before.
+ */
 public class SparkJobLogInputStream extends InputStream {
+    public static final long AVAILABLE_WAIT_MILLIS = 1000;
+
     @NotNull
     private String logType;
     @Nullable
     private ISparkBatchJob sparkBatchJob;
+    @Nullable
+    private volatile SparkJobLogTail.Cursor cursor;
 
-    private long offset = 0;
-    @NotNull
-    private byte[] buffer = new byte[0];
-    private int bufferPos;
+    private final byte[] singleByte = new byte[1];
 
     public SparkJobLogInputStream(@NotNull String logType) {
         this.logType = logType;
     }
 
-    public ISparkBatchJob attachJob(@NotNull ISparkBatchJob sparkJob) {
+    public synchronized ISparkBatchJob attachJob(@NotNull ISparkBatchJob sparkJob) {
         setSparkBatchJob(sparkJob);
 
+        if (cursor != null) {
+            cursor.close();
+        }
+
+        cursor = SparkJobLogTail.subscribe(sparkJob, getTailKey(), this::fetchLog);
+
         return sparkJob;
     }
 
@@ -43,6 +56,14 @@ public class SparkJobLogInputStream extends InputStream {
                                .toBlocking().singleOrDefault(null));
     }
 
+    /**
+     * Get the key to identify the log in the tails of the attached job.
+     */
+    @NotNull
+    protected String getTailKey() {
+        return "driver/" + getLogType();
+    }
+
     void setSparkBatchJob(@Nullable ISparkBatchJob sparkBatchJob) {
         this.sparkBatchJob = sparkBatchJob;
     }
@@ -51,37 +72,66 @@ public class SparkJobLogInputStream extends InputStream {
         return Optional.ofNullable(sparkBatchJob);
     }
 
+    /**
+     * Get the log bytes dropped since this stream didn't read them in time before overwritten by the newer log.
+     */
+    public long getDroppedBytes() {
+        final SparkJobLogTail.Cursor current = cursor;
+
+        return current == null ? 0 : current.getDroppedBytes();
+    }
+
     @Override
     public int read() throws IOException {
-        if (bufferPos >= buffer.length) {
+        read(singleByte, 0, 1);
+
+        return singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NotNull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        final SparkJobLogTail.Cursor current = cursor;
+        final int read = current == null ? 0 : current.read(b, off, len);
+        if (read == 0) {
             throw new IOException("Beyond the buffer end, needs a new log fetch");
         }
 
-        return buffer[bufferPos++];
+        return read;
     }
 
     @Override
     public int available() throws IOException {
-        if (bufferPos >= buffer.length) {
-            return fetchLog(offset, -1)
-                    .map(sliceOffsetPair -> {
-                        buffer = sliceOffsetPair.getKey().getBytes();
-                        bufferPos = 0;
-                        offset = sliceOffsetPair.getValue() + sliceOffsetPair.getKey().length();
-
-                        return buffer.length;
-                    }).orElseGet(() -> {
-                        try {
-                            sleep(3000);
-                        } catch (InterruptedException ignore) { }
-
-                        return 0;
-                    });
-        } else {
-            return buffer.length - bufferPos;
+        final SparkJobLogTail.Cursor current = cursor;
+
+        try {
+            if (current == null) {
+                // Not attached yet
+                Thread.sleep(AVAILABLE_WAIT_MILLIS);
+
+                return 0;
+            }
+
+            return current.available(AVAILABLE_WAIT_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted when waiting for Spark job log");
         }
     }
 
+    @Override
+    public synchronized void close() throws IOException {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+
+        super.close();
+    }
+
     @NotNull
     public String getLogType() {
         return logType;
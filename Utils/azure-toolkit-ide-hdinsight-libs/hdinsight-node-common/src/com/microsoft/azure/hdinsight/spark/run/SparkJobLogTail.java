@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.hdinsight.spark.run;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.spark.common.ISparkBatchJob;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.io.Closeable;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * The background tail of a Spark job log, which is shared by all the log input streams of the same job and log.
+ *
+ * The log is polled with the fast poll interval while new log keeps coming, and the interval backs off exponentially
+ * up to {@link #MAX_POLL_MILLIS} when there is no new log. The fetched log is appended into a bounded ring buffer,
+ * each subscriber reads it by its own {@link Cursor}. The tail stops polling once all cursors are closed, and pauses
+ * polling when no cursor reads for {@link #IDLE_PAUSE_MILLIS}.
+ */
+public class SparkJobLogTail implements ILogger {
+    public static final long FAST_POLL_MILLIS = 200;
+    public static final long MIN_BACKOFF_MILLIS = 500;
+    public static final long MAX_POLL_MILLIS = 10_000;
+    public static final int DEFAULT_BUFFER_CAPACITY = 4 * 1024 * 1024;
+    // Pause polling if no cursor reads for a while, it's resumed by the next reading
+    public static final long IDLE_PAUSE_MILLIS = 60_000;
+
+    // The shared tails of each job, keyed by the job instance identity and the log key
+    private static final Map<ISparkBatchJob, Map<String, SparkJobLogTail>> TAILS = new IdentityHashMap<>();
+
+    // Rebound by the latest subscriber, since the former ones may be closed
+    @NotNull
+    private volatile BiFunction<Long, Integer, Optional<SimpleImmutableEntry<String, Long>>> fetcher;
+
+    @NotNull
+    private final LogRingBuffer buffer;
+
+    @NotNull
+    private final Scheduler scheduler;
+
+    @Nullable
+    private final Runnable onStopped;
+
+    private long offset = 0;
+
+    private long backoffMillis = MIN_BACKOFF_MILLIS;
+
+    private int cursors = 0;
+
+    private boolean stopped = false;
+
+    private volatile long lastReadMillis;
+
+    @Nullable
+    private Subscription pollSubscription;
+
+    // Whether a fetching is running, the polling chain is alive if it's true or the next polling is scheduled
+    private boolean polling = false;
+
+    SparkJobLogTail(@NotNull BiFunction<Long, Integer, Optional<SimpleImmutableEntry<String, Long>>> fetcher,
+                    int capacity,
+                    @NotNull Scheduler scheduler,
+                    @Nullable Runnable onStopped) {
+        this.fetcher = fetcher;
+        this.buffer = new LogRingBuffer(capacity);
+        this.scheduler = scheduler;
+        this.lastReadMillis = scheduler.now();
+        this.onStopped = onStopped;
+    }
+
+    /**
+     * Open a cursor of the shared tail of the job log, the tail is started by the first cursor.
+     *
+     * @param job the Spark job
+     * @param logKey the log key to identify the log of the job
+     * @param fetcher the log fetcher with the log offset and fetch size, returns the log slice and its offset
+     * @return the cursor which reads from the log buffered so far
+     */
+    @NotNull
+    public static Cursor subscribe(@NotNull ISparkBatchJob job,
+                                   @NotNull String logKey,
+                                   @NotNull BiFunction<Long, Integer, Optional<SimpleImmutableEntry<String, Long>>> fetcher) {
+        final SparkJobLogTail tail;
+
+        synchronized (TAILS) {
+            tail = TAILS.computeIfAbsent(job, j -> new HashMap<>())
+                    .computeIfAbsent(logKey, key -> new SparkJobLogTail(fetcher, DEFAULT_BUFFER_CAPACITY, Schedulers.io(), () -> {
+                        synchronized (TAILS) {
+                            final Map<String, SparkJobLogTail> jobTails = TAILS.get(job);
+                            final SparkJobLogTail stoppedTail = jobTails == null ? null : jobTails.get(logKey);
+
+                            // The tail could be re-opened by a new subscriber before it's removed
+                            if (stoppedTail != null && stoppedTail.isStopped()) {
+                                jobTails.remove(logKey);
+                                if (jobTails.isEmpty()) {
+                                    TAILS.remove(job);
+                                }
+                            }
+                        }
+                    }));
+
+            tail.fetcher = fetcher;
+
+            return tail.openCursor();
+        }
+    }
+
+    @NotNull
+    synchronized Cursor openCursor() {
+        cursors++;
+        stopped = false;
+        lastReadMillis = scheduler.now();
+
+        if (!isPolling()) {
+            schedulePoll(0);
+        }
+
+        return new Cursor(buffer.getStart());
+    }
+
+    synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    private void releaseCursor() {
+        synchronized (this) {
+            cursors--;
+            if (cursors > 0) {
+                return;
+            }
+
+            stopped = true;
+            if (pollSubscription != null) {
+                pollSubscription.unsubscribe();
+                pollSubscription = null;
+            }
+        }
+
+        // Run out of the tail lock, since it takes the registry lock
+        if (onStopped != null) {
+            onStopped.run();
+        }
+    }
+
+    private synchronized void schedulePoll(long delayMillis) {
+        if (stopped) {
+            return;
+        }
+
+        if (scheduler.now() - lastReadMillis > IDLE_PAUSE_MILLIS) {
+            log().debug("Pause Spark job log polling since no reading for a while");
+            pollSubscription = null;
+            return;
+        }
+
+        pollSubscription = Observable.timer(delayMillis, TimeUnit.MILLISECONDS, scheduler)
+                .subscribe(ignored -> poll(),
+                           err -> log().warn("Spark job log polling is broken", err));
+    }
+
+    private void poll() {
+        synchronized (this) {
+            // Keep the chain owned by this polling, so that a cursor opened meanwhile doesn't start another one
+            pollSubscription = null;
+            polling = true;
+        }
+
+        // Fetch out of the tail lock, not to block the cursors reading
+        final long delayMillis = pollOnce();
+
+        synchronized (this) {
+            polling = false;
+            schedulePoll(delayMillis);
+        }
+    }
+
+    private boolean isPolling() {
+        return polling || pollSubscription != null;
+    }
+
+    private synchronized void onRead() {
+        lastReadMillis = scheduler.now();
+
+        if (!stopped && !isPolling()) {
+            // Resume the paused polling
+            backoffMillis = MIN_BACKOFF_MILLIS;
+            schedulePoll(0);
+        }
+    }
+
+    /**
+     * Fetch the new log once.
+     *
+     * @return the delay in milliseconds for the next polling
+     */
+    private long pollOnce() {
+        try {
+            final Optional<SimpleImmutableEntry<String, Long>> slice = fetcher.apply(offset, -1);
+
+            if (slice.isPresent() && !slice.get().getKey().isEmpty()) {
+                buffer.write(slice.get().getKey().getBytes());
+                offset = slice.get().getValue() + slice.get().getKey().length();
+                backoffMillis = MIN_BACKOFF_MILLIS;
+
+                return FAST_POLL_MILLIS;
+            }
+        } catch (Exception ex) {
+            log().debug("Failed to fetch Spark job log from offset " + offset, ex);
+        }
+
+        final long delay = backoffMillis;
+        backoffMillis = Math.min(backoffMillis * 2, MAX_POLL_MILLIS);
+
+        return delay;
+    }
+
+    /**
+     * The reading position of a subscriber on the shared log buffer.
+     */
+    public class Cursor implements Closeable {
+        private long position;
+
+        private long droppedBytes = 0;
+
+        private boolean closed = false;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Get the bytes available to read, waiting for a while if there are none.
+         *
+         * @param waitMillis the max time to wait for new log
+         * @return the bytes can be read without blocking
+         */
+        public synchronized int available(long waitMillis) throws InterruptedException {
+            if (closed) {
+                return 0;
+            }
+
+            onRead();
+            buffer.awaitData(position, waitMillis);
+            skipOverwritten();
+
+            return (int) Math.min(Integer.MAX_VALUE, buffer.getEnd() - position);
+        }
+
+        /**
+         * Read the buffered bytes without blocking.
+         *
+         * @return the bytes read, 0 if there are no bytes available
+         */
+        public synchronized int read(@NotNull byte[] b, int off, int len) {
+            if (closed || len == 0) {
+                return 0;
+            }
+
+            onRead();
+            skipOverwritten();
+            final int read = buffer.read(position, b, off, len);
+            position += read;
+
+            return read;
+        }
+
+        /**
+         * Get the bytes overwritten in the ring buffer before this cursor read them.
+         */
+        public synchronized long getDroppedBytes() {
+            return droppedBytes;
+        }
+
+        private void skipOverwritten() {
+            final long start = buffer.getStart();
+            if (position < start) {
+                droppedBytes += start - position;
+                position = start;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                releaseCursor();
+            }
+        }
+    }
+}
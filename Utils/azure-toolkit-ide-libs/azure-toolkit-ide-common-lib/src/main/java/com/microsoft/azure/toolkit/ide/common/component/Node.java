@@ -11,11 +11,13 @@ import com.microsoft.azure.toolkit.lib.common.action.Action;
 import com.microsoft.azure.toolkit.lib.common.action.AzureActionManager;
 import com.microsoft.azure.toolkit.lib.common.action.IActionGroup;
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import com.microsoft.azure.toolkit.lib.common.model.AzResource;
 import com.microsoft.azure.toolkit.lib.common.operation.AzureOperation;
 import com.microsoft.azure.toolkit.lib.common.utils.Debouncer;
 import com.microsoft.azure.toolkit.lib.common.utils.TailingDebouncer;
 import com.microsoft.azure.toolkit.lib.common.view.IView;
 import lombok.*;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -23,14 +25,34 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+@Slf4j
 @ToString(onlyExplicitlyIncluded = true)
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Node<D> {
+    private static final int CHILDREN_LOADER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    // the shared bounded pool to run children builders of all nodes in parallel
+    private static final ExecutorService CHILDREN_LOADER = createChildrenLoader();
+    private static final ThreadLocal<Boolean> IN_CHILDREN_LOADER = ThreadLocal.withInitial(() -> false);
+    // whether the node class overrides `buildChildren`, resolved once per class rather than on each refresh
+    private static final ClassValue<Boolean> BUILD_CHILDREN_OVERRIDDEN = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("buildChildren").getDeclaringClass() != Node.class;
+            } catch (final NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
     @Nonnull
     @Getter
     @EqualsAndHashCode.Include
@@ -79,6 +101,15 @@ public class Node<D> {
     private final Debouncer refreshChildrenLater = new TailingDebouncer(this::refreshChildren, 500);
     @Nullable
     private Boolean resetChildrenLater; // for debouncing `refreshChildren`
+    private final AtomicLong childrenGeneration = new AtomicLong(); // newer refresh makes the older stale
+    private final List<Future<?>> childrenLoading = new CopyOnWriteArrayList<>();
+    /**
+     * the milliseconds taken by the latest completed children loading, -1 if the children are never loaded.
+     */
+    @Getter
+    private volatile long childrenLoadMillis = -1;
+    @Getter
+    private volatile boolean disposed;
 
     public Node(@Nonnull D value) {
         this.value = value;
@@ -286,17 +317,149 @@ public class Node<D> {
     }
 
     @AzureOperation(value = "internal/$resource.list_children.node", params = "this.getLabel()", source = "this.getValue()")
-    protected synchronized void refreshChildren() {
+    protected void refreshChildren() {
         final boolean incremental = BooleanUtils.isFalse(this.resetChildrenLater);
+        final long generation = this.childrenGeneration.incrementAndGet();
+        this.cancelChildrenLoading();
+        final long start = System.nanoTime();
         this.view.compareAndSet(null, new View(AzureIcons.Common.REFRESH_ICON, this.buildLabel()));
         this.view.get().setIcon(AzureIcons.Common.REFRESH_ICON);
         this.rerenderView();
-        this.children.set(this.buildChildren());
-        this.rerenderChildren(incremental);
+        final AtomicBoolean partiallyRendered = new AtomicBoolean(false);
+        final ChildrenDiff diff = new ChildrenDiff();
+        final List<Node<?>> children = this.loadChildren(generation, incremental, partiallyRendered, diff);
+        if (Objects.isNull(children) || !this.publishChildren(generation, children)) {
+            return; // superseded by a newer refresh
+        }
+        this.childrenLoadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("loaded {} children of node {} in {} ms, {}", children.size(), this.buildLabel(), this.childrenLoadMillis, diff);
+        if (diff.isReconciled()) {
+            // the retained nodes are not rebuilt, so refresh their views on a full refresh
+            if (!incremental) {
+                diff.getRetained().forEach(Node::refreshViewLater);
+            }
+            this.rerenderChildren(diff);
+        } else {
+            this.rerenderChildren(incremental || partiallyRendered.get());
+        }
         this.view.set(this.buildView());
         this.rerenderView();
     }
 
+    /**
+     * load children by all children builders in parallel on the shared pool, the children loaded so far are
+     * rendered as each builder finishes.
+     *
+     * @return the children, or null if the loading is cancelled by a newer refresh.
+     */
+    @Nullable
+    private List<Node<?>> loadChildren(long generation, boolean incremental, AtomicBoolean partiallyRendered, ChildrenDiff diff) {
+        if (this.isBuildChildrenOverridden()) {
+            return this.buildChildren();
+        }
+        final List<ChildrenBuilder<D, ?>> builders = new ArrayList<>(this.childrenBuilders);
+        // run in current thread if nested in the loader pool, to avoid starving it
+        if (builders.size() < 2 || IN_CHILDREN_LOADER.get()) {
+            final List<List<Node<?>>> loaded = new ArrayList<>(builders.size());
+            for (final ChildrenBuilder<D, ?> builder : builders) {
+                final List<Node<?>> nodes = this.reconcileChildren(builder, generation, diff);
+                if (Objects.isNull(nodes)) {
+                    return null;
+                }
+                loaded.add(nodes);
+            }
+            return flatten(loaded);
+        }
+        final List<List<Node<?>>> loaded = new ArrayList<>(Collections.nCopies(builders.size(), null));
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < builders.size(); i++) {
+            final int index = i;
+            final ChildrenBuilder<D, ?> builder = builders.get(i);
+            futures.add(CHILDREN_LOADER.submit(() -> {
+                final List<Node<?>> nodes = this.reconcileChildren(builder, generation, diff);
+                synchronized (loaded) {
+                    loaded.set(index, nodes);
+                    if (loaded.stream().anyMatch(Objects::isNull) && this.publishChildren(generation, flatten(loaded))) {
+                        partiallyRendered.set(true);
+                        this.rerenderChildren(true);
+                    }
+                }
+            }));
+        }
+        this.childrenLoading.addAll(futures);
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final CancellationException e) {
+            return null;
+        } catch (final InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final ExecutionException e) {
+            AzureMessager.getMessager().error(e.getCause());
+        } finally {
+            this.childrenLoading.removeAll(futures);
+        }
+        synchronized (loaded) {
+            return generation == this.childrenGeneration.get() ? flatten(loaded) : null;
+        }
+    }
+
+    /**
+     * @return the children built by the builder, or null if the loading is superseded by a newer refresh.
+     */
+    @Nullable
+    private List<Node<?>> reconcileChildren(ChildrenBuilder<D, ?> builder, long generation, ChildrenDiff diff) {
+        final boolean nested = IN_CHILDREN_LOADER.get();
+        IN_CHILDREN_LOADER.set(true);
+        try {
+            return builder.reconcile(this, generation, diff);
+        } catch (final Exception e) {
+            final Throwable root = ExceptionUtils.getRootCause(e);
+            if (!(root instanceof InterruptedException)) {
+                AzureMessager.getMessager().error(e);
+            }
+            return Collections.emptyList();
+        } finally {
+            IN_CHILDREN_LOADER.set(nested);
+        }
+    }
+
+    private synchronized boolean publishChildren(long generation, List<Node<?>> children) {
+        if (generation != this.childrenGeneration.get()) {
+            return false;
+        }
+        this.children.set(children);
+        return true;
+    }
+
+    private void cancelChildrenLoading() {
+        this.childrenLoading.forEach(f -> f.cancel(true));
+        this.childrenLoading.clear();
+    }
+
+    private boolean isBuildChildrenOverridden() {
+        return BUILD_CHILDREN_OVERRIDDEN.get(this.getClass());
+    }
+
+    private static List<Node<?>> flatten(List<List<Node<?>>> loaded) {
+        return loaded.stream().filter(Objects::nonNull).flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    private static ExecutorService createChildrenLoader() {
+        final AtomicInteger index = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(CHILDREN_LOADER_THREADS, CHILDREN_LOADER_THREADS,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread thread = new Thread(r, "azure-node-children-loader-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     protected synchronized void refreshView() {
         this.view.compareAndSet(null, new View(AzureIcons.Common.REFRESH_ICON, this.buildLabel()));
         this.view.get().setIcon(AzureIcons.Common.REFRESH_ICON);
@@ -322,6 +485,10 @@ public class Node<D> {
         Optional.ofNullable(this.childrenRenderer).ifPresent(r -> r.updateChildren(incremental));
     }
 
+    private void rerenderChildren(@Nonnull ChildrenDiff diff) {
+        Optional.ofNullable(this.childrenRenderer).ifPresent(r -> r.updateChildren(diff));
+    }
+
     private void rerenderView() {
         Optional.ofNullable(this.viewRenderer).ifPresent(ViewRenderer::updateView);
     }
@@ -396,6 +563,9 @@ public class Node<D> {
     }
 
     public void dispose() {
+        this.disposed = true;
+        this.childrenGeneration.incrementAndGet();
+        this.cancelChildrenLoading();
         this.setChildrenRenderer(null);
         this.setViewRenderer(null);
     }
@@ -405,10 +575,97 @@ public class Node<D> {
         private final Function<? super D, ? extends List<C>> getChildrenData;
         private final BiFunction<C, Node<D>, Node<?>> buildChildNode;
 
+        // the nodes built by the last reconciliation, keyed by resource id or the child data itself
+        private final Map<Object, BuiltChild<C>> built = new HashMap<>();
+
         private Stream<Node<?>> build(Node<D> n) {
             final List<C> childrenData = this.getChildrenData.apply(n.value);
             return childrenData.stream().filter(Objects::nonNull).map(d -> buildChildNode.apply(d, n));
         }
+
+        /**
+         * build children by reusing the nodes of the unchanged children data since last reconciliation, only the
+         * nodes of the added children data are created and the nodes of the removed are disposed.
+         *
+         * @return the children nodes, or null without touching the built nodes if the loading is superseded by a
+         * newer refresh, so that the stale loading doesn't dispose the nodes to be reused by the newer one.
+         */
+        @Nullable
+        private synchronized List<Node<?>> reconcile(Node<D> n, long generation, ChildrenDiff diff) {
+            final List<C> childrenData = this.getChildrenData.apply(n.value);
+            if (generation != n.childrenGeneration.get()) {
+                return null;
+            }
+            final Map<Object, BuiltChild<C>> current = new HashMap<>(childrenData.size() * 2);
+            final List<Node<?>> result = new ArrayList<>(childrenData.size());
+            for (final C data : childrenData) {
+                if (Objects.isNull(data)) {
+                    continue;
+                }
+                final Object key = data instanceof AzResource ? ((AzResource) data).getId() : data;
+                final BuiltChild<C> old = this.built.remove(key);
+                final Node<?> node;
+                if (Objects.nonNull(old) && !old.node.isDisposed() && Objects.equals(old.data, data)) {
+                    node = old.node;
+                    diff.retained(node);
+                } else {
+                    node = this.buildChildNode.apply(data, n);
+                    diff.added(node);
+                    if (Objects.nonNull(old) && old.node != node) {
+                        old.node.dispose();
+                        diff.removed(old.node);
+                    }
+                }
+                current.putIfAbsent(key, new BuiltChild<>(data, node)); // duplicated keys are not tracked for reusing
+                result.add(node);
+            }
+            final Set<Node<?>> resultNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            resultNodes.addAll(result);
+            this.built.values().stream().filter(old -> !resultNodes.contains(old.node)).forEach(old -> {
+                old.node.dispose();
+                diff.removed(old.node);
+            });
+            this.built.clear();
+            this.built.putAll(current);
+            return result;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class BuiltChild<C> {
+        private final C data;
+        private final Node<?> node;
+    }
+
+    /**
+     * the changes of the children by a refresh, the retained nodes are reused as is.
+     */
+    @Getter
+    public static class ChildrenDiff {
+        private final List<Node<?>> added = Collections.synchronizedList(new ArrayList<>());
+        private final List<Node<?>> removed = Collections.synchronizedList(new ArrayList<>());
+        private final List<Node<?>> retained = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean reconciled;
+
+        private void added(Node<?> node) {
+            this.reconciled = true;
+            this.added.add(node);
+        }
+
+        private void removed(Node<?> node) {
+            this.reconciled = true;
+            this.removed.add(node);
+        }
+
+        private void retained(Node<?> node) {
+            this.reconciled = true;
+            this.retained.add(node);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d added, %d removed, %d retained", this.added.size(), this.removed.size(), this.retained.size());
+        }
     }
 
     @Setter
@@ -455,5 +712,12 @@ public class Node<D> {
     @FunctionalInterface
     public static interface ChildrenRenderer {
         void updateChildren(boolean... incremental);
+
+        /**
+         * update children by the changes, the retained child nodes are the same instances as before.
+         */
+        default void updateChildren(@Nonnull ChildrenDiff diff) {
+            this.updateChildren(true);
+        }
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *  Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.ide.common.portforwarder;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * pool of direct byte buffers to read sockets without allocating native memory for each forwarding session.
+ */
+public class DirectBufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public DirectBufferPool(final int bufferSize, final int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    @Nonnull
+    public ByteBuffer acquire() {
+        final ByteBuffer buffer = this.pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(this.bufferSize);
+        }
+        this.pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(@Nonnull final ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() != this.bufferSize) {
+            return;
+        }
+        if (this.pooled.incrementAndGet() <= this.maxPooled) {
+            this.pool.offer(buffer);
+        } else {
+            this.pooled.decrementAndGet();
+        }
+    }
+}
@@ -6,6 +6,7 @@
 package com.microsoft.azure.toolkit.ide.common.portforwarder;
 
 import com.microsoft.azure.toolkit.lib.common.messager.AzureMessager;
+import lombok.extern.slf4j.Slf4j;
 import okhttp3.Response;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
@@ -15,34 +16,72 @@ import org.jetbrains.annotations.NotNull;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 
+/**
+ * forwards data between a local socket and a remote websocket.
+ * <p>
+ * when the local channel is a {@link SelectableChannel} used for both directions, a single selector thread reads the
+ * local channel into pooled direct buffers and writes the remote messages into it, without polling. otherwise, the
+ * channels are accessed in blocking mode, by the pumper thread for reading and the writer thread for writing.
+ * <p>
+ * the remote messages are queued without copying and never block the websocket reader. since the websocket can't be
+ * paused, the forwarding is closed if more than {@link #MAX_PENDING_BYTES} are not yet written to the local channel.
+ */
+@Slf4j
 public class PortForwarderWebSocketListener extends WebSocketListener {
+    public static final long MAX_PENDING_BYTES = 16L * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // pause reading the local channel while the websocket has queued more bytes than this
+    private static final long MAX_QUEUED_BYTES = 4L * 1024 * 1024;
+    private static final int MAX_READS_PER_SELECT = 16;
+    private static final long DRAIN_TIMEOUT_SECONDS = 5;
+    private static final long STATS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    protected static final DirectBufferPool BUFFER_POOL = new DirectBufferPool(READ_BUFFER_SIZE, 16);
+
     protected volatile boolean opened;
-    protected boolean more = true;
-    protected final ReentrantLock lock = new ReentrantLock();
-    protected final Condition moreRequested;
     protected final CompletableFuture<WebSocket> future;
     protected final ExecutorService pumperService = Executors.newSingleThreadExecutor();
+    protected final ExecutorService writerService = Executors.newSingleThreadExecutor();
     protected final AtomicBoolean alive = new AtomicBoolean(true);
     protected final ReadableByteChannel in;
     protected final WritableByteChannel out;
     protected final AbstractPortForwarder forwarder;
+    // the remote messages not yet written to the local channel
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private volatile Selector selector;
+    // the remote is closing, close the forwarder once the pending writes are drained
+    private volatile boolean remoteClosing;
+
+    private final AtomicLong bytesToRemote = new AtomicLong();
+    private final AtomicLong messagesToRemote = new AtomicLong();
+    private final AtomicLong bytesFromRemote = new AtomicLong();
+    private final AtomicLong messagesFromRemote = new AtomicLong();
+    private final AtomicLong totalWriteLatencyNanos = new AtomicLong();
+    private final AtomicLong maxWriteLatencyNanos = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong lastStatsLogNanos = new AtomicLong(System.nanoTime());
 
     public PortForwarderWebSocketListener(ReadableByteChannel in, WritableByteChannel out, AbstractPortForwarder forwarder) {
         this.in = in;
         this.out = out;
         this.forwarder = forwarder;
         this.future = new CompletableFuture<>();
-        this.moreRequested = this.lock.newCondition();
     }
 
     public CompletableFuture<WebSocket> getFuture() {
@@ -74,7 +113,11 @@ public class PortForwarderWebSocketListener extends WebSocketListener {
         if (this.in != null) {
             this.pumperService.execute(() -> {
                 try {
-                    pipe(this.in, webSocket, this.alive::get);
+                    if (this.isSelectable()) {
+                        pump((SelectableChannel) this.in, webSocket);
+                    } else {
+                        pipe(this.in, webSocket, this.alive::get);
+                    }
                 } catch (final InterruptedException | IOException e) {
                     if (e instanceof InterruptedException) {
                         Thread.currentThread().interrupt();
@@ -91,19 +134,28 @@ public class PortForwarderWebSocketListener extends WebSocketListener {
 
     @Override
     public void onMessage(WebSocket webSocket, String text) {
-        this.awaitMoreRequest();
         this.writeMessage(webSocket, ByteString.of(text.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Override
     public void onMessage(WebSocket webSocket, ByteString bytes) {
-        this.awaitMoreRequest();
         this.writeMessage(webSocket, bytes);
     }
 
+    /**
+     * the pending remote messages are still written before the forwarder is closed, within {@link #DRAIN_TIMEOUT_SECONDS}.
+     */
     @Override
     public void onClosing(WebSocket webSocket, int code, String reason) {
-        this.awaitMoreRequest();
+        this.remoteClosing = true;
+        if (this.pendingWrites.isEmpty()) {
+            this.closeOnRemoteClosing();
+        } else {
+            CompletableFuture.delayedExecutor(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS).execute(this::closeOnRemoteClosing);
+        }
+    }
+
+    private void closeOnRemoteClosing() {
         if (this.alive.get()) {
             this.closeForwarder();
             this.future.cancel(true);
@@ -121,14 +173,39 @@ public class PortForwarderWebSocketListener extends WebSocketListener {
         return this.alive.get();
     }
 
-    protected void request() {
-        this.lock.lock();
-        try {
-            this.more = true;
-            this.moreRequested.signalAll();
-        } finally {
-            this.lock.unlock();
-        }
+    /**
+     * bytes of the remote messages not yet written to the local channel.
+     */
+    public long getPendingBytes() {
+        return this.pendingBytes.get();
+    }
+
+    public long getBytesToRemote() {
+        return this.bytesToRemote.get();
+    }
+
+    public long getMessagesToRemote() {
+        return this.messagesToRemote.get();
+    }
+
+    public long getBytesFromRemote() {
+        return this.bytesFromRemote.get();
+    }
+
+    public long getMessagesFromRemote() {
+        return this.messagesFromRemote.get();
+    }
+
+    /**
+     * average latency from a remote message arriving to it written to the local channel.
+     */
+    public long getAverageWriteLatencyMicros() {
+        final long messages = this.messagesFromRemote.get();
+        return messages == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(this.totalWriteLatencyNanos.get() / messages);
+    }
+
+    public long getMaxWriteLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.maxWriteLatencyNanos.get());
     }
 
     protected void closeWebSocket(WebSocket webSocket, int code, String message) {
@@ -142,7 +219,9 @@ public class PortForwarderWebSocketListener extends WebSocketListener {
     }
 
     protected void closeForwarder() {
-        this.alive.set(false);
+        if (this.alive.getAndSet(false) && log.isInfoEnabled()) {
+            log.info("port forwarding closed, {}", this.getStats());
+        }
         if (this.in != null) {
             try {
                 this.in.close();
@@ -157,67 +236,210 @@ public class PortForwarderWebSocketListener extends WebSocketListener {
                 AzureMessager.getMessager().error(e, "Error while stop debugger.");
             }
         }
+        // wake up the selector waiting for the writes
+        this.pendingWrites.clear();
+        this.pendingBytes.set(0);
+        final Selector current = this.selector;
+        if (current != null) {
+            current.wakeup();
+        }
         this.forwarder.stopForward();
         this.pumperService.shutdownNow();
+        this.writerService.shutdownNow();
     }
 
-    protected void pipe(ReadableByteChannel in, WebSocket webSocket, BooleanSupplier isAlive) throws IOException, InterruptedException {
-        final ByteBuffer buffer = ByteBuffer.allocate(4096);
-        int read;
-        do {
+    private String getStats() {
+        final long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - this.startNanos));
+        return String.format("to remote: %d bytes in %d messages, from remote: %d bytes in %d messages, pending: %d bytes, " +
+                "throughput: %d KB/s, write latency avg/max: %d/%d us", this.getBytesToRemote(), this.getMessagesToRemote(),
+            this.getBytesFromRemote(), this.getMessagesFromRemote(), this.getPendingBytes(),
+            (this.getBytesToRemote() + this.getBytesFromRemote()) / 1024 / seconds, this.getAverageWriteLatencyMicros(), this.getMaxWriteLatencyMicros());
+    }
+
+    /**
+     * log the counters periodically while forwarding, at most once per {@link #STATS_LOG_INTERVAL_NANOS}.
+     */
+    private void logStatsPeriodically() {
+        final long now = System.nanoTime();
+        final long last = this.lastStatsLogNanos.get();
+        if (now - last >= STATS_LOG_INTERVAL_NANOS && this.lastStatsLogNanos.compareAndSet(last, now) && log.isDebugEnabled()) {
+            log.debug("port forwarding, {}", this.getStats());
+        }
+    }
+
+    /**
+     * forward data in both directions by a selector, which is used when the local channel is selectable. the remote
+     * messages are still written after the local channel reaches the end of input, until the forwarder is closed.
+     */
+    protected void pump(SelectableChannel channel, WebSocket webSocket) throws IOException {
+        channel.configureBlocking(false);
+        final ByteBuffer buffer = BUFFER_POOL.acquire();
+        try (Selector selector = Selector.open()) {
+            this.selector = selector;
+            final SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            boolean readable = true;
+            while (this.alive.get() && key.isValid()) {
+                // stop reading while the websocket is congested, and check it again later
+                final boolean sendable = readable && webSocket.queueSize() < MAX_QUEUED_BYTES;
+                key.interestOps((sendable ? SelectionKey.OP_READ : 0) | (this.pendingWrites.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+                selector.select(sendable || !readable ? 0 : 10);
+                selector.selectedKeys().clear();
+                if (!this.flushPendingWrites(webSocket)) {
+                    return;
+                }
+                if (sendable && key.isValid() && key.isReadable() && !this.readToRemote(buffer, webSocket)) {
+                    readable = false; // half closed by the local side
+                }
+            }
+        } finally {
+            this.selector = null;
+            BUFFER_POOL.release(buffer);
+        }
+    }
+
+    /**
+     * @return false if the local channel reaches the end.
+     */
+    private boolean readToRemote(ByteBuffer buffer, WebSocket webSocket) throws IOException {
+        for (int i = 0; i < MAX_READS_PER_SELECT; i++) {
             buffer.clear();
-            read = readMessage(in, buffer);
-            if (read > 0) {
-                buffer.flip();
-                webSocket.send(ByteString.of(buffer));
+            final int read = readMessage(this.in, buffer);
+            if (read < 0) {
+                return false;
             } else if (read == 0) {
-                Thread.sleep(50L);
+                return true;
             }
-        } while (isAlive.getAsBoolean() && read >= 0);
+            buffer.flip();
+            this.bytesToRemote.addAndGet(buffer.remaining());
+            this.messagesToRemote.incrementAndGet();
+            // okhttp keeps the message until it's sent, so copy once from the direct buffer
+            webSocket.send(ByteString.of(buffer));
+        }
+        this.logStatsPeriodically();
+        return true;
     }
 
-    protected int readMessage(@NotNull ReadableByteChannel channel, @NotNull final ByteBuffer buffer) throws IOException {
-        return channel.read(buffer);
+    /**
+     * write the pending remote messages to the local channel as much as it accepts, by the selector thread or the
+     * writer thread.
+     *
+     * @return false if failed to write.
+     */
+    private boolean flushPendingWrites(WebSocket webSocket) {
+        PendingWrite pending;
+        while ((pending = this.pendingWrites.peek()) != null) {
+            try {
+                this.out.write(pending.buffer);
+            } catch (final IOException e) {
+                if (this.alive.get()) {
+                    this.closeWebSocket(webSocket, 1002, "Protocol error");
+                    AzureMessager.getMessager().error(e, "Error while forwarding data from remote to client.");
+                }
+                return false;
+            }
+            if (pending.buffer.hasRemaining()) {
+                if (this.isSelectable()) {
+                    return true; // wait for the channel writable
+                }
+                continue; // the blocking channel accepts a part of the bytes, write the rest again
+            }
+            this.pendingWrites.poll();
+            this.onWritten(pending.size, pending.arrivedNanos);
+        }
+        if (this.remoteClosing) {
+            this.closeOnRemoteClosing();
+        }
+        return true;
+    }
+
+    private void onWritten(int size, long arrivedNanos) {
+        final long latency = System.nanoTime() - arrivedNanos;
+        this.pendingBytes.addAndGet(-size);
+        this.bytesFromRemote.addAndGet(size);
+        this.messagesFromRemote.incrementAndGet();
+        this.totalWriteLatencyNanos.addAndGet(latency);
+        this.maxWriteLatencyNanos.accumulateAndGet(latency, Math::max);
+        this.logStatsPeriodically();
     }
 
-    protected void awaitMoreRequest() {
-        this.lock.lock();
+    /**
+     * forward data from the local channel in blocking mode, the read blocks until any data is available, so that it
+     * never polls.
+     */
+    protected void pipe(ReadableByteChannel in, WebSocket webSocket, BooleanSupplier isAlive) throws IOException, InterruptedException {
+        if (in instanceof SelectableChannel && !((SelectableChannel) in).isBlocking()) {
+            ((SelectableChannel) in).configureBlocking(true);
+        }
+        final ByteBuffer buffer = BUFFER_POOL.acquire();
         try {
-            while (!this.more) {
-                this.moreRequested.await();
-            }
-            this.more = false;
-        } catch (final InterruptedException e) {
-            Thread.currentThread().interrupt();
+            int read;
+            do {
+                buffer.clear();
+                read = readMessage(in, buffer);
+                if (read > 0) {
+                    buffer.flip();
+                    this.bytesToRemote.addAndGet(buffer.remaining());
+                    this.messagesToRemote.incrementAndGet();
+                    webSocket.send(ByteString.of(buffer));
+                    this.logStatsPeriodically();
+                }
+            } while (isAlive.getAsBoolean() && read >= 0);
         } finally {
-            this.lock.unlock();
+            BUFFER_POOL.release(buffer);
         }
     }
 
+    protected int readMessage(@NotNull ReadableByteChannel channel, @NotNull final ByteBuffer buffer) throws IOException {
+        return channel.read(buffer);
+    }
+
     protected void writeMessage(WebSocket webSocket, ByteString bytes) {
-        final ByteBuffer buffer = bytes.asByteBuffer();
-        if (this.out != null) {
-            while (true) {
-                try {
-                    if (buffer.hasRemaining()) {
-                        final int written = this.out.write(buffer);
-                        if (written == 0) {
-                            Thread.sleep(50L);
-                        }
-                        continue;
-                    }
-                    this.request();
-                } catch (final InterruptedException | IOException e) {
-                    if (e instanceof InterruptedException) {
-                        Thread.currentThread().interrupt();
-                    }
-                    if (this.alive.get()) {
-                        this.closeWebSocket(webSocket, 1002, "Protocol error");
-                        AzureMessager.getMessager().error(e, "Error while forwarding data from remote to client.");
-                    }
-                }
-                return;
+        // a read-only view of the message, without copying
+        this.writeBuffer(webSocket, bytes.asByteBuffer());
+    }
+
+    /**
+     * queue the remaining bytes of the buffer to be written to the local channel by the selector thread or the writer
+     * thread, the buffer must not be modified afterwards.
+     */
+    protected void writeBuffer(WebSocket webSocket, ByteBuffer buffer) {
+        if (this.out == null || !this.alive.get()) {
+            return;
+        }
+        final int size = buffer.remaining();
+        if (this.pendingBytes.addAndGet(size) > MAX_PENDING_BYTES) {
+            this.closeWebSocket(webSocket, 1008, "Client too slow");
+            AzureMessager.getMessager().error(String.format("The local client didn't consume %d bytes forwarded from remote.", MAX_PENDING_BYTES));
+            return;
+        }
+        this.pendingWrites.offer(new PendingWrite(buffer, size, System.nanoTime()));
+        if (this.isSelectable()) {
+            final Selector current = this.selector;
+            if (current != null) {
+                current.wakeup();
             }
+        } else {
+            try {
+                this.writerService.execute(() -> this.flushPendingWrites(webSocket));
+            } catch (final RejectedExecutionException ignored) {
+                // the forwarder is closed
+            }
+        }
+    }
+
+    private boolean isSelectable() {
+        return this.in instanceof SelectableChannel && this.in == this.out;
+    }
+
+    private static class PendingWrite {
+        private final ByteBuffer buffer;
+        private final int size;
+        private final long arrivedNanos;
+
+        private PendingWrite(ByteBuffer buffer, int size, long arrivedNanos) {
+            this.buffer = buffer;
+            this.size = size;
+            this.arrivedNanos = arrivedNanos;
         }
     }
 }
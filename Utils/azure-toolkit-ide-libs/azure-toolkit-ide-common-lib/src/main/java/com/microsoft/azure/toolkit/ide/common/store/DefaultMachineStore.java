@@ -7,27 +7,65 @@ package com.microsoft.azure.toolkit.ide.common.store;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.microsoft.azure.toolkit.lib.common.exception.AzureToolkitRuntimeException;
 import com.microsoft.azure.toolkit.lib.common.utils.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * machine store persisted in a json file. property changes are written behind: changes in a short window are
+ * coalesced into one write, which replaces the data file atomically by a temp file. pending changes are flushed on
+ * {@link #flush()} and at jvm shutdown.
+ */
+@Slf4j
 public class DefaultMachineStore implements IMachineStore {
+    public static final long DEFAULT_FLUSH_DELAY_MILLIS = 500;
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "azure-machine-store-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private String dataFile;
-    private Map<String, String> map = new HashMap<>();
+    private final String dataFile;
+    private final Map<String, String> map = new ConcurrentHashMap<>();
+    private final long flushDelayMillis;
+    // version of the changes, increased by each change
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // serializes the file writes, it's never held while accessing properties
+    private final Object fileLock = new Object();
+    private long savedVersion = 0;
 
     public DefaultMachineStore(String dataFile) {
+        this(dataFile, DEFAULT_FLUSH_DELAY_MILLIS);
+    }
+
+    public DefaultMachineStore(String dataFile, long flushDelayMillis) {
         this.dataFile = dataFile;
+        this.flushDelayMillis = flushDelayMillis;
         if (Files.exists(Paths.get(dataFile))) {
             load();
         }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly, "azure-machine-store-shutdown"));
     }
 
     @Nullable
@@ -41,13 +79,12 @@ public class DefaultMachineStore implements IMachineStore {
     }
 
     public void setProperty(@javax.annotation.Nullable String service, @Nonnull String key, @Nullable String value) {
-        String hashKey = combineKey(service, key);
-        if (value == null) {
-            map.remove(hashKey);
-            return;
+        final String hashKey = combineKey(service, key);
+        final String old = value == null ? map.remove(hashKey) : map.put(hashKey, value);
+        if (!Objects.equals(old, value)) {
+            version.incrementAndGet();
+            scheduleFlush();
         }
-        map.put(hashKey, value);
-        save();
     }
 
     private static String combineKey(String service, String key) {
@@ -59,7 +96,16 @@ public class DefaultMachineStore implements IMachineStore {
             if (Files.exists(Paths.get(dataFile))) {
                 final String json = FileUtils.readFileToString(new File(dataFile), "utf8");
                 final TypeReference<HashMap<String, String>> type = new TypeReference<HashMap<String, String>>(){};
-                map = JsonUtils.fromJson(json, type);
+                final Map<String, String> loaded = JsonUtils.fromJson(json, type);
+                map.clear();
+                if (loaded != null) {
+                    // concurrent map doesn't accept null
+                    loaded.forEach((k, v) -> {
+                        if (k != null && v != null) {
+                            map.put(k, v);
+                        }
+                    });
+                }
             }
         } catch (final AzureToolkitRuntimeException e) {
             throw e;
@@ -68,14 +114,69 @@ public class DefaultMachineStore implements IMachineStore {
         }
     }
 
+    /**
+     * write all properties to the data file immediately.
+     */
     public void save() {
+        synchronized (fileLock) {
+            final long current = version.get();
+            try {
+                writeAtomically(JsonUtils.toJson(new TreeMap<>(map)));
+                savedVersion = Math.max(savedVersion, current);
+            } catch (final AzureToolkitRuntimeException e) {
+                throw e;
+            } catch (Exception ex) {
+                throw new AzureToolkitRuntimeException("Cannot save property", ex);
+            }
+        }
+    }
+
+    /**
+     * write the pending changes to the data file if there are any.
+     */
+    @Override
+    public void flush() {
+        synchronized (fileLock) {
+            if (savedVersion < version.get()) {
+                save();
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            FLUSHER.schedule(() -> {
+                // clear the flag before flushing, so that the changes during flushing schedule another flush
+                flushScheduled.set(false);
+                flushQuietly();
+            }, flushDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushQuietly() {
         try {
-            FileUtils.writeStringToFile(new File(dataFile), JsonUtils.toJson(map), "utf8");
-        } catch (final AzureToolkitRuntimeException e) {
-            throw e;
-        } catch (Exception ex) {
-            throw new AzureToolkitRuntimeException("Cannot save property", ex);
+            flush();
+        } catch (final Exception e) {
+            log.warn("failed to flush properties to {}", dataFile, e);
         }
     }
 
+    private void writeAtomically(@Nonnull String content) throws Exception {
+        final Path target = Paths.get(dataFile).toAbsolutePath();
+        final Path dir = target.getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        final Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.ide.common.component;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NodeReconcileTest {
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicReference<List<String>> childrenData = new AtomicReference<>();
+    private final AtomicReference<Node.ChildrenDiff> renderedDiff = new AtomicReference<>();
+    private Node<String> root;
+
+    @Before
+    public void setUp() {
+        this.childrenData.set(data(0, 2000));
+        this.root = new Node<>("root").addChildren(r -> this.childrenData.get(), (data, parent) -> {
+            this.created.incrementAndGet();
+            return new Node<>(data);
+        });
+        this.root.setChildrenRenderer(new Node.ChildrenRenderer() {
+            @Override
+            public void updateChildren(boolean... incremental) {
+            }
+
+            @Override
+            public void updateChildren(Node.ChildrenDiff diff) {
+                renderedDiff.set(diff);
+            }
+        });
+    }
+
+    @Test
+    public void testRefreshUnchangedChildrenRetainsNodes() {
+        this.root.refreshChildren();
+        final List<Node<?>> before = new ArrayList<>(this.root.getChildrenSync());
+        this.created.set(0);
+
+        this.childrenData.set(data(0, 2000));
+        this.root.refreshChildren();
+        final List<Node<?>> after = this.root.getChildrenSync();
+
+        assertEquals(0, this.created.get());
+        assertEquals(before.size(), after.size());
+        IntStream.range(0, before.size()).forEach(i -> assertSame(before.get(i), after.get(i)));
+        assertEquals(2000, this.renderedDiff.get().getRetained().size());
+        assertTrue(this.renderedDiff.get().getAdded().isEmpty());
+        assertTrue(this.renderedDiff.get().getRemoved().isEmpty());
+    }
+
+    @Test
+    public void testRefreshChurnedChildrenOnlyBuildsAddedNodes() {
+        this.root.refreshChildren();
+        final List<Node<?>> before = new ArrayList<>(this.root.getChildrenSync());
+        this.created.set(0);
+
+        // the first 20 children are removed and 20 new ones are appended
+        this.childrenData.set(data(20, 2020));
+        this.root.refreshChildren();
+        final List<Node<?>> after = this.root.getChildrenSync();
+
+        assertEquals(20, this.created.get());
+        assertEquals(2000, after.size());
+        assertSame(before.get(20), after.get(0));
+        assertEquals(20, this.renderedDiff.get().getAdded().size());
+        assertEquals(20, this.renderedDiff.get().getRemoved().size());
+        assertEquals(1980, this.renderedDiff.get().getRetained().size());
+        before.subList(0, 20).forEach(n -> assertTrue(n.isDisposed()));
+        after.forEach(n -> assertFalse(n.isDisposed()));
+    }
+
+    @Test
+    public void testRefreshChildrenRecordsLoadLatency() {
+        assertEquals(-1, this.root.getChildrenLoadMillis());
+
+        this.root.refreshChildren();
+
+        assertTrue(this.root.getChildrenLoadMillis() >= 0);
+    }
+
+    @Test
+    public void testOverriddenBuildChildrenIsNotReconciled() {
+        final Node<String> custom = new Node<>("custom") {
+            @Override
+            public List<Node<?>> buildChildren() {
+                created.incrementAndGet();
+                return Arrays.asList(new Node<>("a"), new Node<>("b"));
+            }
+        };
+
+        custom.refreshChildren();
+        custom.refreshChildren();
+
+        assertEquals(2, this.created.get());
+        assertNotNull(custom.getChildrenSync());
+        assertEquals(2, custom.getChildrenSync().size());
+    }
+
+    private static List<String> data(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "resource-" + i).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ *  Licensed under the MIT License. See License.txt in the project root for license information.
+ */
+
+package com.microsoft.azure.toolkit.ide.common.portforwarder;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.WebSocket;
+import okio.ByteString;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class PortForwarderWebSocketListenerTest {
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    /**
+     * a local client sends data through the selector pumped forwarder to a websocket echo server and reads it back.
+     */
+    @Test(timeout = 60_000)
+    public void testSelectableChannelEchoesThroughWebSocket() throws Exception {
+        try (ServerSocket echoServer = new ServerSocket(0)) {
+            final Thread echo = new Thread(() -> serveEcho(echoServer), "websocket-echo");
+            echo.setDaemon(true);
+            echo.start();
+
+            final LoopbackForwarder forwarder = new LoopbackForwarder(echoServer.getLocalPort());
+            forwarder.initLocalSocket(0);
+            final int localPort = forwarder.server.socket().getLocalPort();
+            final Thread forwarding = new Thread(() -> forwarder.startForward(localPort), "port-forwarder");
+            forwarding.setDaemon(true);
+            forwarding.start();
+
+            try (SocketChannel client = SocketChannel.open(new InetSocketAddress("127.0.0.1", localPort))) {
+                // the forwarding thread returns once the local connection is accepted and the websocket is requested
+                forwarding.join();
+                forwarder.listener.getFuture().get(10, TimeUnit.SECONDS);
+
+                for (int i = 0; i < 100; i++) {
+                    final byte[] request = randomBytes(64, i);
+                    write(client, request);
+                    assertArrayEquals(request, read(client, request.length));
+                }
+
+                final byte[] data = randomBytes(4 * 1024 * 1024, 100);
+                final CompletableFuture<byte[]> echoed = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return read(client, data.length);
+                    } catch (final IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                write(client, data);
+                assertArrayEquals(data, echoed.get(30, TimeUnit.SECONDS));
+
+                final PortForwarderWebSocketListener listener = forwarder.listener;
+                final long total = 100 * 64 + data.length;
+                assertEquals(total, listener.getBytesToRemote());
+                assertEquals(total, listener.getBytesFromRemote());
+                assertEquals(0, listener.getPendingBytes());
+            } finally {
+                forwarder.stopForward();
+            }
+            assertFalse(forwarder.listener.isAlive());
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void testBlockingChannelsForwardBothDirections() throws Exception {
+        final Pipe local = Pipe.open();
+        final Pipe remote = Pipe.open();
+        final RecordingWebSocket webSocket = new RecordingWebSocket();
+        final PortForwarderWebSocketListener listener = new PortForwarderWebSocketListener(local.source(), remote.sink(), new NoopForwarder());
+        listener.onOpen(webSocket, null);
+        try {
+            final byte[] toRemote = randomBytes(1024, 1);
+            write(local.sink(), toRemote);
+            final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+            while (sent.size() < toRemote.length) {
+                final ByteString message = webSocket.sent.poll(10, TimeUnit.SECONDS);
+                assertNotNull(message);
+                sent.write(message.toByteArray());
+            }
+            assertArrayEquals(toRemote, sent.toByteArray());
+
+            final byte[] fromRemote = randomBytes(1024, 2);
+            listener.onMessage(webSocket, ByteString.of(fromRemote));
+            assertArrayEquals(fromRemote, read(remote.source(), fromRemote.length));
+            assertEquals(fromRemote.length, listener.getBytesFromRemote());
+        } finally {
+            listener.closeForwarder();
+        }
+    }
+
+    /**
+     * the websocket reader is never blocked by a local client not reading, the forwarding is closed instead.
+     */
+    @Test(timeout = 30_000)
+    public void testSlowLocalClientClosesForwarding() throws Exception {
+        final Pipe local = Pipe.open();
+        final Pipe remote = Pipe.open(); // its source is never read
+        final RecordingWebSocket webSocket = new RecordingWebSocket();
+        final PortForwarderWebSocketListener listener = new PortForwarderWebSocketListener(local.source(), remote.sink(), new NoopForwarder());
+        listener.onOpen(webSocket, null);
+
+        final ByteString message = ByteString.of(new byte[1024 * 1024]);
+        final long messages = PortForwarderWebSocketListener.MAX_PENDING_BYTES / message.size() + 1;
+        for (int i = 0; i < messages; i++) {
+            listener.onMessage(webSocket, message);
+        }
+
+        assertFalse(listener.isAlive());
+        assertEquals(1008, webSocket.closeCode);
+        assertTrue(webSocket.closeReason.length() > 0);
+    }
+
+    private static byte[] randomBytes(int size, long seed) {
+        final byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void write(WritableByteChannel channel, byte[] bytes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] read(ReadableByteChannel channel, int size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("connection closed");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * minimal websocket server echoing the binary messages.
+     */
+    private static void serveEcho(ServerSocket server) {
+        try (Socket socket = server.accept()) {
+            socket.setTcpNoDelay(true);
+            final DataInputStream in = new DataInputStream(socket.getInputStream());
+            final OutputStream out = socket.getOutputStream();
+            handshake(in, out);
+            while (true) {
+                final int first = in.readUnsignedByte();
+                final int opcode = first & 0x0F;
+                final int second = in.readUnsignedByte();
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                } else if (length == 127) {
+                    length = in.readLong();
+                }
+                final byte[] mask = new byte[4];
+                if ((second & 0x80) != 0) {
+                    in.readFully(mask);
+                }
+                final byte[] payload = new byte[(int) length];
+                in.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i % 4];
+                }
+                if (opcode == 0x8) { // close
+                    writeFrame(out, 0x8, payload);
+                    return;
+                }
+                writeFrame(out, opcode == 0x9 ? 0xA : opcode, payload);
+            }
+        } catch (final IOException ignored) {
+            // the forwarder is stopped
+        }
+    }
+
+    private static void handshake(InputStream in, OutputStream out) throws IOException {
+        String key = null;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                key = line.substring(line.indexOf(':') + 1).trim();
+            }
+        }
+        final String accept;
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (final Exception e) {
+            throw new IOException(e);
+        }
+        out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n" +
+            "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("connection closed");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString("US-ASCII");
+    }
+
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        final ByteArrayOutputStream header = new ByteArrayOutputStream(10);
+        header.write(0x80 | opcode);
+        if (payload.length < 126) {
+            header.write(payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            header.write(126);
+            header.write(payload.length >>> 8);
+            header.write(payload.length);
+        } else {
+            header.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                header.write((int) ((long) payload.length >>> shift));
+            }
+        }
+        header.writeTo(out);
+        out.write(payload);
+        out.flush();
+    }
+
+    private static class LoopbackForwarder extends AbstractPortForwarder {
+        private final int remotePort;
+
+        private LoopbackForwarder(int remotePort) {
+            this.remotePort = remotePort;
+        }
+
+        @Override
+        protected WebSocketBuilder createSocketBuilder(OkHttpClient httpClient) {
+            return new WebSocketBuilder(httpClient).uri(String.format("ws://127.0.0.1:%d/", this.remotePort));
+        }
+
+        @Override
+        protected PortForwarderWebSocketListener createWebSocketListener(SocketChannel channel) {
+            return new PortForwarderWebSocketListener(channel, channel, this);
+        }
+    }
+
+    private static class NoopForwarder extends AbstractPortForwarder {
+        @Override
+        protected WebSocketBuilder createSocketBuilder(OkHttpClient httpClient) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected PortForwarderWebSocketListener createWebSocketListener(SocketChannel channel) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class RecordingWebSocket implements WebSocket {
+        private final BlockingQueue<ByteString> sent = new LinkedBlockingQueue<>();
+        private volatile int closeCode;
+        private volatile String closeReason;
+
+        @NotNull
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://127.0.0.1/").build();
+        }
+
+        @Override
+        public long queueSize() {
+            return 0;
+        }
+
+        @Override
+        public boolean send(@NotNull String text) {
+            return this.send(ByteString.encodeUtf8(text));
+        }
+
+        @Override
+        public boolean send(@NotNull ByteString bytes) {
+            return this.sent.offer(bytes);
+        }
+
+        @Override
+        public boolean close(int code, String reason) {
+            this.closeCode = code;
+            this.closeReason = reason;
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -35,7 +35,6 @@ public class SpringPortForwarderWebSocketListener extends PortForwarderWebSocket
         ++this.messagesRead;
         final ByteBuffer buffer = bytes.asByteBuffer();
         if (this.messagesRead <= 2) {
-            this.request();
             return;
         }
         if (!buffer.hasRemaining()) {
@@ -52,6 +51,6 @@ public class SpringPortForwarderWebSocketListener extends PortForwarderWebSocket
             AzureMessager.getMessager().error(errorMessage, "Received an error from the remote socket.");
             return;
         }
-        super.writeMessage(webSocket, ByteString.of(buffer));
+        super.writeBuffer(webSocket, buffer);
     }
 }